@@ -0,0 +1,44 @@
+#!/bin/sh
+# Runs the benchmarks on two commits and compares the results, for example before merging a change:
+#
+#   benchmarks/compare.sh master HEAD [JMH options, like "-f 1 -wi 3 -i 5" or a benchmark name]
+#
+# Every commit is checked out in a temporary git worktree, the server is installed into the local Maven repository and the benchmarks
+# are built against it. The results are kept in benchmarks/results/<commit>.csv. Exits with 1 if a benchmark regressed by more than
+# BENCHMARK_THRESHOLD percent (5 by default).
+set -e
+
+if [ $# -lt 2 ]; then
+    echo "Usage: $0 <base commit> <head commit> [JMH options]" >&2
+    exit 2
+fi
+BASE=$1
+HEAD=$2
+shift 2
+
+BENCHMARKS=$(cd "$(dirname "$0")" && pwd)
+RESULTS="$BENCHMARKS/results"
+WORKTREES=$(mktemp -d)
+trap 'for tree in "$WORKTREES"/*; do git -C "$BENCHMARKS" worktree remove --force "$tree"; done; rm -rf "$WORKTREES"' EXIT
+mkdir -p "$RESULTS"
+
+run() {
+    COMMIT=$(git -C "$BENCHMARKS" rev-parse --short "$1")
+    VARIABLE=$2
+    shift 2
+    TREE="$WORKTREES/$COMMIT"
+    git -C "$BENCHMARKS" worktree add --detach "$TREE" "$COMMIT" > /dev/null
+    # the benchmarks of the head commit are used for both commits, so the same code measures both servers
+    rm -rf "$TREE/ClientServerChat/benchmarks"
+    cp -r "$BENCHMARKS" "$TREE/ClientServerChat/benchmarks"
+    rm -rf "$TREE/ClientServerChat/benchmarks/target" "$TREE/ClientServerChat/benchmarks/results"
+    (cd "$TREE/ClientServerChat" && mvn -B -q install -DskipTests)
+    (cd "$TREE/ClientServerChat/benchmarks" && mvn -B -q package)
+    java -jar "$TREE/ClientServerChat/benchmarks/target/benchmarks.jar" -rf csv -rff "$RESULTS/$COMMIT.csv" "$@"
+    eval "$VARIABLE=$COMMIT"
+}
+
+run "$BASE" BASE_COMMIT "$@"
+run "$HEAD" HEAD_COMMIT "$@"
+java -cp "$WORKTREES/$HEAD_COMMIT/ClientServerChat/benchmarks/target/benchmarks.jar" clientserver.benchmark.BenchmarkComparison \
+    "$RESULTS/$BASE_COMMIT.csv" "$RESULTS/$HEAD_COMMIT.csv" "${BENCHMARK_THRESHOLD:-5}"
@@ -0,0 +1,161 @@
+/*
+ * BenchmarkComparison.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.benchmark;
+
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Compares two result files written by JMH with "-rf csv", like the results of the base and the head commit written by compare.sh.
+ * Benchmarks are matched by name and parameters. All benchmarks of this module measure time per operation, so a higher score is a
+ * regression. The process exits with 1 if any benchmark regressed by more than the threshold.
+ * <p>
+ * Usage: BenchmarkComparison base.csv head.csv [threshold in percent, 5 by default]
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class BenchmarkComparison
+{
+    private static final double DEFAULT_THRESHOLD_PERCENT = 5;
+    private static final String USAGE_MSG = "Usage: BenchmarkComparison base.csv head.csv [threshold in percent]";
+    private static final String HEADER_FORMAT = "%-60s %14s %14s %9s%n";
+    private static final String ROW_FORMAT = "%-60s %14.3f %14.3f %+8.1f%% %s%n";
+    private static final String MISSING_FORMAT = "%-60s %s%n";
+    private static final String REGRESSION_FLAG = "REGRESSION";
+    private static final String BENCHMARK_COLUMN = "Benchmark";
+    private static final String SCORE_COLUMN = "Score";
+    private static final String UNIT_COLUMN = "Unit";
+    private static final String PARAM_COLUMN_PREFIX = "Param: ";
+
+
+    private BenchmarkComparison()
+    {}
+
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println(USAGE_MSG);
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Double> base = readScores(args[0]);
+        Map<String, Double> head = readScores(args[1]);
+        int regressions = 0;
+        System.out.printf(HEADER_FORMAT, BENCHMARK_COLUMN, "base", "head", "change");
+        for (Map.Entry<String, Double> result : head.entrySet())
+        {
+            Double baseScore = base.get(result.getKey());
+            if (baseScore == null)
+            {
+                System.out.printf(MISSING_FORMAT, result.getKey(), "new");
+                continue;
+            }
+            double change = (result.getValue() - baseScore) / baseScore * 100;
+            boolean regression = change > threshold;
+            if (regression)
+            {
+                regressions++;
+            }
+            System.out.printf(ROW_FORMAT, result.getKey(), baseScore, result.getValue(), change, regression ? REGRESSION_FLAG : "");
+        }
+        for (String benchmark : base.keySet())
+        {
+            if (!head.containsKey(benchmark))
+            {
+                System.out.printf(MISSING_FORMAT, benchmark, "removed");
+            }
+        }
+        System.out.printf("%d regression(s) over %.1f%%%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+
+    /**
+     * Reads the scores of a result file, keyed by the benchmark name, the parameters and the unit.
+     */
+    private static Map<String, Double> readScores(String file) throws IOException
+    {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        Map<String, Double> scores = new LinkedHashMap<String, Double>();
+        if (lines.isEmpty())
+        {
+            return scores;
+        }
+        List<String> header = parseLine(lines.get(0));
+        int benchmarkColumn = header.indexOf(BENCHMARK_COLUMN);
+        int scoreColumn = header.indexOf(SCORE_COLUMN);
+        int unitColumn = header.indexOf(UNIT_COLUMN);
+        for (String line : lines.subList(1, lines.size()))
+        {
+            if (line.trim().isEmpty())
+            {
+                continue;
+            }
+            List<String> values = parseLine(line);
+            StringBuilder key = new StringBuilder(values.get(benchmarkColumn).replaceFirst("^clientserver\\.benchmark\\.", ""));
+            for (int i = 0; i < header.size(); i++)
+            {
+                if (header.get(i).startsWith(PARAM_COLUMN_PREFIX) && i < values.size() && !values.get(i).isEmpty())
+                {
+                    key.append(' ').append(header.get(i).substring(PARAM_COLUMN_PREFIX.length())).append('=').append(values.get(i));
+                }
+            }
+            key.append(" [").append(values.get(unitColumn)).append(']');
+            scores.put(key.toString(), Double.valueOf(values.get(scoreColumn)));
+        }
+        return scores;
+    }
+
+
+    /**
+     * Splits one CSV line, JMH quotes all text values and writes numbers unquoted.
+     */
+    private static List<String> parseLine(String line)
+    {
+        List<String> values = new ArrayList<String>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (c == '"')
+            {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"')
+                {
+                    value.append(c);
+                    i++;
+                }
+                else
+                {
+                    quoted = !quoted;
+                }
+            }
+            else if (c == ',' && !quoted)
+            {
+                values.add(value.toString());
+                value.setLength(0);
+            }
+            else
+            {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
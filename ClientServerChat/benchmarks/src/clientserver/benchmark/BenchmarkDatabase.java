@@ -0,0 +1,75 @@
+/*
+ * BenchmarkDatabase.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.benchmark;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import clientserver.database.Database;
+
+
+/**
+ * Embedded H2 Database of one benchmark trial in a new temporary directory, so every trial starts with empty tables. The web console
+ * of the {@link Database} is started on a free port.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+final class BenchmarkDatabase
+{
+    private static final String URL_PROPERTY = "chat.db.url";
+    private static final String WEB_PORT_PROPERTY = "chat.db.webPort";
+    private static final String DIRECTORY_PREFIX = "chat-benchmark";
+    private static final String DATABASE_NAME = "chat";
+    private final Path directory;
+
+
+    private BenchmarkDatabase(Path directory)
+    {
+        this.directory = directory;
+    }
+
+
+    /**
+     * Configures the {@link Database} to use a new temporary directory. The Database itself is started by the first DAO call.
+     *
+     * @return the Database of the trial.
+     * @throws IOException if the directory can't be created or no port is free.
+     */
+    static BenchmarkDatabase create() throws IOException
+    {
+        Path directory = Files.createTempDirectory(DIRECTORY_PREFIX);
+        System.setProperty(URL_PROPERTY, "jdbc:h2:" + directory.resolve(DATABASE_NAME).toAbsolutePath());
+        try (ServerSocket socket = new ServerSocket(0))
+        {
+            System.setProperty(WEB_PORT_PROPERTY, String.valueOf(socket.getLocalPort()));
+        }
+        return new BenchmarkDatabase(directory);
+    }
+
+
+    /**
+     * Closes the {@link Database} and deletes its files.
+     */
+    void delete()
+    {
+        Database.shutdown();
+        File[] files = directory.toFile().listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+}
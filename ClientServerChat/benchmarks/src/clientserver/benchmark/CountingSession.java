@@ -0,0 +1,43 @@
+/*
+ * CountingSession.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.benchmark;
+
+
+import clientserver.server.ClientSession;
+
+
+/**
+ * Session of the benchmarks which only counts the lines and characters sent to it, so the responses can't be optimized away.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+class CountingSession extends ClientSession
+{
+    private long lines;
+    private long characters;
+
+
+    @Override
+    public void send(String line)
+    {
+        lines++;
+        characters += line.length();
+    }
+
+
+    long getLines()
+    {
+        return lines;
+    }
+
+
+    long getCharacters()
+    {
+        return characters;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * HistoryBenchmark.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.benchmark;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.memory.ChatDaoMemory;
+import clientserver.dao.memory.MailboxDaoMemory;
+import clientserver.dao.memory.RoomDaoMemory;
+import clientserver.dao.memory.UserDaoMemory;
+import clientserver.server.CommandProcessor;
+import clientserver.server.HistoryCache;
+
+
+/**
+ * Loading and rendering of the history sent for "!update" with the given number of messages, with and without the
+ * {@link HistoryCache}. The messages are kept in memory, so the benchmark measures the paging and the rendering and not a Database.
+ * Every trial needs a fresh JVM, since the in-memory store is shared by the whole JVM.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark
+{
+    private static final String CACHE_PROPERTY = "chat.history.cache.enabled";
+    private static final String READER = "alice";
+    private static final String SENDER = "bob";
+    @Param({ "10", "100", "1000" })
+    private int size;
+    @Param({ "true", "false" })
+    private boolean cache;
+    private CommandProcessor processor;
+    private CountingSession session;
+    private String updateLine;
+
+
+    @Setup
+    public void setUp() throws DaoException
+    {
+        System.setProperty(CACHE_PROPERTY, String.valueOf(cache));
+        processor = new CommandProcessor(UserDaoMemory.getInstance(), ChatDaoMemory.getInstance(), RoomDaoMemory.getInstance(),
+                                         MailboxDaoMemory.getInstance());
+        session = new CountingSession();
+        processor.process(session, READER + " !join benchmark");
+        CountingSession senderSession = new CountingSession();
+        for (int i = 0; i < size; i++)
+        {
+            processor.process(senderSession, SENDER + " @" + READER + " history message number " + i);
+        }
+        updateLine = READER + " !update limit " + size;
+    }
+
+
+    @Benchmark
+    public long update()
+    {
+        processor.process(session, updateLine);
+        return session.getCharacters();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * HistoryDaoBenchmark.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.benchmark;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.UserDao;
+import clientserver.dao.db.ChatDaoDB;
+import clientserver.dao.db.UserDaoDB;
+import clientserver.database.SqlContext;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Reads the history of a user with {@link UserDao#getHistory(String)} and with one page of {@link UserDao#getHistorySince} from an
+ * embedded H2 Database. The Database holds the given number of messages of the user and the same number of messages between other
+ * users, which the queries have to skip.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryDaoBenchmark
+{
+    private static final String READER = "reader";
+    private static final String SENDER = "sender";
+    private static final String OTHER = "other";
+    private static final String MESSAGE = "benchmark message";
+    @Param({ "10", "100", "1000" })
+    private int size;
+    private final UserDao userDao = UserDaoDB.getInstance();
+    private BenchmarkDatabase database;
+    private SqlContext context;
+
+
+    @Setup
+    public void setUp() throws IOException, DaoException
+    {
+        database = BenchmarkDatabase.create();
+        context = SqlContext.open();
+        List<ChatEntity> chats = new ArrayList<ChatEntity>(2 * size);
+        for (int i = 0; i < size; i++)
+        {
+            chats.add(createMessage(READER));
+            chats.add(createMessage(OTHER));
+        }
+        ChatDaoDB.getInstance().saveMsgs(chats);
+    }
+
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+        database.delete();
+    }
+
+
+    @Benchmark
+    public List<ChatEntity> getHistory() throws DaoException
+    {
+        return userDao.getHistory(READER);
+    }
+
+
+    @Benchmark
+    public List<ChatEntity> getHistorySince() throws DaoException
+    {
+        return userDao.getHistorySince(READER, 0, size);
+    }
+
+
+    private static ChatEntity createMessage(String recipient)
+    {
+        ChatEntity chat = new ChatEntity();
+        chat.setSender(SENDER);
+        chat.setRecipient(recipient);
+        chat.setMessage(MESSAGE);
+        return chat;
+    }
+}
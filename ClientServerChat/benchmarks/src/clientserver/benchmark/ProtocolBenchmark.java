@@ -0,0 +1,145 @@
+/*
+ * ProtocolBenchmark.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.benchmark;
+
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import clientserver.dao.ChatDao;
+import clientserver.dao.DaoException;
+import clientserver.dao.memory.MailboxDaoMemory;
+import clientserver.dao.memory.RoomDaoMemory;
+import clientserver.dao.memory.UserDaoMemory;
+import clientserver.entities.ChatEntity;
+import clientserver.server.CommandProcessor;
+
+
+/**
+ * Parsing, validation and dispatching of the lines received from the clients by {@link CommandProcessor#process}. The messages are
+ * numbered but not stored, so the benchmark measures the protocol and not the growth of a store.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark
+{
+    private static final String SENDER = "alice";
+    private static final String RECIPIENT = "bob";
+    private static final String ROOM = "benchmark";
+    private static final String MESSAGE_LINE = SENDER + " hello everyone, this is a message of ordinary length";
+    private static final String PRIVATE_LINE = SENDER + " @" + RECIPIENT + " hello bob, this is a message of ordinary length";
+    private static final String ROOM_LINE = SENDER + " #" + ROOM + " hello room, this is a message of ordinary length";
+    private static final String UPDATE_LINE = SENDER + " !update room " + ROOM + " since 2000000000 limit 10";
+    private static final String TOO_LONG_LINE = SENDER + " " + new String(new char[400]).replace('\0', 'x');
+    private CommandProcessor processor;
+    private CountingSession session;
+
+
+    @Setup
+    public void setUp() throws DaoException
+    {
+        processor = new CommandProcessor(UserDaoMemory.getInstance(), new NumberingChatDao(), RoomDaoMemory.getInstance(),
+                                         MailboxDaoMemory.getInstance());
+        session = new CountingSession();
+        processor.process(session, SENDER + " !join " + ROOM);
+        processor.process(new CountingSession(), RECIPIENT + " !join " + ROOM);
+    }
+
+
+    @Benchmark
+    public long message()
+    {
+        processor.process(session, MESSAGE_LINE);
+        return session.getCharacters();
+    }
+
+
+    @Benchmark
+    public long privateMessage()
+    {
+        processor.process(session, PRIVATE_LINE);
+        return session.getCharacters();
+    }
+
+
+    @Benchmark
+    public long roomMessage()
+    {
+        processor.process(session, ROOM_LINE);
+        return session.getCharacters();
+    }
+
+
+    /**
+     * An update after the newest message: parsing and an empty page, without loading any history.
+     */
+    @Benchmark
+    public long emptyUpdate()
+    {
+        processor.process(session, UPDATE_LINE);
+        return session.getCharacters();
+    }
+
+
+    @Benchmark
+    public long rejectedLine()
+    {
+        processor.process(session, TOO_LONG_LINE);
+        return session.getCharacters();
+    }
+
+
+    /**
+     * Sets the ids of the messages and forgets them.
+     */
+    private static class NumberingChatDao implements ChatDao
+    {
+        private int lastId;
+
+
+        @Override
+        public synchronized void saveMsg(ChatEntity chat)
+        {
+            chat.setId(++lastId);
+        }
+
+
+        @Override
+        public void saveMsgs(Collection<ChatEntity> chats)
+        {
+            for (ChatEntity chat : chats)
+            {
+                saveMsg(chat);
+            }
+        }
+
+
+        @Override
+        public void deleteMsg(ChatEntity chat)
+        {
+            // nothing is stored
+        }
+    }
+}
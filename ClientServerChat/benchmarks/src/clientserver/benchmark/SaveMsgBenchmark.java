@@ -0,0 +1,111 @@
+/*
+ * SaveMsgBenchmark.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.benchmark;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import clientserver.dao.ChatDao;
+import clientserver.dao.DaoException;
+import clientserver.dao.db.ChatDaoDB;
+import clientserver.database.SqlContext;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Compares saving one message per recipient with {@link ChatDao#saveMsg(ChatEntity)} against one batch with
+ * {@link ChatDao#saveMsgs(java.util.Collection)} for 10, 100 and 1000 recipients in an embedded H2 Database. The benchmark thread keeps
+ * one {@link SqlContext} open, like the write-behind writer of the server does.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveMsgBenchmark
+{
+    private static final String SENDER = "benchmark";
+    private static final String RECIPIENT = "benchmark_recipient_";
+    private static final String MESSAGE = "benchmark message";
+    @Param({ "10", "100", "1000" })
+    private int recipients;
+    private final ChatDao chatDao = ChatDaoDB.getInstance();
+    private BenchmarkDatabase database;
+    private SqlContext context;
+
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        database = BenchmarkDatabase.create();
+        context = SqlContext.open();
+    }
+
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+        database.delete();
+    }
+
+
+    @Benchmark
+    public List<ChatEntity> perRow() throws DaoException
+    {
+        List<ChatEntity> chats = createMessages();
+        for (ChatEntity chat : chats)
+        {
+            chatDao.saveMsg(chat);
+        }
+        return chats;
+    }
+
+
+    @Benchmark
+    public List<ChatEntity> batch() throws DaoException
+    {
+        List<ChatEntity> chats = createMessages();
+        chatDao.saveMsgs(chats);
+        return chats;
+    }
+
+
+    private List<ChatEntity> createMessages()
+    {
+        List<ChatEntity> chats = new ArrayList<ChatEntity>(recipients);
+        for (int i = 0; i < recipients; i++)
+        {
+            ChatEntity chat = new ChatEntity();
+            chat.setSender(SENDER);
+            chat.setRecipient(RECIPIENT + i);
+            chat.setMessage(MESSAGE);
+            chats.add(chat);
+        }
+        return chats;
+    }
+}
@@ -10,24 +10,31 @@ package clientserver.client;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.Scanner;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
+import clientserver.config.Configuration;
 import clientserver.server.ChatServer;
 
 
 /**
  * Represents client side from Client-Server application. Starts on the given host and port, or on localhost at port 7777 by default.
+ * Every connection asks the server to deflate what it sends, unless "chat.client.compression" is switched off.
  * <p>
  * created at Aug 16, 2017 by @author Petya Petrova p.petrova
  */
-public class ChatClient
+public class ChatClient implements AutoCloseable
 {
     private static final String DEFAULT_HOST = "localhost";
     private static final int DEFAULT_PORT = 7777;
@@ -44,10 +51,29 @@ public class ChatClient
     private static final int MAX_LENGTH_USERNAME = 50;
     private static final String EXIT_CMD = "!exit";
     private static final String UPDATE_CMD = "!update";
+    private static final String UPDATE_SINCE_CMD = "!update since ";
+    private static final String UPLOAD_CMD = "!upload";
+    private static final String DOWNLOAD_CMD = "!download";
+    private static final String TRANSFER_USAGE_MSG = "Usage: !upload <*|@user|#room> <path> or !download <id> <path>";
+    private static final String COMPRESS_CMD = "!compress deflate";
+    private static final String COMPRESSION_PROPERTY = "chat.client.compression";
+    private static final int INFLATE_BUFFER_SIZE = 8192;
+    private static final String ID_PREFIX = "id: ";
+    private static final String HISTORY_END = "!end";
+    private static final String BEHIND_MSG = "!behind";
+    private static final String RECONNECT_MSG = "Connection to the server lost, reconnecting...";
+    private static final int MAX_CONNECT_ATTEMPTS = 3;
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+    private static final String READER_THREAD_NAME = "chat-client-reader-";
     private static final Logger LOGGER = Logger.getLogger(ChatClient.class.getName());
     private final String username;
     private final int port;
     private final String host;
+    private final boolean compression;
+    private Socket socket;
+    private PrintWriter output;
+    private volatile boolean closed;
+    private volatile int lastSeenId;
 
 
     /**
@@ -73,26 +99,293 @@ public class ChatClient
         this.username = username;
         this.host = host;
         this.port = port;
+        compression = Configuration.getInstance().getBoolean(COMPRESSION_PROPERTY, true);
     }
 
 
     /**
-     * Connecting to the {@link ChatServer}. Opens a {@link Socket} at given or default host and port. Creates {@link BufferedReader} and
-     * {@link PrintWriter} for communication between {@link ChatClient} and {@link ChatServer}.
+     * Sends the message to the {@link ChatServer}. All messages go through one long-lived session connection, which is opened on first
+     * use and reopened if the server drops it. Responses and messages pushed by the server are printed by the reader thread of the
+     * connection.
+     *
+     * @param message is the text typed by the user.
+     * @throws ClientException if the server can't be reached.
+     */
+    protected void sendMessage(String message)
+    {
+        String line = username + SPACE_SEPARATOR + message;
+        for (int attempt = 1;; attempt++)
+        {
+            PrintWriter writer = null;
+            try
+            {
+                writer = connection();
+                writer.println(line);
+                if (!writer.checkError())
+                {
+                    return;
+                }
+                throw new IOException("Failed to send message to the server!");
+            }
+            catch (IOException e)
+            {
+                disconnect(writer);
+                reconnectAfter(e, attempt);
+            }
+        }
+    }
+
+
+    /**
+     * Uploads ("!upload target path") or downloads ("!download id path") a file. Files are transferred on their own connection to the
+     * file port of the {@link ChatServer}, the port of the chat + 1, uploaded files are announced to the target as chat messages with
+     * the id to download them.
+     *
+     * @param command is the command typed by the user.
+     */
+    private void transferFile(String command)
+    {
+        String[] parts = command.trim().split("\\s+", 3);
+        if (parts.length < 3)
+        {
+            System.out.println(TRANSFER_USAGE_MSG);
+            return;
+        }
+        try
+        {
+            if (parts[0].equalsIgnoreCase(UPLOAD_CMD))
+            {
+                String id = FileTransfer.upload(host, port + 1, username, parts[1], Paths.get(parts[2]));
+                System.out.println("Uploaded file " + id);
+            }
+            else
+            {
+                long size = FileTransfer.download(host, port + 1, parts[1], Paths.get(parts[2]));
+                System.out.println("Downloaded " + size + " bytes to " + parts[2]);
+            }
+        }
+        catch (IOException | InvalidPathException e)
+        {
+            LOGGER.log(Level.WARNING, "File transfer failed!", e);
+            System.out.println("File transfer failed: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Opens the session connection to the {@link ChatServer}, so messages pushed by the server are received before the first message is
+     * sent.
+     */
+    public void connect()
+    {
+        for (int attempt = 1;; attempt++)
+        {
+            try
+            {
+                connection();
+                return;
+            }
+            catch (IOException e)
+            {
+                reconnectAfter(e, attempt);
+            }
+        }
+    }
+
+
+    /**
+     * Closes the session connection to the {@link ChatServer}.
+     */
+    @Override
+    public synchronized void close()
+    {
+        closed = true;
+        disconnect(socket);
+    }
+
+
+    /**
+     * Gets the writer of the session connection. Connecting to the {@link ChatServer} if there is no open connection: opens a
+     * {@link Socket} at given or default host and port, creates {@link BufferedReader} and {@link PrintWriter} for communication
+     * between {@link ChatClient} and {@link ChatServer}, starts a thread reading from the connection and requests the messages after
+     * the last one seen to catch up with the messages sent while disconnected.
+     */
+    private synchronized PrintWriter connection() throws IOException
+    {
+        if (closed)
+        {
+            throw new ClientException("Client is closed!");
+        }
+        if (socket == null)
+        {
+            Socket newSocket = new Socket(InetAddress.getByName(host), port);
+            PrintWriter newOutput = new PrintWriter(newSocket.getOutputStream(), true);
+            InputStream stream = newSocket.getInputStream();
+            if (compression)
+            {
+                newOutput.println(username + SPACE_SEPARATOR + COMPRESS_CMD);
+                if (COMPRESS_CMD.equals(readLine(stream)))
+                {
+                    stream = new LineInflaterInputStream(stream);
+                }
+            }
+            BufferedReader input = new BufferedReader(new InputStreamReader(stream));
+            socket = newSocket;
+            output = newOutput;
+            Thread reader = new Thread(() -> read(newSocket, input), READER_THREAD_NAME + username);
+            reader.setDaemon(true);
+            reader.start();
+            output.println(username + SPACE_SEPARATOR + (lastSeenId == 0 ? UPDATE_CMD : UPDATE_SINCE_CMD + lastSeenId));
+        }
+        return output;
+    }
+
+
+    /**
+     * Reads the reply to the compression request byte by byte, so none of the following, maybe compressed, bytes is consumed with it.
+     */
+    private static String readLine(InputStream stream) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        int value;
+        while ((value = stream.read()) != '\n')
+        {
+            if (value < 0)
+            {
+                throw new IOException("Connection closed by the server!");
+            }
+            line.append((char)value);
+        }
+        return line.toString().trim();
+    }
+
+
+    private void read(Socket readSocket, BufferedReader input)
+    {
+        try
+        {
+            String line;
+            while ((line = input.readLine()) != null)
+            {
+                if (!line.isEmpty())
+                {
+                    received(line);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.FINE, "Connection to the server failed!", e);
+        }
+        disconnect(readSocket);
+        try
+        {
+            for (int attempt = 1; !closed; attempt++)
+            {
+                try
+                {
+                    connection();
+                    return;
+                }
+                catch (IOException e)
+                {
+                    reconnectAfter(e, attempt);
+                }
+            }
+        }
+        catch (ClientException e)
+        {
+            LOGGER.log(Level.WARNING, "Disconnected from the server!", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Handles one line received from the {@link ChatServer}: a pushed message, a page of history, the end-of-history marker or a reply.
+     * Called on the reader thread of the connection, prints everything but the markers. When the server has dropped pushed messages
+     * because the client did not keep up, they are requested from the history.
+     *
+     * @param line is the received line, never empty.
+     */
+    protected void received(String line)
+    {
+        if (line.equals(BEHIND_MSG))
+        {
+            catchUp();
+        }
+        else if (!line.equals(HISTORY_END))
+        {
+            printInput(line);
+        }
+    }
+
+
+    /**
+     * Requests the messages after the last one seen.
      */
-    private void sendMessage(String message)
+    protected void catchUp()
+    {
+        try
+        {
+            sendMessage(UPDATE_SINCE_CMD + lastSeenId);
+        }
+        catch (ClientException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to request missed messages!", e);
+        }
+    }
+
+
+    private void reconnectAfter(IOException e, int attempt)
+    {
+        if (attempt >= MAX_CONNECT_ATTEMPTS)
+        {
+            LOGGER.log(Level.SEVERE, "Failed to connect to the server on given host and port!", e);
+            throw new ClientException("Failed to connect to the server!", e);
+        }
+        LOGGER.log(Level.INFO, RECONNECT_MSG);
+        pause(RECONNECT_DELAY_MILLIS * attempt);
+    }
+
+
+    private synchronized void disconnect(PrintWriter brokenOutput)
+    {
+        if (brokenOutput != null && brokenOutput == output)
+        {
+            disconnect(socket);
+        }
+    }
+
+
+    private synchronized void disconnect(Socket brokenSocket)
     {
-        try (Socket socket = new Socket(InetAddress.getByName(host), port);
-                        BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                        PrintWriter output = new PrintWriter(socket.getOutputStream(), true);)
+        if (brokenSocket == null || brokenSocket != socket)
         {
-            output.println(username + SPACE_SEPARATOR + message);
-            printInput(input.readLine());
+            return;
+        }
+        try
+        {
+            socket.close();
         }
         catch (IOException e)
         {
-            LOGGER.log(Level.SEVERE, "Failed to start client on given host and port!", e);
-            throw new ClientException("Failed to start!");
+            LOGGER.log(Level.INFO, "Connection to the server is not closed!", e);
+        }
+        socket = null;
+        output = null;
+    }
+
+
+    private static void pause(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while reconnecting!", e);
         }
     }
 
@@ -106,11 +399,42 @@ public class ChatClient
 
     private void printInput(String line)
     {
-        System.out.println(CURSOR + " " + line.replaceAll(MESSAGE_SEPARATOR, LINE_SEPARATOR));
+        String[] entries = line.split(MESSAGE_SEPARATOR);
+        for (int i = 0; i < entries.length; i++)
+        {
+            entries[i] = trackId(entries[i]);
+        }
+        System.out.println(CURSOR + " " + String.join(LINE_SEPARATOR, entries));
         // new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
     }
 
 
+    /**
+     * Remembers the id of the received message as cursor for catching up after reconnect and strips it from the displayed text.
+     */
+    private String trackId(String entry)
+    {
+        int idEnd = entry.indexOf(SPACE_SEPARATOR, ID_PREFIX.length());
+        if (!entry.startsWith(ID_PREFIX) || idEnd < 0)
+        {
+            return entry;
+        }
+        try
+        {
+            int id = Integer.parseInt(entry.substring(ID_PREFIX.length(), idEnd));
+            if (id > lastSeenId)
+            {
+                lastSeenId = id;
+            }
+            return entry.substring(idEnd + 1);
+        }
+        catch (NumberFormatException e)
+        {
+            return entry;
+        }
+    }
+
+
     /**
      * Main point in {@link ChatClient}. Input arguments should be in the following order - host, port; or without any arguments.
      *
@@ -142,6 +466,7 @@ public class ChatClient
             username = scan.nextLine();
         }
         ChatClient chatClient = new ChatClient(username, host, port);
+        chatClient.connect();
         System.out.println(USER_CONNECTED_MSG);
         while (true)
         {
@@ -151,9 +476,36 @@ public class ChatClient
             {
                 break;
             }
+            String command = line.trim().toLowerCase();
+            if (command.startsWith(UPLOAD_CMD) || command.startsWith(DOWNLOAD_CMD))
+            {
+                chatClient.transferFile(line);
+                continue;
+            }
             chatClient.sendMessage(line);
-            chatClient.sendMessage(UPDATE_CMD);
         }
+        chatClient.close();
         scan.close();
     }
+
+
+    /**
+     * Inflates the lines pushed by the server. {@link InflaterInputStream} reports available bytes until the end of the stream, so a
+     * reader decoding its input would block for more data instead of returning the lines already received. Only what can be inflated
+     * without reading from the connection is reported here.
+     */
+    private static class LineInflaterInputStream extends InflaterInputStream
+    {
+        LineInflaterInputStream(InputStream input)
+        {
+            super(input, new Inflater(), INFLATE_BUFFER_SIZE);
+        }
+
+
+        @Override
+        public int available() throws IOException
+        {
+            return inf.needsInput() ? in.available() : super.available();
+        }
+    }
 }
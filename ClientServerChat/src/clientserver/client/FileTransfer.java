@@ -0,0 +1,156 @@
+/*
+ * FileTransfer.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.client;
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import clientserver.server.FileServer;
+
+
+/**
+ * Client side of the file transfers, see {@link FileServer} for the protocol. Every transfer uses its own connection and moves the
+ * content between the file and the socket with {@link FileChannel#transferTo} and {@link FileChannel#transferFrom}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class FileTransfer
+{
+    private static final int FRAME_SIZE = 256 * 1024;
+    private static final int MAX_LINE_LENGTH = 512;
+    private static final String OK = "OK ";
+
+
+    private FileTransfer()
+    {}
+
+
+    /**
+     * Uploads the file and announces it to the target.
+     *
+     * @param host of the file server.
+     * @param port of the file server.
+     * @param username of the sender.
+     * @param target is "*" for everyone, "@user" or "#room".
+     * @param path of the file.
+     * @return the id of the uploaded file.
+     * @throws IOException if the transfer fails or the server refuses the file.
+     */
+    public static String upload(String host, int port, String username, String target, Path path) throws IOException
+    {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+             SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port)))
+        {
+            long size = file.size();
+            writeFully(channel, ByteBuffer.wrap(("PUT " + username + " " + target + " " + path.getFileName() + " " + size + "\n")
+                .getBytes(StandardCharsets.UTF_8)));
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            long position = 0;
+            while (position < size)
+            {
+                int length = (int)Math.min(FRAME_SIZE, size - position);
+                header.clear();
+                header.putInt(length).flip();
+                writeFully(channel, header);
+                long end = position + length;
+                while (position < end)
+                {
+                    position += file.transferTo(position, end - position, channel);
+                }
+            }
+            header.clear();
+            header.putInt(0).flip();
+            writeFully(channel, header);
+            return readReply(channel);
+        }
+    }
+
+
+    /**
+     * Downloads the file into the given path, replacing its content.
+     *
+     * @param host of the file server.
+     * @param port of the file server.
+     * @param id of the file.
+     * @param path to write to.
+     * @return the number of downloaded bytes.
+     * @throws IOException if the transfer fails or the file does not exist.
+     */
+    public static long download(String host, int port, String id, Path path) throws IOException
+    {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port)))
+        {
+            writeFully(channel, ByteBuffer.wrap(("GET " + id + "\n").getBytes(StandardCharsets.UTF_8)));
+            long size = Long.parseLong(readReply(channel));
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                     StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                long position = 0;
+                while (position < size)
+                {
+                    long transferred = file.transferFrom(channel, position, size - position);
+                    if (transferred == 0)
+                    {
+                        throw new EOFException("Connection closed during download!");
+                    }
+                    position += transferred;
+                }
+                return size;
+            }
+        }
+    }
+
+
+    /**
+     * Reads the reply line byte by byte, so none of the following content is consumed with it.
+     *
+     * @return the reply without the "OK " prefix.
+     */
+    private static String readReply(SocketChannel channel) throws IOException
+    {
+        ByteBuffer line = ByteBuffer.allocate(MAX_LINE_LENGTH);
+        ByteBuffer next = ByteBuffer.allocate(1);
+        while (line.hasRemaining())
+        {
+            next.clear();
+            if (channel.read(next) < 0)
+            {
+                throw new EOFException("Connection closed by the server!");
+            }
+            if (next.get(0) == '\n')
+            {
+                line.flip();
+                String reply = StandardCharsets.UTF_8.decode(line).toString().trim();
+                if (!reply.startsWith(OK))
+                {
+                    throw new IOException(reply);
+                }
+                return reply.substring(OK.length());
+            }
+            line.put(next.get(0));
+        }
+        throw new IOException("Reply line is too long!");
+    }
+
+
+    private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Configuration.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.config;
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Holds the startup settings of the application. Values are read from the properties file given by the system property "chat.config"
+ * (chat.properties in the working directory by default), and every key can be overridden with a system property of the same name.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class Configuration
+{
+    private static final String CONFIG_FILE_PROPERTY = "chat.config";
+    private static final String DEFAULT_CONFIG_FILE = "chat.properties";
+    private static final String LOAD_CONFIG_MSG = "Loading configuration from: ";
+    private static final Logger LOGGER = Logger.getLogger(Configuration.class.getName());
+    private static Configuration configuration;
+    private final Properties properties;
+
+
+    private Configuration() throws ConfigurationException
+    {
+        properties = new Properties();
+        loadFile(System.getProperty(CONFIG_FILE_PROPERTY, DEFAULT_CONFIG_FILE));
+    }
+
+
+    /**
+     * Gets the only instance of {@link Configuration}.
+     *
+     * @return the configuration instance.
+     * @throws ConfigurationException if the configuration file can't be read.
+     */
+    public static synchronized Configuration getInstance() throws ConfigurationException
+    {
+        if (configuration == null)
+        {
+            configuration = new Configuration();
+        }
+        return configuration;
+    }
+
+
+    /**
+     * Gets the value of the given key.
+     *
+     * @param key of the setting.
+     * @param defaultValue returned when the setting is not present.
+     * @return the configured value or the default one.
+     */
+    public String getString(String key, String defaultValue)
+    {
+        String value = System.getProperty(key, properties.getProperty(key));
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+
+    public int getInt(String key, int defaultValue) throws ConfigurationException
+    {
+        String value = getString(key, null);
+        try
+        {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ConfigurationException("Setting " + key + " must be a number: " + value, e);
+        }
+    }
+
+
+    public long getLong(String key, long defaultValue) throws ConfigurationException
+    {
+        String value = getString(key, null);
+        try
+        {
+            return value == null ? defaultValue : Long.parseLong(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ConfigurationException("Setting " + key + " must be a number: " + value, e);
+        }
+    }
+
+
+    public boolean getBoolean(String key, boolean defaultValue)
+    {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+
+    public <E extends Enum<E>> E getEnum(String key, Class<E> type, E defaultValue) throws ConfigurationException
+    {
+        String value = getString(key, null);
+        try
+        {
+            return value == null ? defaultValue : Enum.valueOf(type, value.toUpperCase());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ConfigurationException("Unsupported value of setting " + key + ": " + value, e);
+        }
+    }
+
+
+    private void loadFile(String fileName) throws ConfigurationException
+    {
+        File file = new File(fileName);
+        if (!file.isFile())
+        {
+            return;
+        }
+        LOGGER.log(Level.INFO, LOAD_CONFIG_MSG + file.getAbsolutePath());
+        try (InputStream input = new FileInputStream(file))
+        {
+            properties.load(input);
+        }
+        catch (IOException e)
+        {
+            throw new ConfigurationException("Failed to read configuration file " + fileName, e);
+        }
+    }
+}
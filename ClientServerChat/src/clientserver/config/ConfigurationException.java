@@ -0,0 +1,29 @@
+/*
+ * ConfigurationException.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.config;
+
+
+/**
+ * Represents exception which occurs when the {@link Configuration} can't be read or contains invalid values.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+@SuppressWarnings("serial")
+public class ConfigurationException extends RuntimeException
+{
+    public ConfigurationException(String message)
+    {
+        super(message);
+    }
+
+
+    public ConfigurationException(String message, Throwable t)
+    {
+        super(message, t);
+    }
+}
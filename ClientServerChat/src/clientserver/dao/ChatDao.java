@@ -8,6 +8,8 @@
 package clientserver.dao;
 
 
+import java.util.Collection;
+
 import clientserver.entities.ChatEntity;
 
 
@@ -19,7 +21,7 @@ import clientserver.entities.ChatEntity;
 public interface ChatDao
 {
     /**
-     * Saves message in Database.
+     * Saves message in Database and sets the id generated for it.
      *
      * @param chat is given {@link ChatEntity} to save.
      * @throws DaoException in case of failure.
@@ -28,7 +30,17 @@ public interface ChatDao
 
 
     /**
-     * Delete message from Database.
+     * Saves all given messages in one transaction and sets the ids generated for them. Either all messages are saved or none.
+     *
+     * @param chats are given {@link ChatEntity}s to save.
+     * @throws DaoException in case of failure.
+     */
+    public void saveMsgs(Collection<ChatEntity> chats) throws DaoException;
+
+
+    /**
+     * Delete messages of the sender to the recipient of the given {@link ChatEntity} from Database, its messages to the room if the room
+     * is set, or its messages to everyone if neither is set.
      *
      * @param chat is given {@link ChatEntity}
      * @throws DaoException in case of failure.
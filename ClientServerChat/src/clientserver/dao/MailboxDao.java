@@ -0,0 +1,39 @@
+/*
+ * MailboxDao.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao;
+
+
+/**
+ * DAO layer for the mailboxes of the users. The mailbox of a user holds the messages of his history, see
+ * {@link UserDao#getHistorySince(String, int, int)}, which are newer than the last message he has acknowledged. Only the id of that
+ * message is stored, the messages themselves stay in the history.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public interface MailboxDao
+{
+    /**
+     * Gets the id of the last message acknowledged by the user.
+     *
+     * @param username of the user.
+     * @return the id, 0 if the user has not acknowledged any message yet.
+     * @throws DaoException in case of failure.
+     */
+    public int getAcknowledged(String username) throws DaoException;
+
+
+    /**
+     * Acknowledges all messages of the user up to the given one, which are then dropped from his mailbox. Does nothing if a newer
+     * message has been acknowledged already.
+     *
+     * @param username of the user.
+     * @param chatId is the id of the last received message.
+     * @throws DaoException in case of failure.
+     */
+    public void acknowledge(String username, int chatId) throws DaoException;
+}
@@ -0,0 +1,64 @@
+/*
+ * RoomDao.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao;
+
+
+import java.util.List;
+
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * DAO layer to manage the members of chat rooms and the history of a room. Messages to a room are saved by the {@link ChatDao} with
+ * the room set in the {@link ChatEntity}. A room exists as long as it has members.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public interface RoomDao
+{
+    /**
+     * Adds the user to the members of the room. Does nothing if the user is a member already.
+     *
+     * @param room is the name of the room.
+     * @param username of the user.
+     * @throws DaoException in case of failure.
+     */
+    public void joinRoom(String room, String username) throws DaoException;
+
+
+    /**
+     * Removes the user from the members of the room. Does nothing if the user is not a member.
+     *
+     * @param room is the name of the room.
+     * @param username of the user.
+     * @throws DaoException in case of failure.
+     */
+    public void leaveRoom(String room, String username) throws DaoException;
+
+
+    /**
+     * Gets the members of the room.
+     *
+     * @param room is the name of the room.
+     * @return the usernames of the members, empty if the room has no members.
+     * @throws DaoException in case of failure.
+     */
+    public List<String> getMembers(String room) throws DaoException;
+
+
+    /**
+     * Gets one page of the messages to the room which are newer than the given message.
+     *
+     * @param room is the name of the room.
+     * @param lastId is the id of the last message known to the client, 0 to start from the oldest message.
+     * @param limit is the maximum number of returned messages.
+     * @return the messages ordered by id.
+     * @throws DaoException in case of failure.
+     */
+    public List<ChatEntity> getRoomHistorySince(String room, int lastId, int limit) throws DaoException;
+}
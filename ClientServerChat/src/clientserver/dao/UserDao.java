@@ -69,18 +69,31 @@ public interface UserDao
      * Search for user by given username.
      *
      * @param username of type {@link String}
-     * @return true if user exist
+     * @return true if user exist, false otherwise
      * @throws DaoException in case of failure
      */
     public boolean userExists(String username) throws DaoException;
 
 
     /**
-     * Gets the messages which are addressed to the given recipient or are coming from the recipient.
+     * Gets the messages which are addressed to the given recipient or to everyone, or are coming from the recipient.
      *
      * @param recipient
      * @return
      * @throws DaoException in case of failure
      */
     public List<ChatEntity> getHistory(String recipient) throws DaoException;
+
+
+    /**
+     * Gets one page of the messages of the given recipient, like {@link #getHistory(String)}, which are newer than the given message.
+     * Used as a cursor by the clients to load only the messages they have not seen yet, and to load long history page by page.
+     *
+     * @param recipient
+     * @param lastId is the id of the last message known to the client, 0 to start from the oldest message.
+     * @param limit is the maximum number of returned messages.
+     * @return the messages ordered by id.
+     * @throws DaoException in case of failure
+     */
+    public List<ChatEntity> getHistorySince(String recipient, int lastId, int limit) throws DaoException;
 }
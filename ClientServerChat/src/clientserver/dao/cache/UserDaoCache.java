@@ -0,0 +1,108 @@
+/*
+ * UserDaoCache.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.cache;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.UserDao;
+import clientserver.entities.ChatEntity;
+import clientserver.entities.UserEntity;
+
+
+/**
+ * In-memory directory of the users in front of another {@link UserDao}. The usernames are loaded once when it is created and then
+ * updated after every successful change done through it, so {@link #userExists(String)} and {@link #getAllUsers()} are answered
+ * without the delegate. Changes done directly in the storage, bypassing this directory, are not seen until it is created again. The
+ * history is always read from the delegate.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class UserDaoCache implements UserDao
+{
+    private final UserDao delegate;
+    private final Set<String> usernames = ConcurrentHashMap.newKeySet();
+
+
+    /**
+     * Creates {@link UserDaoCache} and loads all users of the delegate.
+     *
+     * @param delegate which stores the users.
+     * @throws DaoException if the users can't be loaded.
+     */
+    public UserDaoCache(UserDao delegate) throws DaoException
+    {
+        this.delegate = delegate;
+        usernames.addAll(delegate.getAllUsers());
+    }
+
+
+    @Override
+    public void saveUser(UserEntity user) throws DaoException
+    {
+        delegate.saveUser(user);
+        usernames.add(user.getUsername());
+    }
+
+
+    @Override
+    public void deleteUser(String username) throws DaoException
+    {
+        delegate.deleteUser(username);
+        usernames.remove(username);
+    }
+
+
+    @Override
+    public void deleteAllUsers() throws DaoException
+    {
+        delegate.deleteAllUsers();
+        usernames.clear();
+    }
+
+
+    @Override
+    public List<String> getAllUsers() throws DaoException
+    {
+        return new ArrayList<String>(usernames);
+    }
+
+
+    @Override
+    public void renameUser(UserEntity user, String newUsername) throws DaoException
+    {
+        delegate.renameUser(user, newUsername);
+        usernames.remove(user.getUsername());
+        usernames.add(newUsername);
+    }
+
+
+    @Override
+    public boolean userExists(String username) throws DaoException
+    {
+        return username != null && usernames.contains(username);
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistory(String recipient) throws DaoException
+    {
+        return delegate.getHistory(recipient);
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistorySince(String recipient, int lastId, int limit) throws DaoException
+    {
+        return delegate.getHistorySince(recipient, lastId, limit);
+    }
+}
@@ -10,13 +10,16 @@ package clientserver.dao.db;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import clientserver.dao.ChatDao;
 import clientserver.dao.DaoException;
-import clientserver.database.Database;
+import clientserver.database.SqlContext;
 import clientserver.entities.ChatEntity;
 
 
@@ -28,8 +31,10 @@ import clientserver.entities.ChatEntity;
 public class ChatDaoDB implements ChatDao
 {
 
-    private static final String SAVE_MSG_SQL = "INSERT INTO chronology.chat (sender, recipient, message) VALUES( ?, ?, ?)";
+    private static final String SAVE_MSG_SQL = "INSERT INTO chronology.chat (sender, recipient, room, message) VALUES( ?, ?, ?, ?)";
     private static final String DELETE_MSG_SQL = "DELETE FROM chronology.chat WHERE sender=? AND recipient=?";
+    private static final String DELETE_BROADCAST_MSG_SQL = "DELETE FROM chronology.chat WHERE sender=? AND recipient IS NULL AND room IS NULL";
+    private static final String DELETE_ROOM_MSG_SQL = "DELETE FROM chronology.chat WHERE sender=? AND room=?";
     private static final Logger LOGGER = Logger.getLogger(ChatDaoDB.class.getName());
     private static ChatDaoDB chatDaoDB;
 
@@ -57,13 +62,21 @@ public class ChatDaoDB implements ChatDao
             throw new DaoException("Message is not properly defined!");
         }
 
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(SAVE_MSG_SQL);)
+        try (SqlContext context = SqlContext.open())
         {
+            PreparedStatement prStatement = context.prepare(SAVE_MSG_SQL, Statement.RETURN_GENERATED_KEYS);
             prStatement.setString(1, chat.getSender());
             prStatement.setString(2, chat.getRecipient());
-            prStatement.setString(3, chat.getMessage());
+            prStatement.setString(3, chat.getRoom());
+            prStatement.setString(4, chat.getMessage());
             prStatement.execute();
+            try (ResultSet generatedKeys = prStatement.getGeneratedKeys())
+            {
+                if (generatedKeys.next())
+                {
+                    chat.setId(generatedKeys.getInt(1));
+                }
+            }
         }
         catch (SQLException e)
         {
@@ -73,14 +86,94 @@ public class ChatDaoDB implements ChatDao
     }
 
 
+    @Override
+    public void saveMsgs(Collection<ChatEntity> chats) throws DaoException
+    {
+        if (chats == null)
+        {
+            LOGGER.log(Level.WARNING, "Chat messages are not properly defined!");
+            throw new DaoException("Messages are not properly defined!");
+        }
+        for (ChatEntity chat : chats)
+        {
+            if (chat == null || chat.getSender() == null)
+            {
+                LOGGER.log(Level.WARNING, "Chat message is not properly defined!");
+                throw new DaoException("Message is not properly defined!");
+            }
+        }
+        if (chats.isEmpty())
+        {
+            return;
+        }
+
+        try (SqlContext context = SqlContext.open())
+        {
+            Connection connection = context.getConnection();
+            PreparedStatement prStatement = context.prepare(SAVE_MSG_SQL, Statement.RETURN_GENERATED_KEYS);
+            connection.setAutoCommit(false);
+            try
+            {
+                for (ChatEntity chat : chats)
+                {
+                    prStatement.setString(1, chat.getSender());
+                    prStatement.setString(2, chat.getRecipient());
+                    prStatement.setString(3, chat.getRoom());
+                    prStatement.setString(4, chat.getMessage());
+                    prStatement.addBatch();
+                }
+                prStatement.executeBatch();
+                try (ResultSet generatedKeys = prStatement.getGeneratedKeys())
+                {
+                    for (ChatEntity chat : chats)
+                    {
+                        if (generatedKeys.next())
+                        {
+                            chat.setId(generatedKeys.getInt(1));
+                        }
+                    }
+                }
+                connection.commit();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
+            finally
+            {
+                connection.setAutoCommit(true);
+            }
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to save messages in Database!", e);
+            throw new DaoException("Failed to save messages!");
+        }
+    }
+
+
     @Override
     public void deleteMsg(ChatEntity chat) throws DaoException
     {
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(DELETE_MSG_SQL);)
+        try (SqlContext context = SqlContext.open())
         {
+            PreparedStatement prStatement;
+            if (chat.getRoom() != null)
+            {
+                prStatement = context.prepare(DELETE_ROOM_MSG_SQL);
+                prStatement.setString(2, chat.getRoom());
+            }
+            else if (chat.isBroadcast())
+            {
+                prStatement = context.prepare(DELETE_BROADCAST_MSG_SQL);
+            }
+            else
+            {
+                prStatement = context.prepare(DELETE_MSG_SQL);
+                prStatement.setString(2, chat.getRecipient());
+            }
             prStatement.setString(1, chat.getSender());
-            prStatement.setString(2, chat.getRecipient());
             prStatement.execute();
         }
         catch (SQLException e)
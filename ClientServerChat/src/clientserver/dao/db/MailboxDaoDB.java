@@ -0,0 +1,92 @@
+/*
+ * MailboxDaoDB.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.db;
+
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.MailboxDao;
+import clientserver.database.SqlContext;
+
+
+/**
+ * Database DAO layer for the mailboxes of the users. Every user has one row with the id of his last acknowledged message.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class MailboxDaoDB implements MailboxDao
+{
+    private static final String GET_ACKNOWLEDGED_SQL = "SELECT acknowledged_id FROM chronology.mailbox WHERE username=?";
+    private static final String ACKNOWLEDGE_SQL = "MERGE INTO chronology.mailbox (username, acknowledged_id) KEY(username) VALUES(?, GREATEST(?, COALESCE((SELECT acknowledged_id FROM chronology.mailbox WHERE username=?), 0)))";
+    private static final String ACKNOWLEDGED_ID_COLUMN = "ACKNOWLEDGED_ID";
+    private static final Logger LOGGER = Logger.getLogger(MailboxDaoDB.class.getName());
+    private static MailboxDaoDB mailboxDaoDB;
+
+
+    private MailboxDaoDB()
+    {}
+
+
+    public static synchronized MailboxDaoDB getInstance()
+    {
+        if (mailboxDaoDB == null)
+        {
+            mailboxDaoDB = new MailboxDaoDB();
+        }
+        return mailboxDaoDB;
+    }
+
+
+    @Override
+    public int getAcknowledged(String username) throws DaoException
+    {
+        try (SqlContext context = SqlContext.open())
+        {
+            PreparedStatement prStatement = context.prepare(GET_ACKNOWLEDGED_SQL);
+            prStatement.setString(1, username);
+            try (ResultSet resultSet = prStatement.executeQuery())
+            {
+                return resultSet.next() ? resultSet.getInt(ACKNOWLEDGED_ID_COLUMN) : 0;
+            }
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to load mailbox from Database!", e);
+            throw new DaoException("Failed to load mailbox!");
+        }
+    }
+
+
+    @Override
+    public void acknowledge(String username, int chatId) throws DaoException
+    {
+        if (username == null)
+        {
+            LOGGER.log(Level.WARNING, "Username is not specified!");
+            throw new DaoException("Username is not specified!");
+        }
+        try (SqlContext context = SqlContext.open())
+        {
+            PreparedStatement prStatement = context.prepare(ACKNOWLEDGE_SQL);
+            prStatement.setString(1, username);
+            prStatement.setInt(2, chatId);
+            prStatement.setString(3, username);
+            prStatement.execute();
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to save acknowledgement in Database!", e);
+            throw new DaoException("Failed to acknowledge messages!");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * RoomDaoDB.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.db;
+
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.RoomDao;
+import clientserver.database.SqlContext;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Database DAO layer for the members and the history of chat rooms.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class RoomDaoDB implements RoomDao
+{
+    private static final String JOIN_ROOM_SQL = "MERGE INTO chronology.room_members (room, username) KEY(room, username) VALUES(?,?)";
+    private static final String LEAVE_ROOM_SQL = "DELETE FROM chronology.room_members WHERE room=? AND username=?";
+    private static final String GET_MEMBERS_SQL = "SELECT username FROM chronology.room_members WHERE room=?";
+    private static final String GET_ROOM_HISTORY_SQL = "SELECT chat_id,sender,message,room FROM chronology.chat USE INDEX (chat_room_idx) WHERE room=? AND chat_id>? ORDER BY chat_id LIMIT ?";
+    private static final String CHAT_ID_COLUMN = "CHAT_ID";
+    private static final String SENDER_COLUMN = "SENDER";
+    private static final String MESSAGE_COLUMN = "MESSAGE";
+    private static final String ROOM_COLUMN = "ROOM";
+    private static final String USERNAME_COLUMN = "USERNAME";
+    private static final Logger LOGGER = Logger.getLogger(RoomDaoDB.class.getName());
+    private static RoomDaoDB roomDaoDB;
+
+
+    private RoomDaoDB()
+    {}
+
+
+    public static synchronized RoomDaoDB getInstance()
+    {
+        if (roomDaoDB == null)
+        {
+            roomDaoDB = new RoomDaoDB();
+        }
+        return roomDaoDB;
+    }
+
+
+    @Override
+    public void joinRoom(String room, String username) throws DaoException
+    {
+        validate(room, username);
+        try (SqlContext context = SqlContext.open())
+        {
+            PreparedStatement prStatement = context.prepare(JOIN_ROOM_SQL);
+            prStatement.setString(1, room);
+            prStatement.setString(2, username);
+            prStatement.execute();
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to add member of room in Database!", e);
+            throw new DaoException("Failed to join room!");
+        }
+    }
+
+
+    @Override
+    public void leaveRoom(String room, String username) throws DaoException
+    {
+        validate(room, username);
+        try (SqlContext context = SqlContext.open())
+        {
+            PreparedStatement prStatement = context.prepare(LEAVE_ROOM_SQL);
+            prStatement.setString(1, room);
+            prStatement.setString(2, username);
+            prStatement.execute();
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to remove member of room from Database!", e);
+            throw new DaoException("Failed to leave room!");
+        }
+    }
+
+
+    @Override
+    public List<String> getMembers(String room) throws DaoException
+    {
+        List<String> members = new ArrayList<String>();
+        try (SqlContext context = SqlContext.open())
+        {
+            PreparedStatement prStatement = context.prepare(GET_MEMBERS_SQL);
+            prStatement.setString(1, room);
+            try (ResultSet resultSet = prStatement.executeQuery())
+            {
+                while (resultSet.next())
+                {
+                    members.add(resultSet.getString(USERNAME_COLUMN));
+                }
+            }
+            return members;
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to load members of room from Database!", e);
+            throw new DaoException("Failed to load members of room!");
+        }
+    }
+
+
+    @Override
+    public List<ChatEntity> getRoomHistorySince(String room, int lastId, int limit) throws DaoException
+    {
+        List<ChatEntity> chats = new ArrayList<ChatEntity>();
+        try (SqlContext context = SqlContext.open())
+        {
+            PreparedStatement prStatement = context.prepare(GET_ROOM_HISTORY_SQL);
+            prStatement.setString(1, room);
+            prStatement.setInt(2, lastId);
+            prStatement.setInt(3, limit);
+            try (ResultSet resultSet = prStatement.executeQuery())
+            {
+                while (resultSet.next())
+                {
+                    ChatEntity chatEntity = new ChatEntity();
+                    chatEntity.setId(resultSet.getInt(CHAT_ID_COLUMN));
+                    chatEntity.setSender(resultSet.getString(SENDER_COLUMN));
+                    chatEntity.setMessage(resultSet.getString(MESSAGE_COLUMN));
+                    chatEntity.setRoom(resultSet.getString(ROOM_COLUMN));
+                    chats.add(chatEntity);
+                }
+            }
+            return chats;
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to load history of room!", e);
+            throw new DaoException("Failed to load required history!");
+        }
+    }
+
+
+    private void validate(String room, String username) throws DaoException
+    {
+        if (room == null || username == null)
+        {
+            LOGGER.log(Level.WARNING, "Room or username are not specified!");
+            throw new DaoException("Room or username are not specified!");
+        }
+    }
+}
@@ -8,7 +8,6 @@
 package clientserver.dao.db;
 
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -20,7 +19,7 @@ import java.util.logging.Logger;
 
 import clientserver.dao.DaoException;
 import clientserver.dao.UserDao;
-import clientserver.database.Database;
+import clientserver.database.SqlContext;
 import clientserver.entities.ChatEntity;
 import clientserver.entities.UserEntity;
 
@@ -39,7 +38,12 @@ public class UserDaoDB implements UserDao
     private static final String SHOW_ALL_USERS_SQL = "SELECT username FROM chronology.users";
     private static final String RENAME_USER_SQL = "UPDATE chronology.users SET username=? WHERE username=?";
     private static final String FIND_USER_SQL = "SELECT username FROM chronology.users WHERE username=?";
-    private static final String GET_HISTORY_SQL = "SELECT sender,message,recipient FROM chronology.chat WHERE RECIPIENT=? OR SENDER=?";
+    private static final String GET_HISTORY_SQL = "SELECT chat_id,sender,message,recipient FROM ("
+                                                  + "(SELECT chat_id,sender,message,recipient FROM chronology.chat USE INDEX (chat_recipient_idx) WHERE recipient=? AND room IS NULL AND chat_id>? ORDER BY chat_id LIMIT ?)"
+                                                  + " UNION (SELECT chat_id,sender,message,recipient FROM chronology.chat USE INDEX (chat_sender_idx) WHERE sender=? AND room IS NULL AND chat_id>? ORDER BY chat_id LIMIT ?)"
+                                                  + " UNION (SELECT chat_id,sender,message,recipient FROM chronology.chat USE INDEX (chat_recipient_idx) WHERE recipient IS NULL AND room IS NULL AND chat_id>? ORDER BY chat_id LIMIT ?)"
+                                                  + ") ORDER BY chat_id LIMIT ?";
+    private static final String CHAT_ID_COLUMN = "CHAT_ID";
     private static final String SENDER_COLUMN = "SENDER";
     private static final String MESSAGE_COLUMN = "MESSAGE";
     private static final String RECIPIENT_COLUMN = "RECIPIENT";
@@ -70,9 +74,9 @@ public class UserDaoDB implements UserDao
             LOGGER.log(Level.WARNING, "User or username are not specified!");
             throw new DaoException("Username is not specified!");
         }
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(SAVE_USER_SQL);)
+        try (SqlContext context = SqlContext.open())
         {
+            PreparedStatement prStatement = context.prepare(SAVE_USER_SQL);
             prStatement.setString(1, user.getUsername());
             prStatement.setString(2, user.getStatus().toString());
             prStatement.execute();
@@ -93,9 +97,9 @@ public class UserDaoDB implements UserDao
             LOGGER.log(Level.WARNING, "User or username are not properly defined!");
             throw new DaoException("Username is not specified!");
         }
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(DELETE_USER_SQL);)
+        try (SqlContext context = SqlContext.open())
         {
+            PreparedStatement prStatement = context.prepare(DELETE_USER_SQL);
             prStatement.setString(1, username);
             prStatement.execute();
         }
@@ -110,9 +114,9 @@ public class UserDaoDB implements UserDao
     @Override
     public void deleteAllUsers() throws DaoException
     {
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(DELETE_ALL_USERS_SQL))
+        try (SqlContext context = SqlContext.open())
         {
+            PreparedStatement prStatement = context.prepare(DELETE_ALL_USERS_SQL);
             prStatement.execute();
         }
         catch (SQLException e)
@@ -126,12 +130,10 @@ public class UserDaoDB implements UserDao
     @Override
     public List<String> getAllUsers() throws DaoException
     {
-        ResultSet resultSet = null;
         List<String> usernames = new ArrayList<String>();
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(SHOW_ALL_USERS_SQL))
+        try (SqlContext context = SqlContext.open();
+                        ResultSet resultSet = context.prepare(SHOW_ALL_USERS_SQL).executeQuery())
         {
-            resultSet = prStatement.executeQuery();
             while (resultSet.next())
             {
                 usernames.add(resultSet.getString(USERNAME_COLUMN));
@@ -159,11 +161,11 @@ public class UserDaoDB implements UserDao
             LOGGER.log(Level.WARNING, "New username is not provided!");
             throw new DaoException("New username is not provided!");
         }
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(RENAME_USER_SQL))
+        try (SqlContext context = SqlContext.open())
         {
-            prStatement.setString(1, user.getUsername());
-            prStatement.setString(2, newUsername);
+            PreparedStatement prStatement = context.prepare(RENAME_USER_SQL);
+            prStatement.setString(1, newUsername);
+            prStatement.setString(2, user.getUsername());
             prStatement.execute();
         }
         catch (SQLException e)
@@ -183,13 +185,12 @@ public class UserDaoDB implements UserDao
             return false;
         }
         ResultSet resultSet = null;
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(FIND_USER_SQL))
+        try (SqlContext context = SqlContext.open())
         {
+            PreparedStatement prStatement = context.prepare(FIND_USER_SQL);
             prStatement.setString(1, username);
             resultSet = prStatement.executeQuery();
-            resultSet.next();
-            return username.equals(resultSet.getString(USERNAME_COLUMN));
+            return resultSet.next() && username.equals(resultSet.getString(USERNAME_COLUMN));
         }
         catch (SQLException e)
         {
@@ -215,6 +216,13 @@ public class UserDaoDB implements UserDao
 
     @Override
     public List<ChatEntity> getHistory(String recipient) throws DaoException
+    {
+        return getHistorySince(recipient, 0, Integer.MAX_VALUE);
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistorySince(String recipient, int lastId, int limit) throws DaoException
     {
         if (recipient == null)
         {
@@ -223,15 +231,23 @@ public class UserDaoDB implements UserDao
         }
         List<ChatEntity> chats = new ArrayList<ChatEntity>();
         ResultSet resultSet = null;
-        try (Connection connection = Database.getInstance().getConnection();
-                        PreparedStatement prStatement = connection.prepareStatement(GET_HISTORY_SQL);)
+        try (SqlContext context = SqlContext.open())
         {
+            PreparedStatement prStatement = context.prepare(GET_HISTORY_SQL);
             prStatement.setString(1, recipient);
-            prStatement.setString(2, recipient);
+            prStatement.setInt(2, lastId);
+            prStatement.setInt(3, limit);
+            prStatement.setString(4, recipient);
+            prStatement.setInt(5, lastId);
+            prStatement.setInt(6, limit);
+            prStatement.setInt(7, lastId);
+            prStatement.setInt(8, limit);
+            prStatement.setInt(9, limit);
             resultSet = prStatement.executeQuery();
             while (resultSet.next())
             {
                 ChatEntity chatEntity = new ChatEntity();
+                chatEntity.setId(resultSet.getInt(CHAT_ID_COLUMN));
                 chatEntity.setSender(resultSet.getString(SENDER_COLUMN));
                 chatEntity.setMessage(resultSet.getString(MESSAGE_COLUMN));
                 chatEntity.setRecipient(resultSet.getString(RECIPIENT_COLUMN));
@@ -0,0 +1,91 @@
+/*
+ * ChatDaoLog.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.log;
+
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.ChatDao;
+import clientserver.dao.DaoException;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Message log DAO layer for {@link ChatEntity}, see {@link LogStore}. Saving a message appends one record to the log.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class ChatDaoLog implements ChatDao
+{
+    private static final Logger LOGGER = Logger.getLogger(ChatDaoLog.class.getName());
+    private static ChatDaoLog chatDaoLog;
+
+
+    private ChatDaoLog()
+    {}
+
+
+    public static synchronized ChatDaoLog getInstance()
+    {
+        if (chatDaoLog == null)
+        {
+            chatDaoLog = new ChatDaoLog();
+        }
+        return chatDaoLog;
+    }
+
+
+    @Override
+    public void saveMsg(ChatEntity chat) throws DaoException
+    {
+        validate(chat);
+        LogStore.getInstance().saveMessages(Collections.singletonList(chat));
+    }
+
+
+    @Override
+    public void saveMsgs(Collection<ChatEntity> chats) throws DaoException
+    {
+        if (chats == null)
+        {
+            LOGGER.log(Level.WARNING, "Chat messages are not properly defined!");
+            throw new DaoException("Messages are not properly defined!");
+        }
+        for (ChatEntity chat : chats)
+        {
+            validate(chat);
+        }
+        LogStore.getInstance().saveMessages(chats);
+    }
+
+
+    @Override
+    public void deleteMsg(ChatEntity chat) throws DaoException
+    {
+        validate(chat);
+        if (chat.getRoom() != null)
+        {
+            LogStore.getInstance().deleteRoomMessages(chat.getSender(), chat.getRoom());
+            return;
+        }
+        LogStore.getInstance().deleteMessages(chat.getSender(), chat.getRecipient());
+    }
+
+
+    private void validate(ChatEntity chat) throws DaoException
+    {
+        if (chat == null || chat.getSender() == null)
+        {
+            LOGGER.log(Level.WARNING, "Chat message is not properly defined!");
+            throw new DaoException("Message is not properly defined!");
+        }
+    }
+}
@@ -0,0 +1,919 @@
+/*
+ * LogStore.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.log;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.config.Configuration;
+import clientserver.dao.DaoException;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Users, rooms, mailboxes and messages stored in an append-only log of memory-mapped {@link Segment} files, shared by
+ * {@link UserDaoLog}, {@link ChatDaoLog}, {@link RoomDaoLog} and {@link MailboxDaoLog}. Every change is appended as one record, a new
+ * segment is started when the current one is full. The users, the members of the rooms, the acknowledged ids and the offsets of the
+ * messages of every user, of every room and of the messages to everyone are kept in memory, so history is read straight from the mapped
+ * segments without searching. When the store is opened, the segments are replayed in order to rebuild this state, and the written part
+ * of the last segment ends at its last valid record, a partially written one is discarded.
+ * <p>
+ * Settings: "chat.storage.log.dir" (directory of the segments, ~/chatlog by default) and "chat.storage.log.segmentMegabytes" (size of
+ * one segment). The segments are written to disk by the operating system, and forced when a segment is full and on shutdown. A crash of
+ * the server keeps all saved messages, a crash of the machine may lose the most recent ones.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class LogStore
+{
+    private static final String DIR_PROPERTY = "chat.storage.log.dir";
+    private static final String SEGMENT_SIZE_PROPERTY = "chat.storage.log.segmentMegabytes";
+    private static final String DEFAULT_DIR = "chatlog";
+    private static final int DEFAULT_SEGMENT_MEGABYTES = 64;
+    private static final String SEGMENT_FILE_FORMAT = "chat-%010d.log";
+    private static final String SEGMENT_FILE_GLOB = "chat-*.log";
+    private static final String OPEN_LOG_MSG = "Opening message log at %s: %d segments, %d users, last message id %d";
+    private static final byte MESSAGE = 1;
+    private static final byte DELETE_MESSAGES = 2;
+    private static final byte SAVE_USER = 3;
+    private static final byte DELETE_USER = 4;
+    private static final byte RENAME_USER = 5;
+    private static final byte DELETE_ALL_USERS = 6;
+    private static final byte ROOM_MESSAGE = 7;
+    private static final byte DELETE_ROOM_MESSAGES = 8;
+    private static final byte JOIN_ROOM = 9;
+    private static final byte LEAVE_ROOM = 10;
+    private static final byte ACKNOWLEDGE = 11;
+    private static final int MAX_STRING_BYTES = Short.MAX_VALUE;
+    private static final int MAX_RECORD_SIZE = 1 + Integer.BYTES + 3 * (Short.BYTES + MAX_STRING_BYTES);
+    private static final int NULL_STRING = -1;
+    private static final Logger LOGGER = Logger.getLogger(LogStore.class.getName());
+    private static LogStore logStore;
+    private final Path dir;
+    private final int segmentSize;
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private final Set<String> users = new LinkedHashSet<String>();
+    private final Map<String, OffsetIndex> userIndexes = new HashMap<String, OffsetIndex>();
+    private final Map<String, OffsetIndex> roomIndexes = new HashMap<String, OffsetIndex>();
+    private final Map<String, Set<String>> roomMembers = new HashMap<String, Set<String>>();
+    private final Map<String, Integer> acknowledged = new HashMap<String, Integer>();
+    private final OffsetIndex broadcastIndex = new OffsetIndex();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private int lastId;
+
+
+    private LogStore() throws DaoException
+    {
+        Configuration configuration = Configuration.getInstance();
+        dir = Paths.get(configuration.getString(DIR_PROPERTY, Paths.get(System.getProperty("user.home"), DEFAULT_DIR).toString()));
+        segmentSize = configuration.getInt(SEGMENT_SIZE_PROPERTY, DEFAULT_SEGMENT_MEGABYTES) * 1024 * 1024;
+        if (segmentSize <= MAX_RECORD_SIZE + Segment.HEADER_SIZE)
+        {
+            throw new DaoException("Segment size of the message log is too small!");
+        }
+        try
+        {
+            Files.createDirectories(dir);
+            replay();
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.SEVERE, "Failed to open message log!", e);
+            throw new DaoException("Failed to open message log!", e);
+        }
+        LOGGER.log(Level.INFO, String.format(OPEN_LOG_MSG, dir, segments.size(), users.size(), lastId));
+    }
+
+
+    /**
+     * Gets the only instance of {@link LogStore}, opens the log on first call.
+     *
+     * @return the store.
+     * @throws DaoException if the log can't be opened.
+     */
+    static synchronized LogStore getInstance() throws DaoException
+    {
+        if (logStore == null)
+        {
+            logStore = new LogStore();
+        }
+        return logStore;
+    }
+
+
+    /**
+     * Writes all segments to disk if the log has been opened. Called on graceful shutdown of the server, after the pending messages have
+     * been saved.
+     */
+    public static synchronized void shutdown()
+    {
+        if (logStore == null)
+        {
+            return;
+        }
+        logStore.lock.writeLock().lock();
+        try
+        {
+            for (Segment segment : logStore.segments)
+            {
+                segment.force();
+            }
+        }
+        finally
+        {
+            logStore.lock.writeLock().unlock();
+        }
+    }
+
+
+    Set<String> getUsers()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return new LinkedHashSet<String>(users);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    boolean userExists(String username)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return users.contains(username);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends a user.
+     *
+     * @param username of the new user.
+     * @throws DaoException if the user exists already or the record can't be written.
+     */
+    void saveUser(String username) throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (users.contains(username))
+            {
+                throw new DaoException("User already exists: " + username);
+            }
+            record.clear();
+            record.put(SAVE_USER);
+            putString(username);
+            append();
+            users.add(username);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    void deleteUser(String username) throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            record.clear();
+            record.put(DELETE_USER);
+            putString(username);
+            append();
+            users.remove(username);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    void deleteAllUsers() throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            record.clear();
+            record.put(DELETE_ALL_USERS);
+            append();
+            users.clear();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends a rename of the user. Nothing is written if the user does not exist.
+     *
+     * @param username of the existing user.
+     * @param newUsername to set.
+     * @throws DaoException if the new name is used already or the record can't be written.
+     */
+    void renameUser(String username, String newUsername) throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (users.contains(newUsername))
+            {
+                throw new DaoException("User already exists: " + newUsername);
+            }
+            if (!users.contains(username))
+            {
+                return;
+            }
+            record.clear();
+            record.put(RENAME_USER);
+            putString(username);
+            putString(newUsername);
+            append();
+            users.remove(username);
+            users.add(newUsername);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends the messages and sets the ids generated for them. Either all messages are saved or none: the messages are indexed only
+     * when all records have been written, and if a record can't be written the records of the batch are cleared from the log again.
+     *
+     * @param chats to append.
+     * @throws DaoException if a message is too long or a record can't be written, in both cases no message is saved.
+     */
+    void saveMessages(Collection<ChatEntity> chats) throws DaoException
+    {
+        for (ChatEntity chat : chats)
+        {
+            checkLength(chat.getSender());
+            checkLength(chat.getRecipient());
+            checkLength(chat.getRoom());
+            checkLength(chat.getMessage());
+        }
+        lock.writeLock().lock();
+        try
+        {
+            int firstSegment = segments.size() - 1;
+            int firstOffset = segments.get(firstSegment).getPosition();
+            long[] positions = new long[chats.size()];
+            int written = 0;
+            try
+            {
+                for (ChatEntity chat : chats)
+                {
+                    record.clear();
+                    record.put(chat.getRoom() != null ? ROOM_MESSAGE : MESSAGE);
+                    record.putInt(lastId + written + 1);
+                    putString(chat.getSender());
+                    putString(chat.getRoom() != null ? chat.getRoom() : chat.getRecipient());
+                    putString(chat.getMessage());
+                    positions[written++] = append();
+                }
+            }
+            catch (DaoException e)
+            {
+                truncate(firstSegment, firstOffset);
+                throw e;
+            }
+            int i = 0;
+            for (ChatEntity chat : chats)
+            {
+                chat.setId(++lastId);
+                if (chat.getRoom() != null)
+                {
+                    roomIndex(chat.getRoom()).add(lastId, positions[i]);
+                }
+                else
+                {
+                    index(lastId, chat.getSender(), chat.getRecipient(), positions[i]);
+                }
+                i++;
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends a deletion of the messages of the sender to the recipient, or of the messages of the sender to everyone if the recipient
+     * is not set.
+     *
+     * @param sender of the messages.
+     * @param recipient of the messages, null for messages to everyone.
+     * @throws DaoException if the record can't be written.
+     */
+    void deleteMessages(String sender, String recipient) throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            record.clear();
+            record.put(DELETE_MESSAGES);
+            putString(sender);
+            putString(recipient);
+            append();
+            unindex(sender, recipient);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends a deletion of the messages of the sender to the room.
+     *
+     * @param sender of the messages.
+     * @param room of the messages.
+     * @throws DaoException if the record can't be written.
+     */
+    void deleteRoomMessages(String sender, String room) throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            record.clear();
+            record.put(DELETE_ROOM_MESSAGES);
+            putString(sender);
+            putString(room);
+            append();
+            unindexRoom(sender, room);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends a new member of the room. Nothing is written if the user is a member already.
+     *
+     * @param room is the name of the room.
+     * @param username of the user.
+     * @throws DaoException if the record can't be written.
+     */
+    void joinRoom(String room, String username) throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (members(room).contains(username))
+            {
+                return;
+            }
+            record.clear();
+            record.put(JOIN_ROOM);
+            putString(room);
+            putString(username);
+            append();
+            members(room).add(username);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends the removal of a member of the room. Nothing is written if the user is not a member.
+     *
+     * @param room is the name of the room.
+     * @param username of the user.
+     * @throws DaoException if the record can't be written.
+     */
+    void leaveRoom(String room, String username) throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (!members(room).contains(username))
+            {
+                return;
+            }
+            record.clear();
+            record.put(LEAVE_ROOM);
+            putString(room);
+            putString(username);
+            append();
+            members(room).remove(username);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    List<String> getMembers(String room)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Set<String> members = roomMembers.get(room);
+            return members == null ? new ArrayList<String>() : new ArrayList<String>(members);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    int getAcknowledged(String username)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return acknowledged.getOrDefault(username, 0);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends an acknowledgement of the messages of the user. Nothing is written if a newer message has been acknowledged already.
+     *
+     * @param username of the user.
+     * @param chatId is the id of the last received message.
+     * @throws DaoException if the record can't be written.
+     */
+    void acknowledge(String username, int chatId) throws DaoException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (acknowledged.getOrDefault(username, 0) >= chatId)
+            {
+                return;
+            }
+            record.clear();
+            record.put(ACKNOWLEDGE);
+            putString(username);
+            record.putInt(chatId);
+            append();
+            acknowledged.put(username, chatId);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Reads the messages to the room which are newer than the given one.
+     *
+     * @param room is the name of the room.
+     * @param afterId is the id of the last known message.
+     * @param limit is the maximum number of returned messages.
+     * @return the messages ordered by id.
+     */
+    List<ChatEntity> getRoomHistorySince(String room, int afterId, int limit)
+    {
+        List<ChatEntity> chats = new ArrayList<ChatEntity>();
+        lock.readLock().lock();
+        try
+        {
+            OffsetIndex index = roomIndexes.get(room);
+            if (index == null)
+            {
+                return chats;
+            }
+            for (int i = index.firstAfter(afterId); i < index.size && chats.size() < limit; i++)
+            {
+                chats.add(readMessage(index.positions[i]));
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return chats;
+    }
+
+
+    /**
+     * Reads the messages of the user and the messages to everyone which are newer than the given one.
+     *
+     * @param username of the user.
+     * @param afterId is the id of the last known message.
+     * @param limit is the maximum number of returned messages.
+     * @return the messages ordered by id.
+     */
+    List<ChatEntity> getHistorySince(String username, int afterId, int limit)
+    {
+        List<ChatEntity> chats = new ArrayList<ChatEntity>();
+        lock.readLock().lock();
+        try
+        {
+            OffsetIndex own = userIndexes.get(username);
+            if (own == null)
+            {
+                own = new OffsetIndex();
+            }
+            int i = own.firstAfter(afterId);
+            int j = broadcastIndex.firstAfter(afterId);
+            while (chats.size() < limit && (i < own.size || j < broadcastIndex.size))
+            {
+                if (j >= broadcastIndex.size || i < own.size && own.ids[i] < broadcastIndex.ids[j])
+                {
+                    chats.add(readMessage(own.positions[i++]));
+                }
+                else
+                {
+                    chats.add(readMessage(broadcastIndex.positions[j++]));
+                }
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return chats;
+    }
+
+
+    private void replay() throws IOException
+    {
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_FILE_GLOB))
+        {
+            for (Path file : stream)
+            {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        for (Path file : files)
+        {
+            Segment segment = Segment.open(segments.size(), file, segmentSize);
+            segments.add(segment);
+            int offset = 0;
+            ByteBuffer body;
+            while ((body = segment.read(offset)) != null)
+            {
+                int next = offset + Segment.HEADER_SIZE + body.remaining();
+                apply(body, position(segment.getNumber(), offset));
+                offset = next;
+            }
+            if (!segment.isEnd(offset))
+            {
+                LOGGER.log(Level.WARNING, "Invalid record in message log " + file + " at offset " + offset + ", it is discarded");
+            }
+            segment.recover(offset);
+        }
+        if (segments.isEmpty())
+        {
+            startSegment();
+        }
+    }
+
+
+    /**
+     * Applies one record to the state in memory while the log is replayed.
+     */
+    private void apply(ByteBuffer body, long position)
+    {
+        byte type = body.get();
+        switch (type)
+        {
+            case MESSAGE:
+                int id = body.getInt();
+                lastId = Math.max(lastId, id);
+                index(id, getString(body), getString(body), position);
+                break;
+            case ROOM_MESSAGE:
+                int roomMessageId = body.getInt();
+                lastId = Math.max(lastId, roomMessageId);
+                getString(body);
+                roomIndex(getString(body)).add(roomMessageId, position);
+                break;
+            case DELETE_ROOM_MESSAGES:
+                unindexRoom(getString(body), getString(body));
+                break;
+            case JOIN_ROOM:
+                members(getString(body)).add(getString(body));
+                break;
+            case LEAVE_ROOM:
+                members(getString(body)).remove(getString(body));
+                break;
+            case ACKNOWLEDGE:
+                acknowledged.merge(getString(body), body.getInt(), Math::max);
+                break;
+            case DELETE_MESSAGES:
+                unindex(getString(body), getString(body));
+                break;
+            case SAVE_USER:
+                users.add(getString(body));
+                break;
+            case DELETE_USER:
+                users.remove(getString(body));
+                break;
+            case RENAME_USER:
+                users.remove(getString(body));
+                users.add(getString(body));
+                break;
+            case DELETE_ALL_USERS:
+                users.clear();
+                break;
+            default:
+                LOGGER.log(Level.WARNING, "Unknown record in message log: " + type);
+                break;
+        }
+    }
+
+
+    private void index(int id, String sender, String recipient, long position)
+    {
+        if (recipient == null)
+        {
+            broadcastIndex.add(id, position);
+            return;
+        }
+        userIndex(sender).add(id, position);
+        if (!recipient.equals(sender))
+        {
+            userIndex(recipient).add(id, position);
+        }
+    }
+
+
+    private void unindex(String sender, String recipient)
+    {
+        if (recipient == null)
+        {
+            broadcastIndex.removeIf(chat -> chat.isBroadcast() && sender.equals(chat.getSender()));
+            return;
+        }
+        for (String username : Arrays.asList(sender, recipient))
+        {
+            OffsetIndex index = userIndexes.get(username);
+            if (index != null)
+            {
+                index.removeIf(chat -> sender.equals(chat.getSender()) && recipient.equals(chat.getRecipient()));
+            }
+        }
+    }
+
+
+    private void unindexRoom(String sender, String room)
+    {
+        OffsetIndex index = roomIndexes.get(room);
+        if (index != null)
+        {
+            index.removeIf(chat -> sender.equals(chat.getSender()));
+        }
+    }
+
+
+    private OffsetIndex userIndex(String username)
+    {
+        return userIndexes.computeIfAbsent(username, name -> new OffsetIndex());
+    }
+
+
+    private OffsetIndex roomIndex(String room)
+    {
+        return roomIndexes.computeIfAbsent(room, name -> new OffsetIndex());
+    }
+
+
+    private Set<String> members(String room)
+    {
+        return roomMembers.computeIfAbsent(room, name -> new LinkedHashSet<String>());
+    }
+
+
+    /**
+     * Appends the prepared record to the current segment, starts a new segment if it does not fit.
+     *
+     * @return the position of the record.
+     */
+    private long append() throws DaoException
+    {
+        record.flip();
+        try
+        {
+            Segment segment = segments.get(segments.size() - 1);
+            if (!segment.fits(record.remaining()))
+            {
+                segment.force();
+                segment = startSegment();
+            }
+            return position(segment.getNumber(), segment.append(record));
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.SEVERE, "Failed to start new segment of message log!", e);
+            throw new DaoException("Failed to write message log!", e);
+        }
+    }
+
+
+    /**
+     * Clears everything written after the given offset of the given segment, so the records of a failed batch are not replayed. Segments
+     * started by the batch stay open and empty.
+     */
+    private void truncate(int segment, int offset)
+    {
+        segments.get(segment).recover(offset);
+        for (int i = segment + 1; i < segments.size(); i++)
+        {
+            segments.get(i).recover(0);
+        }
+    }
+
+
+    private Segment startSegment() throws IOException
+    {
+        int number = segments.size();
+        Segment segment = Segment.open(number, dir.resolve(String.format(SEGMENT_FILE_FORMAT, number)), segmentSize);
+        segments.add(segment);
+        return segment;
+    }
+
+
+    private ChatEntity readMessage(long position)
+    {
+        ByteBuffer body = segments.get((int) (position >>> Integer.SIZE)).read((int) position);
+        byte type = body.get();
+        ChatEntity chat = new ChatEntity();
+        chat.setId(body.getInt());
+        chat.setSender(getString(body));
+        if (type == ROOM_MESSAGE)
+        {
+            chat.setRoom(getString(body));
+        }
+        else
+        {
+            chat.setRecipient(getString(body));
+        }
+        chat.setMessage(getString(body));
+        return chat;
+    }
+
+
+    private void putString(String value) throws DaoException
+    {
+        if (value == null)
+        {
+            record.putShort((short) NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        checkLength(bytes);
+        record.putShort((short) bytes.length);
+        record.put(bytes);
+    }
+
+
+    private static void checkLength(String value) throws DaoException
+    {
+        if (value != null)
+        {
+            checkLength(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+
+    private static void checkLength(byte[] bytes) throws DaoException
+    {
+        if (bytes.length > MAX_STRING_BYTES)
+        {
+            throw new DaoException("Value is too long for the message log!");
+        }
+    }
+
+
+    private static String getString(ByteBuffer body)
+    {
+        short length = body.getShort();
+        if (length == NULL_STRING)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    private static long position(int segment, int offset)
+    {
+        return (long) segment << Integer.SIZE | offset;
+    }
+
+
+    /**
+     * Ids and positions of the messages of one user, of one room, or of the messages to everyone, ordered by id.
+     */
+    private final class OffsetIndex
+    {
+        private int[] ids = new int[16];
+        private long[] positions = new long[16];
+        private int size;
+
+
+        void add(int id, long position)
+        {
+            if (size == ids.length)
+            {
+                ids = Arrays.copyOf(ids, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            ids[size] = id;
+            positions[size] = position;
+            size++;
+        }
+
+
+        void removeIf(Predicate<ChatEntity> filter)
+        {
+            int kept = 0;
+            for (int i = 0; i < size; i++)
+            {
+                if (!filter.test(readMessage(positions[i])))
+                {
+                    ids[kept] = ids[i];
+                    positions[kept] = positions[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+
+        /**
+         * Finds the position of the first message with id greater than the given one.
+         */
+        int firstAfter(int id)
+        {
+            int low = 0;
+            int high = size;
+            while (low < high)
+            {
+                int middle = (low + high) >>> 1;
+                if (ids[middle] <= id)
+                {
+                    low = middle + 1;
+                }
+                else
+                {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
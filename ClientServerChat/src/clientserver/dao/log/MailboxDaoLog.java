@@ -0,0 +1,61 @@
+/*
+ * MailboxDaoLog.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.log;
+
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.MailboxDao;
+
+
+/**
+ * Message log DAO layer for the mailboxes of the users, see {@link LogStore}. Every acknowledgement which moves the mailbox forward
+ * appends one record to the log.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class MailboxDaoLog implements MailboxDao
+{
+    private static final Logger LOGGER = Logger.getLogger(MailboxDaoLog.class.getName());
+    private static MailboxDaoLog mailboxDaoLog;
+
+
+    private MailboxDaoLog()
+    {}
+
+
+    public static synchronized MailboxDaoLog getInstance()
+    {
+        if (mailboxDaoLog == null)
+        {
+            mailboxDaoLog = new MailboxDaoLog();
+        }
+        return mailboxDaoLog;
+    }
+
+
+    @Override
+    public int getAcknowledged(String username) throws DaoException
+    {
+        return LogStore.getInstance().getAcknowledged(username);
+    }
+
+
+    @Override
+    public void acknowledge(String username, int chatId) throws DaoException
+    {
+        if (username == null)
+        {
+            LOGGER.log(Level.WARNING, "Username is not specified!");
+            throw new DaoException("Username is not specified!");
+        }
+        LogStore.getInstance().acknowledge(username, chatId);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * RoomDaoLog.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.log;
+
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.RoomDao;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Message log DAO layer for the members and the history of chat rooms, see {@link LogStore}. Joining and leaving a room appends one
+ * record to the log.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class RoomDaoLog implements RoomDao
+{
+    private static final Logger LOGGER = Logger.getLogger(RoomDaoLog.class.getName());
+    private static RoomDaoLog roomDaoLog;
+
+
+    private RoomDaoLog()
+    {}
+
+
+    public static synchronized RoomDaoLog getInstance()
+    {
+        if (roomDaoLog == null)
+        {
+            roomDaoLog = new RoomDaoLog();
+        }
+        return roomDaoLog;
+    }
+
+
+    @Override
+    public void joinRoom(String room, String username) throws DaoException
+    {
+        validate(room, username);
+        LogStore.getInstance().joinRoom(room, username);
+    }
+
+
+    @Override
+    public void leaveRoom(String room, String username) throws DaoException
+    {
+        validate(room, username);
+        LogStore.getInstance().leaveRoom(room, username);
+    }
+
+
+    @Override
+    public List<String> getMembers(String room) throws DaoException
+    {
+        return LogStore.getInstance().getMembers(room);
+    }
+
+
+    @Override
+    public List<ChatEntity> getRoomHistorySince(String room, int lastId, int limit) throws DaoException
+    {
+        return LogStore.getInstance().getRoomHistorySince(room, lastId, limit);
+    }
+
+
+    private void validate(String room, String username) throws DaoException
+    {
+        if (room == null || username == null)
+        {
+            LOGGER.log(Level.WARNING, "Room or username are not specified!");
+            throw new DaoException("Room or username are not specified!");
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Segment.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.log;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+
+/**
+ * One file of the message log, mapped into memory as a whole. The file is created with its full size, so the unused tail is filled
+ * with zeros. Every record is stored as its length, the CRC32 of its body and the body, a zero length marks the end of the written part.
+ * Only one thread appends, any number of threads read.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+final class Segment
+{
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int ZERO_CHUNK_SIZE = 64 * 1024;
+    private final int number;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private int position;
+
+
+    private Segment(int number, Path file, MappedByteBuffer buffer)
+    {
+        this.number = number;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+
+    /**
+     * Opens the segment file, creates it with the given size if it does not exist yet.
+     *
+     * @param number of the segment.
+     * @param file of the segment.
+     * @param size of a new segment file in bytes.
+     * @return the mapped segment, positioned at its beginning.
+     * @throws IOException if the file can't be opened or mapped.
+     */
+    static Segment open(int number, Path file, int size) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            long length = Math.max(channel.size(), size);
+            return new Segment(number, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+    }
+
+
+    int getNumber()
+    {
+        return number;
+    }
+
+
+    Path getFile()
+    {
+        return file;
+    }
+
+
+    int getPosition()
+    {
+        return position;
+    }
+
+
+    boolean fits(int bodySize)
+    {
+        return position + HEADER_SIZE + bodySize <= buffer.capacity();
+    }
+
+
+    /**
+     * Appends one record at the end of the written part.
+     *
+     * @param body of the record, from its position to its limit.
+     * @return offset of the record in this segment.
+     */
+    int append(ByteBuffer body)
+    {
+        int offset = position;
+        int length = body.remaining();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset + HEADER_SIZE);
+        target.put(body);
+        // the length is written last, so a record is not visible before it is complete
+        buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(offset, length);
+        position = offset + HEADER_SIZE + length;
+        return offset;
+    }
+
+
+    /**
+     * Reads the body of the record at the given offset.
+     *
+     * @param offset of the record.
+     * @return the body, or null if there is no complete and valid record at the offset.
+     */
+    ByteBuffer read(int offset)
+    {
+        if (offset + HEADER_SIZE > buffer.capacity())
+        {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity())
+        {
+            return null;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset + HEADER_SIZE);
+        body.limit(offset + HEADER_SIZE + length);
+        body = body.slice();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES) ? body : null;
+    }
+
+
+    /**
+     * Checks whether the written part may end at the given offset, i.e. no record, not even a partially written one, follows.
+     *
+     * @param offset of the first byte after the last valid record.
+     * @return true if the rest of the segment is unused.
+     */
+    boolean isEnd(int offset)
+    {
+        return offset + Integer.BYTES > buffer.capacity() || buffer.getInt(offset) == 0;
+    }
+
+
+    /**
+     * Sets the end of the written part after the last valid record found when the segment is opened, or back to where a failed batch
+     * started. If a record follows, everything from there to the end of the file is cleared, so it can't be taken for a valid record
+     * later.
+     *
+     * @param offset of the first byte after the last valid record.
+     */
+    void recover(int offset)
+    {
+        position = offset;
+        if (isEnd(offset))
+        {
+            return;
+        }
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset);
+        byte[] zeros = new byte[Math.min(ZERO_CHUNK_SIZE, target.remaining())];
+        while (target.hasRemaining())
+        {
+            target.put(zeros, 0, Math.min(zeros.length, target.remaining()));
+        }
+    }
+
+
+    /**
+     * Writes the changed pages to the file.
+     */
+    void force()
+    {
+        buffer.force();
+    }
+}
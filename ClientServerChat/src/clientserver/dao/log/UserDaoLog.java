@@ -0,0 +1,127 @@
+/*
+ * UserDaoLog.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.log;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.UserDao;
+import clientserver.entities.ChatEntity;
+import clientserver.entities.UserEntity;
+
+
+/**
+ * Message log DAO layer for actions with {@link UserEntity}, see {@link LogStore}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class UserDaoLog implements UserDao
+{
+    private static final Logger LOGGER = Logger.getLogger(UserDaoLog.class.getName());
+    private static UserDaoLog userDaoLog;
+
+
+    private UserDaoLog()
+    {}
+
+
+    public static synchronized UserDaoLog getInstance()
+    {
+        if (userDaoLog == null)
+        {
+            userDaoLog = new UserDaoLog();
+        }
+        return userDaoLog;
+    }
+
+
+    @Override
+    public void saveUser(UserEntity user) throws DaoException
+    {
+        if (user == null || user.getUsername() == null || user.getStatus() == null)
+        {
+            LOGGER.log(Level.WARNING, "User or username are not specified!");
+            throw new DaoException("Username is not specified!");
+        }
+        LogStore.getInstance().saveUser(user.getUsername());
+    }
+
+
+    @Override
+    public void deleteUser(String username) throws DaoException
+    {
+        if (username == null)
+        {
+            LOGGER.log(Level.WARNING, "User or username are not properly defined!");
+            throw new DaoException("Username is not specified!");
+        }
+        LogStore.getInstance().deleteUser(username);
+    }
+
+
+    @Override
+    public void deleteAllUsers() throws DaoException
+    {
+        LogStore.getInstance().deleteAllUsers();
+    }
+
+
+    @Override
+    public List<String> getAllUsers() throws DaoException
+    {
+        return new ArrayList<String>(LogStore.getInstance().getUsers());
+    }
+
+
+    @Override
+    public void renameUser(UserEntity user, String newUsername) throws DaoException
+    {
+        if (user == null || user.getUsername() == null || user.getUsername().isEmpty())
+        {
+            LOGGER.log(Level.WARNING, "Old username or user are not provided!");
+            throw new DaoException("Old username or user are not specified!");
+        }
+        if (newUsername == null || newUsername.isEmpty())
+        {
+            LOGGER.log(Level.WARNING, "New username is not provided!");
+            throw new DaoException("New username is not provided!");
+        }
+        LogStore.getInstance().renameUser(user.getUsername(), newUsername);
+    }
+
+
+    @Override
+    public boolean userExists(String username) throws DaoException
+    {
+        return username != null && LogStore.getInstance().userExists(username);
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistory(String recipient) throws DaoException
+    {
+        return getHistorySince(recipient, 0, Integer.MAX_VALUE);
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistorySince(String recipient, int lastId, int limit) throws DaoException
+    {
+        if (recipient == null)
+        {
+            LOGGER.log(Level.INFO, "Recipient can not be null!");
+            return Collections.emptyList();
+        }
+        return LogStore.getInstance().getHistorySince(recipient, lastId, limit);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * ChatDaoMemory.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.memory;
+
+
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.ChatDao;
+import clientserver.dao.DaoException;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * In-memory DAO layer for {@link ChatEntity}. Messages are kept until the server stops.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class ChatDaoMemory implements ChatDao
+{
+    private static final Logger LOGGER = Logger.getLogger(ChatDaoMemory.class.getName());
+    private static ChatDaoMemory chatDaoMemory;
+    private final MemoryStore store = MemoryStore.getInstance();
+
+
+    private ChatDaoMemory()
+    {}
+
+
+    public static synchronized ChatDaoMemory getInstance()
+    {
+        if (chatDaoMemory == null)
+        {
+            chatDaoMemory = new ChatDaoMemory();
+        }
+        return chatDaoMemory;
+    }
+
+
+    @Override
+    public void saveMsg(ChatEntity chat) throws DaoException
+    {
+        validate(chat);
+        store.save(chat);
+    }
+
+
+    /**
+     * Saves the messages one after another. All messages are checked first, so either all of them are saved or none, but messages of
+     * other senders may get ids between them.
+     */
+    @Override
+    public void saveMsgs(Collection<ChatEntity> chats) throws DaoException
+    {
+        if (chats == null)
+        {
+            LOGGER.log(Level.WARNING, "Chat messages are not properly defined!");
+            throw new DaoException("Messages are not properly defined!");
+        }
+        for (ChatEntity chat : chats)
+        {
+            validate(chat);
+        }
+        for (ChatEntity chat : chats)
+        {
+            store.save(chat);
+        }
+    }
+
+
+    @Override
+    public void deleteMsg(ChatEntity chat) throws DaoException
+    {
+        validate(chat);
+        if (chat.getRoom() != null)
+        {
+            store.deleteFromRoom(chat.getSender(), chat.getRoom());
+            return;
+        }
+        store.delete(chat.getSender(), chat.getRecipient());
+    }
+
+
+    private void validate(ChatEntity chat) throws DaoException
+    {
+        if (chat == null || chat.getSender() == null)
+        {
+            LOGGER.log(Level.WARNING, "Chat message is not properly defined!");
+            throw new DaoException("Message is not properly defined!");
+        }
+    }
+}
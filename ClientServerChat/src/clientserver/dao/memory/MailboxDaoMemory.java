@@ -0,0 +1,61 @@
+/*
+ * MailboxDaoMemory.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.memory;
+
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.MailboxDao;
+
+
+/**
+ * In-memory DAO layer for the mailboxes of the users. Acknowledgements are kept until the server stops.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class MailboxDaoMemory implements MailboxDao
+{
+    private static final Logger LOGGER = Logger.getLogger(MailboxDaoMemory.class.getName());
+    private static MailboxDaoMemory mailboxDaoMemory;
+    private final MemoryStore store = MemoryStore.getInstance();
+
+
+    private MailboxDaoMemory()
+    {}
+
+
+    public static synchronized MailboxDaoMemory getInstance()
+    {
+        if (mailboxDaoMemory == null)
+        {
+            mailboxDaoMemory = new MailboxDaoMemory();
+        }
+        return mailboxDaoMemory;
+    }
+
+
+    @Override
+    public int getAcknowledged(String username) throws DaoException
+    {
+        return username == null ? 0 : store.getAcknowledged().getOrDefault(username, 0);
+    }
+
+
+    @Override
+    public void acknowledge(String username, int chatId) throws DaoException
+    {
+        if (username == null)
+        {
+            LOGGER.log(Level.WARNING, "Username is not specified!");
+            throw new DaoException("Username is not specified!");
+        }
+        store.getAcknowledged().merge(username, chatId, Math::max);
+    }
+}
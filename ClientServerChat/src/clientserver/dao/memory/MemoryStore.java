@@ -0,0 +1,329 @@
+/*
+ * MemoryStore.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.memory;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Users, rooms and messages kept only in memory, shared by {@link UserDaoMemory}, {@link ChatDaoMemory} and {@link RoomDaoMemory}.
+ * Every user has an index of the private messages sent or received by that user, every room an index of its messages, messages to
+ * everyone have one common index. Each index is ordered by id and guarded by its
+ * own lock: an id is taken only while the locks of all indexes of the message are held, so ids never appear out of order in an index,
+ * and history is read while holding the locks of both indexes of the user, so a client never skips a message which gets a lower id
+ * than one already returned.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+final class MemoryStore
+{
+    private static MemoryStore memoryStore;
+    private final Set<String> users = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, MessageIndex> userIndexes = new ConcurrentHashMap<String, MessageIndex>();
+    private final ConcurrentMap<String, MessageIndex> roomIndexes = new ConcurrentHashMap<String, MessageIndex>();
+    private final ConcurrentMap<String, Set<String>> roomMembers = new ConcurrentHashMap<String, Set<String>>();
+    private final ConcurrentMap<String, Integer> acknowledged = new ConcurrentHashMap<String, Integer>();
+    private final MessageIndex broadcastIndex = new MessageIndex();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+
+    private MemoryStore()
+    {}
+
+
+    static synchronized MemoryStore getInstance()
+    {
+        if (memoryStore == null)
+        {
+            memoryStore = new MemoryStore();
+        }
+        return memoryStore;
+    }
+
+
+    Set<String> getUsers()
+    {
+        return users;
+    }
+
+
+    /**
+     * @return the id of the last acknowledged message of every user.
+     */
+    ConcurrentMap<String, Integer> getAcknowledged()
+    {
+        return acknowledged;
+    }
+
+
+    /**
+     * Gets the members of the room, the set is created if the room has none yet.
+     *
+     * @param room is the name of the room.
+     * @return the live set of members.
+     */
+    Set<String> getMembers(String room)
+    {
+        return roomMembers.computeIfAbsent(room, name -> ConcurrentHashMap.newKeySet());
+    }
+
+
+    /**
+     * Stores a copy of the message in the indexes of its sender and recipient, in the index of its room, or in the index of messages to
+     * everyone, and sets the generated id.
+     *
+     * @param chat to store.
+     */
+    void save(ChatEntity chat)
+    {
+        if (chat.getRoom() != null || chat.isBroadcast())
+        {
+            MessageIndex index = chat.getRoom() != null ? roomIndex(chat.getRoom()) : broadcastIndex;
+            index.lock.writeLock().lock();
+            try
+            {
+                index.messages.add(store(chat));
+            }
+            finally
+            {
+                index.lock.writeLock().unlock();
+            }
+            return;
+        }
+        MessageIndex[] indexes = lockOrder(chat.getSender(), chat.getRecipient());
+        for (MessageIndex index : indexes)
+        {
+            index.lock.writeLock().lock();
+        }
+        try
+        {
+            ChatEntity stored = store(chat);
+            for (MessageIndex index : indexes)
+            {
+                index.messages.add(stored);
+            }
+        }
+        finally
+        {
+            for (MessageIndex index : indexes)
+            {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+
+    /**
+     * Gets the messages of the user and the messages to everyone which are newer than the given one.
+     *
+     * @param username of the user.
+     * @param afterId is the id of the last known message.
+     * @param limit is the maximum number of returned messages.
+     * @return copies of the messages ordered by id.
+     */
+    List<ChatEntity> getHistorySince(String username, int afterId, int limit)
+    {
+        MessageIndex userIndex = index(username);
+        List<ChatEntity> chats = new ArrayList<ChatEntity>();
+        userIndex.lock.readLock().lock();
+        broadcastIndex.lock.readLock().lock();
+        try
+        {
+            List<ChatEntity> own = userIndex.messages;
+            List<ChatEntity> broadcasts = broadcastIndex.messages;
+            int i = userIndex.firstAfter(afterId);
+            int j = broadcastIndex.firstAfter(afterId);
+            while (chats.size() < limit && (i < own.size() || j < broadcasts.size()))
+            {
+                if (j >= broadcasts.size() || i < own.size() && own.get(i).getId() < broadcasts.get(j).getId())
+                {
+                    chats.add(copy(own.get(i++)));
+                }
+                else
+                {
+                    chats.add(copy(broadcasts.get(j++)));
+                }
+            }
+        }
+        finally
+        {
+            broadcastIndex.lock.readLock().unlock();
+            userIndex.lock.readLock().unlock();
+        }
+        return chats;
+    }
+
+
+    /**
+     * Gets the messages to the room which are newer than the given one.
+     *
+     * @param room is the name of the room.
+     * @param afterId is the id of the last known message.
+     * @param limit is the maximum number of returned messages.
+     * @return copies of the messages ordered by id.
+     */
+    List<ChatEntity> getRoomHistorySince(String room, int afterId, int limit)
+    {
+        MessageIndex index = roomIndex(room);
+        List<ChatEntity> chats = new ArrayList<ChatEntity>();
+        index.lock.readLock().lock();
+        try
+        {
+            for (int i = index.firstAfter(afterId); i < index.messages.size() && chats.size() < limit; i++)
+            {
+                chats.add(copy(index.messages.get(i)));
+            }
+        }
+        finally
+        {
+            index.lock.readLock().unlock();
+        }
+        return chats;
+    }
+
+
+    /**
+     * Removes the messages of the sender to the room.
+     *
+     * @param sender of the messages.
+     * @param room of the messages.
+     */
+    void deleteFromRoom(String sender, String room)
+    {
+        MessageIndex index = roomIndex(room);
+        index.lock.writeLock().lock();
+        try
+        {
+            index.messages.removeIf(chat -> sender.equals(chat.getSender()));
+        }
+        finally
+        {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Removes the messages of the sender to the recipient, or the messages of the sender to everyone if the recipient is not set.
+     *
+     * @param sender of the messages.
+     * @param recipient of the messages, null for messages to everyone.
+     */
+    void delete(String sender, String recipient)
+    {
+        Predicate<ChatEntity> matches = chat -> sender.equals(chat.getSender())
+                                                && (recipient == null ? chat.isBroadcast() : recipient.equals(chat.getRecipient()));
+        MessageIndex[] indexes = recipient == null ? new MessageIndex[] { broadcastIndex } : lockOrder(sender, recipient);
+        for (MessageIndex index : indexes)
+        {
+            index.lock.writeLock().lock();
+            try
+            {
+                index.messages.removeIf(matches);
+            }
+            finally
+            {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+
+    private MessageIndex index(String username)
+    {
+        return userIndexes.computeIfAbsent(username, name -> new MessageIndex());
+    }
+
+
+    private MessageIndex roomIndex(String room)
+    {
+        return roomIndexes.computeIfAbsent(room, name -> new MessageIndex());
+    }
+
+
+    /**
+     * Gets the indexes of both users in the order in which their locks are taken, to avoid deadlocks between concurrent messages.
+     */
+    private MessageIndex[] lockOrder(String sender, String recipient)
+    {
+        int order = sender.compareTo(recipient);
+        if (order == 0)
+        {
+            return new MessageIndex[] { index(sender) };
+        }
+        return order < 0 ? new MessageIndex[] { index(sender), index(recipient) }
+                         : new MessageIndex[] { index(recipient), index(sender) };
+    }
+
+
+    /**
+     * Sets a new id to the message. Must be called while the locks of all indexes of the message are held.
+     *
+     * @return the copy to store.
+     */
+    private ChatEntity store(ChatEntity chat)
+    {
+        chat.setId(lastId.incrementAndGet());
+        return copy(chat);
+    }
+
+
+    private static ChatEntity copy(ChatEntity chat)
+    {
+        ChatEntity copy = new ChatEntity();
+        copy.setId(chat.getId());
+        copy.setSender(chat.getSender());
+        copy.setRecipient(chat.getRecipient());
+        copy.setRoom(chat.getRoom());
+        copy.setMessage(chat.getMessage());
+        return copy;
+    }
+
+
+    /**
+     * Messages of one user, of one room, or messages to everyone, ordered by id.
+     */
+    private static final class MessageIndex
+    {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<ChatEntity> messages = new ArrayList<ChatEntity>();
+
+
+        /**
+         * Finds the position of the first message with id greater than the given one.
+         */
+        int firstAfter(int id)
+        {
+            int low = 0;
+            int high = messages.size();
+            while (low < high)
+            {
+                int middle = (low + high) >>> 1;
+                if (messages.get(middle).getId() <= id)
+                {
+                    low = middle + 1;
+                }
+                else
+                {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
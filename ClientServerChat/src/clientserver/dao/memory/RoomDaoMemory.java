@@ -0,0 +1,85 @@
+/*
+ * RoomDaoMemory.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.memory;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.RoomDao;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * In-memory DAO layer for the members and the history of chat rooms. Rooms are kept until the server stops.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class RoomDaoMemory implements RoomDao
+{
+    private static final Logger LOGGER = Logger.getLogger(RoomDaoMemory.class.getName());
+    private static RoomDaoMemory roomDaoMemory;
+    private final MemoryStore store = MemoryStore.getInstance();
+
+
+    private RoomDaoMemory()
+    {}
+
+
+    public static synchronized RoomDaoMemory getInstance()
+    {
+        if (roomDaoMemory == null)
+        {
+            roomDaoMemory = new RoomDaoMemory();
+        }
+        return roomDaoMemory;
+    }
+
+
+    @Override
+    public void joinRoom(String room, String username) throws DaoException
+    {
+        validate(room, username);
+        store.getMembers(room).add(username);
+    }
+
+
+    @Override
+    public void leaveRoom(String room, String username) throws DaoException
+    {
+        validate(room, username);
+        store.getMembers(room).remove(username);
+    }
+
+
+    @Override
+    public List<String> getMembers(String room) throws DaoException
+    {
+        return new ArrayList<String>(store.getMembers(room));
+    }
+
+
+    @Override
+    public List<ChatEntity> getRoomHistorySince(String room, int lastId, int limit) throws DaoException
+    {
+        return store.getRoomHistorySince(room, lastId, limit);
+    }
+
+
+    private void validate(String room, String username) throws DaoException
+    {
+        if (room == null || username == null)
+        {
+            LOGGER.log(Level.WARNING, "Room or username are not specified!");
+            throw new DaoException("Room or username are not specified!");
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * UserDaoMemory.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.memory;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.UserDao;
+import clientserver.entities.ChatEntity;
+import clientserver.entities.UserEntity;
+
+
+/**
+ * In-memory DAO layer for actions with {@link UserEntity}. Nothing is persisted, all users and messages are lost when the server stops.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class UserDaoMemory implements UserDao
+{
+    private static final Logger LOGGER = Logger.getLogger(UserDaoMemory.class.getName());
+    private static UserDaoMemory userDaoMemory;
+    private final MemoryStore store = MemoryStore.getInstance();
+    private final Set<String> users = store.getUsers();
+
+
+    private UserDaoMemory()
+    {}
+
+
+    public static synchronized UserDaoMemory getInstance()
+    {
+        if (userDaoMemory == null)
+        {
+            userDaoMemory = new UserDaoMemory();
+        }
+        return userDaoMemory;
+    }
+
+
+    @Override
+    public void saveUser(UserEntity user) throws DaoException
+    {
+        if (user == null || user.getUsername() == null || user.getStatus() == null)
+        {
+            LOGGER.log(Level.WARNING, "User or username are not specified!");
+            throw new DaoException("Username is not specified!");
+        }
+        if (!users.add(user.getUsername()))
+        {
+            LOGGER.log(Level.WARNING, "User already exists: " + user.getUsername());
+            throw new DaoException("Failed to save user!");
+        }
+    }
+
+
+    @Override
+    public void deleteUser(String username) throws DaoException
+    {
+        if (username == null)
+        {
+            LOGGER.log(Level.WARNING, "User or username are not properly defined!");
+            throw new DaoException("Username is not specified!");
+        }
+        users.remove(username);
+    }
+
+
+    @Override
+    public void deleteAllUsers() throws DaoException
+    {
+        users.clear();
+    }
+
+
+    @Override
+    public List<String> getAllUsers() throws DaoException
+    {
+        return new ArrayList<String>(users);
+    }
+
+
+    @Override
+    public void renameUser(UserEntity user, String newUsername) throws DaoException
+    {
+        if (user == null || user.getUsername() == null || user.getUsername().isEmpty())
+        {
+            LOGGER.log(Level.WARNING, "Old username or user are not provided!");
+            throw new DaoException("Old username or user are not specified!");
+        }
+        if (newUsername == null || newUsername.isEmpty())
+        {
+            LOGGER.log(Level.WARNING, "New username is not provided!");
+            throw new DaoException("New username is not provided!");
+        }
+        if (users.contains(newUsername))
+        {
+            LOGGER.log(Level.WARNING, "User already exists: " + newUsername);
+            throw new DaoException("Failed to rename selected user!");
+        }
+        if (users.remove(user.getUsername()))
+        {
+            users.add(newUsername);
+        }
+    }
+
+
+    @Override
+    public boolean userExists(String username) throws DaoException
+    {
+        return username != null && users.contains(username);
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistory(String recipient) throws DaoException
+    {
+        return getHistorySince(recipient, 0, Integer.MAX_VALUE);
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistorySince(String recipient, int lastId, int limit) throws DaoException
+    {
+        if (recipient == null)
+        {
+            LOGGER.log(Level.INFO, "Recipient can not be null!");
+            return Collections.emptyList();
+        }
+        return store.getHistorySince(recipient, lastId, limit);
+    }
+}
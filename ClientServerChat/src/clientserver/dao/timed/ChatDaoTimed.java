@@ -0,0 +1,105 @@
+/*
+ * ChatDaoTimed.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.timed;
+
+
+import java.util.Collection;
+
+import clientserver.dao.ChatDao;
+import clientserver.dao.DaoException;
+import clientserver.entities.ChatEntity;
+import clientserver.metrics.LatencyHistogram;
+import clientserver.metrics.ServerMetrics;
+
+
+/**
+ * Times every call of another {@link ChatDao}, see {@link ServerMetrics}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class ChatDaoTimed implements ChatDao
+{
+    private static final String PREFIX = "dao.ChatDao.";
+    private final ServerMetrics metrics = ServerMetrics.getInstance();
+    private final ChatDao delegate;
+    private final LatencyHistogram saveMsgLatency;
+    private final LatencyHistogram saveMsgsLatency;
+    private final LatencyHistogram deleteMsgLatency;
+
+
+    /**
+     * @param delegate which does the work.
+     */
+    public ChatDaoTimed(ChatDao delegate)
+    {
+        this.delegate = delegate;
+        saveMsgLatency = metrics.histogram(PREFIX + "saveMsg");
+        saveMsgsLatency = metrics.histogram(PREFIX + "saveMsgs");
+        deleteMsgLatency = metrics.histogram(PREFIX + "deleteMsg");
+    }
+
+
+    @Override
+    public void saveMsg(ChatEntity chat) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.saveMsg(chat);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            saveMsgLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public void saveMsgs(Collection<ChatEntity> chats) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.saveMsgs(chats);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            saveMsgsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public void deleteMsg(ChatEntity chat) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.deleteMsg(chat);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            deleteMsgLatency.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * MailboxDaoTimed.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.timed;
+
+
+import clientserver.dao.DaoException;
+import clientserver.dao.MailboxDao;
+import clientserver.metrics.LatencyHistogram;
+import clientserver.metrics.ServerMetrics;
+
+
+/**
+ * Times every call of another {@link MailboxDao}, see {@link ServerMetrics}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class MailboxDaoTimed implements MailboxDao
+{
+    private static final String PREFIX = "dao.MailboxDao.";
+    private final ServerMetrics metrics = ServerMetrics.getInstance();
+    private final MailboxDao delegate;
+    private final LatencyHistogram getAcknowledgedLatency;
+    private final LatencyHistogram acknowledgeLatency;
+
+
+    /**
+     * @param delegate which does the work.
+     */
+    public MailboxDaoTimed(MailboxDao delegate)
+    {
+        this.delegate = delegate;
+        getAcknowledgedLatency = metrics.histogram(PREFIX + "getAcknowledged");
+        acknowledgeLatency = metrics.histogram(PREFIX + "acknowledge");
+    }
+
+
+    @Override
+    public int getAcknowledged(String username) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return delegate.getAcknowledged(username);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            getAcknowledgedLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public void acknowledge(String username, int chatId) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.acknowledge(username, chatId);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            acknowledgeLatency.record(System.nanoTime() - start);
+        }
+    }
+}
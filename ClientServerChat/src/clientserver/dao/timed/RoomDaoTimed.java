@@ -0,0 +1,127 @@
+/*
+ * RoomDaoTimed.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.timed;
+
+
+import java.util.List;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.RoomDao;
+import clientserver.entities.ChatEntity;
+import clientserver.metrics.LatencyHistogram;
+import clientserver.metrics.ServerMetrics;
+
+
+/**
+ * Times every call of another {@link RoomDao}, see {@link ServerMetrics}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class RoomDaoTimed implements RoomDao
+{
+    private static final String PREFIX = "dao.RoomDao.";
+    private final ServerMetrics metrics = ServerMetrics.getInstance();
+    private final RoomDao delegate;
+    private final LatencyHistogram joinRoomLatency;
+    private final LatencyHistogram leaveRoomLatency;
+    private final LatencyHistogram getMembersLatency;
+    private final LatencyHistogram getRoomHistorySinceLatency;
+
+
+    /**
+     * @param delegate which does the work.
+     */
+    public RoomDaoTimed(RoomDao delegate)
+    {
+        this.delegate = delegate;
+        joinRoomLatency = metrics.histogram(PREFIX + "joinRoom");
+        leaveRoomLatency = metrics.histogram(PREFIX + "leaveRoom");
+        getMembersLatency = metrics.histogram(PREFIX + "getMembers");
+        getRoomHistorySinceLatency = metrics.histogram(PREFIX + "getRoomHistorySince");
+    }
+
+
+    @Override
+    public void joinRoom(String room, String username) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.joinRoom(room, username);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            joinRoomLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public void leaveRoom(String room, String username) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.leaveRoom(room, username);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            leaveRoomLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public List<String> getMembers(String room) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return delegate.getMembers(room);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            getMembersLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public List<ChatEntity> getRoomHistorySince(String room, int lastId, int limit) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return delegate.getRoomHistorySince(room, lastId, limit);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            getRoomHistorySinceLatency.record(System.nanoTime() - start);
+        }
+    }
+}
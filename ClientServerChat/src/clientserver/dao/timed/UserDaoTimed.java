@@ -0,0 +1,216 @@
+/*
+ * UserDaoTimed.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.timed;
+
+
+import java.util.List;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.UserDao;
+import clientserver.entities.ChatEntity;
+import clientserver.entities.UserEntity;
+import clientserver.metrics.LatencyHistogram;
+import clientserver.metrics.ServerMetrics;
+
+
+/**
+ * Times every call of another {@link UserDao}, see {@link ServerMetrics}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class UserDaoTimed implements UserDao
+{
+    private static final String PREFIX = "dao.UserDao.";
+    private final ServerMetrics metrics = ServerMetrics.getInstance();
+    private final UserDao delegate;
+    private final LatencyHistogram saveUserLatency;
+    private final LatencyHistogram deleteUserLatency;
+    private final LatencyHistogram deleteAllUsersLatency;
+    private final LatencyHistogram getAllUsersLatency;
+    private final LatencyHistogram renameUserLatency;
+    private final LatencyHistogram userExistsLatency;
+    private final LatencyHistogram getHistoryLatency;
+    private final LatencyHistogram getHistorySinceLatency;
+
+
+    /**
+     * @param delegate which does the work.
+     */
+    public UserDaoTimed(UserDao delegate)
+    {
+        this.delegate = delegate;
+        saveUserLatency = metrics.histogram(PREFIX + "saveUser");
+        deleteUserLatency = metrics.histogram(PREFIX + "deleteUser");
+        deleteAllUsersLatency = metrics.histogram(PREFIX + "deleteAllUsers");
+        getAllUsersLatency = metrics.histogram(PREFIX + "getAllUsers");
+        renameUserLatency = metrics.histogram(PREFIX + "renameUser");
+        userExistsLatency = metrics.histogram(PREFIX + "userExists");
+        getHistoryLatency = metrics.histogram(PREFIX + "getHistory");
+        getHistorySinceLatency = metrics.histogram(PREFIX + "getHistorySince");
+    }
+
+
+    @Override
+    public void saveUser(UserEntity user) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.saveUser(user);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            saveUserLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public void deleteUser(String username) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.deleteUser(username);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            deleteUserLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public void deleteAllUsers() throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.deleteAllUsers();
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            deleteAllUsersLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public List<String> getAllUsers() throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return delegate.getAllUsers();
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            getAllUsersLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public void renameUser(UserEntity user, String newUsername) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            delegate.renameUser(user, newUsername);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            renameUserLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public boolean userExists(String username) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return delegate.userExists(username);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            userExistsLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistory(String recipient) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return delegate.getHistory(recipient);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            getHistoryLatency.record(System.nanoTime() - start);
+        }
+    }
+
+
+    @Override
+    public List<ChatEntity> getHistorySince(String recipient, int lastId, int limit) throws DaoException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return delegate.getHistorySince(recipient, lastId, limit);
+        }
+        catch (DaoException e)
+        {
+            metrics.recordDaoError();
+            throw e;
+        }
+        finally
+        {
+            getHistorySinceLatency.record(System.nanoTime() - start);
+        }
+    }
+}
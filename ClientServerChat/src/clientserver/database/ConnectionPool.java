@@ -0,0 +1,263 @@
+/*
+ * ConnectionPool.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.database;
+
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.jdbcx.JdbcDataSource;
+
+
+/**
+ * Pool of the {@link Database} connections which measures its use: connections in use and idle, time spent waiting for a connection
+ * and the number of waits which ended with a timeout.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class ConnectionPool implements ConnectionPoolMXBean
+{
+    private static final String TIMEOUT_SQL_STATE = "08001";
+    private final JdbcConnectionPool pool;
+    private final AtomicInteger idle = new AtomicInteger();
+    private final LongAdder acquires = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder timeouts = new LongAdder();
+
+
+    /**
+     * Creates {@link ConnectionPool}.
+     *
+     * @param url of the Database.
+     * @param user of the Database.
+     * @param password of the user.
+     * @param maxConnections is the maximum number of connections in use at the same time.
+     * @param timeoutSeconds is the maximum time to wait for a free connection.
+     */
+    ConnectionPool(String url, String user, String password, int maxConnections, int timeoutSeconds)
+    {
+        JdbcDataSource dataSource = new JdbcDataSource()
+        {
+            private static final long serialVersionUID = 1L;
+
+
+            @Override
+            public PooledConnection getPooledConnection() throws SQLException
+            {
+                return new TrackedConnection(super.getPooledConnection());
+            }
+        };
+        dataSource.setURL(url);
+        dataSource.setUser(user);
+        dataSource.setPassword(password);
+        pool = JdbcConnectionPool.create(dataSource);
+        pool.setMaxConnections(maxConnections);
+        pool.setLoginTimeout(timeoutSeconds);
+    }
+
+
+    /**
+     * Takes a connection from the pool, waits up to the timeout while all connections are in use.
+     *
+     * @return the connection, which is returned to the pool when it is closed.
+     * @throws SQLException if no connection gets free in time or a new one can't be opened.
+     */
+    Connection getConnection() throws SQLException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return pool.getConnection();
+        }
+        catch (SQLException e)
+        {
+            if (TIMEOUT_SQL_STATE.equals(e.getSQLState()))
+            {
+                timeouts.increment();
+            }
+            throw e;
+        }
+        finally
+        {
+            long nanos = System.nanoTime() - start;
+            acquires.increment();
+            acquireNanos.add(nanos);
+            maxAcquireNanos.accumulate(nanos);
+        }
+    }
+
+
+    /**
+     * Closes the idle connections, connections in use are closed when they are returned.
+     */
+    void dispose()
+    {
+        pool.dispose();
+    }
+
+
+    @Override
+    public int getMaxConnections()
+    {
+        return pool.getMaxConnections();
+    }
+
+
+    @Override
+    public int getActiveConnections()
+    {
+        return pool.getActiveConnections();
+    }
+
+
+    @Override
+    public int getIdleConnections()
+    {
+        return idle.get();
+    }
+
+
+    @Override
+    public long getAcquireCount()
+    {
+        return acquires.sum();
+    }
+
+
+    @Override
+    public long getAcquireNanos()
+    {
+        return acquireNanos.sum();
+    }
+
+
+    @Override
+    public long getMaxAcquireNanos()
+    {
+        return maxAcquireNanos.get();
+    }
+
+
+    @Override
+    public long getTimeoutCount()
+    {
+        return timeouts.sum();
+    }
+
+
+    /**
+     * Physical connection which counts itself as idle while it waits in the pool. It is idle from the close of its logical connection
+     * until the pool hands it out again or closes it. The events of the connection are passed on to the pool with this connection as
+     * source, so the pool recycles this connection and not the one it wraps.
+     */
+    private final class TrackedConnection implements PooledConnection, ConnectionEventListener
+    {
+        private final PooledConnection connection;
+        private final List<ConnectionEventListener> listeners = new CopyOnWriteArrayList<ConnectionEventListener>();
+        private final AtomicBoolean idleFlag = new AtomicBoolean();
+
+
+        TrackedConnection(PooledConnection connection)
+        {
+            this.connection = connection;
+            connection.addConnectionEventListener(this);
+        }
+
+
+        @Override
+        public Connection getConnection() throws SQLException
+        {
+            leaveIdle();
+            return connection.getConnection();
+        }
+
+
+        @Override
+        public void close() throws SQLException
+        {
+            leaveIdle();
+            connection.close();
+        }
+
+
+        @Override
+        public void connectionClosed(ConnectionEvent event)
+        {
+            if (idleFlag.compareAndSet(false, true))
+            {
+                idle.incrementAndGet();
+            }
+            ConnectionEvent ownEvent = new ConnectionEvent(this, event.getSQLException());
+            for (ConnectionEventListener listener : listeners)
+            {
+                listener.connectionClosed(ownEvent);
+            }
+        }
+
+
+        @Override
+        public void connectionErrorOccurred(ConnectionEvent event)
+        {
+            ConnectionEvent ownEvent = new ConnectionEvent(this, event.getSQLException());
+            for (ConnectionEventListener listener : listeners)
+            {
+                listener.connectionErrorOccurred(ownEvent);
+            }
+        }
+
+
+        @Override
+        public void addConnectionEventListener(ConnectionEventListener listener)
+        {
+            listeners.add(listener);
+        }
+
+
+        @Override
+        public void removeConnectionEventListener(ConnectionEventListener listener)
+        {
+            listeners.remove(listener);
+        }
+
+
+        @Override
+        public void addStatementEventListener(StatementEventListener listener)
+        {
+            connection.addStatementEventListener(listener);
+        }
+
+
+        @Override
+        public void removeStatementEventListener(StatementEventListener listener)
+        {
+            connection.removeStatementEventListener(listener);
+        }
+
+
+        private void leaveIdle()
+        {
+            if (idleFlag.compareAndSet(true, false))
+            {
+                idle.decrementAndGet();
+            }
+        }
+    }
+}
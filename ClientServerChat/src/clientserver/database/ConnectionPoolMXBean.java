@@ -0,0 +1,37 @@
+/*
+ * ConnectionPoolMXBean.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.database;
+
+
+/**
+ * JMX view of the {@link ConnectionPool}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public interface ConnectionPoolMXBean
+{
+    public int getMaxConnections();
+
+
+    public int getActiveConnections();
+
+
+    public int getIdleConnections();
+
+
+    public long getAcquireCount();
+
+
+    public long getAcquireNanos();
+
+
+    public long getMaxAcquireNanos();
+
+
+    public long getTimeoutCount();
+}
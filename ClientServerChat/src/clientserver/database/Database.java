@@ -14,33 +14,75 @@ import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.h2.jdbcx.JdbcConnectionPool;
 import org.h2.tools.Server;
 
+import clientserver.config.Configuration;
+
 
 /**
  * Represents database source for the application ClientServer.
  * <p>
+ * Settings: "chat.db.url" (embedded file ~/test by default, in-memory and TCP URLs work as well), "chat.db.options" (H2 settings
+ * appended to the URL, separated by ";"), "chat.db.user", "chat.db.password", "chat.db.pool.maxConnections" (twice the number of
+ * processors, at least 10, by default), "chat.db.pool.timeoutSeconds" (how long to wait for a free connection), "chat.db.webPort"
+ * (port of the H2 web console) and "chat.db.compactOnShutdown" (fully compact the Database file when it is closed, which frees the space
+ * of deleted messages but makes shutdown slower). "DB_CLOSE_ON_EXIT=FALSE" is always appended to the URL, the server closes the
+ * Database itself after saving pending messages.
+ * <p>
  * created at Oct 5, 2017 by @author Petya Petrova p.petrova@seeburger.com p.petrova
  */
 public final class Database
 {
     private static final String DB_CONNECTION = "jdbc:h2:~/test";
+    private static final String OPTIONS_SEPARATOR = ";";
+    private static final String DB_CLOSE_ON_EXIT_OPTION = OPTIONS_SEPARATOR + "DB_CLOSE_ON_EXIT=FALSE";
     private static final String DB_PORT = "8082";
     private static final String DB_USER = "admin";
     private static final String PASSWORD = "";
+    private static final int MIN_POOL_SIZE = 10;
+    private static final int DEFAULT_POOL_TIMEOUT_SECONDS = 30;
+    private static final String URL_PROPERTY = "chat.db.url";
+    private static final String OPTIONS_PROPERTY = "chat.db.options";
+    private static final String USER_PROPERTY = "chat.db.user";
+    private static final String PASSWORD_PROPERTY = "chat.db.password";
+    private static final String POOL_SIZE_PROPERTY = "chat.db.pool.maxConnections";
+    private static final String POOL_TIMEOUT_PROPERTY = "chat.db.pool.timeoutSeconds";
+    private static final String WEB_PORT_PROPERTY = "chat.db.webPort";
+    private static final String COMPACT_ON_SHUTDOWN_PROPERTY = "chat.db.compactOnShutdown";
     private static final String START_DB_MSG = "Starting DB at port: ";
     private static final String SETUP_SCHEMA_MSG = "Setting up schema...";
+    private static final String SHUTDOWN_SQL = "SHUTDOWN";
+    private static final String SHUTDOWN_COMPACT_SQL = "SHUTDOWN COMPACT";
     private static final String CREATE_SCHEMA_SQL = "CREATE SCHEMA IF NOT EXISTS chronology;";
     private static final String CREATE_TABLE_USERS_SQL = "CREATE TABLE IF NOT EXISTS chronology.users (user_id INT UNSIGNED NOT NULL AUTO_INCREMENT, username VARCHAR(50) NOT NULL UNIQUE, status VARCHAR(50), PRIMARY KEY(user_id));";
     private static final String CREATE_TABLES_CHAT_SQL = "CREATE TABLE IF NOT EXISTS chronology.chat (chat_id INT UNSIGNED NOT NULL AUTO_INCREMENT, sender VARCHAR(50), recipient VARCHAR(50), message VARCHAR(100));";
-    private static final JdbcConnectionPool CONNECTION_POOL = JdbcConnectionPool.create(DB_CONNECTION, DB_USER, PASSWORD);
+    private static final String POOL_MSG = "Connecting to %s with at most %d connections";
     private static final Logger LOGGER = Logger.getLogger(Database.class.getName());
     private static Database database;
+    private final ConnectionPool connectionPool;
+    private final String webPort;
+    private final boolean compactOnShutdown;
 
 
     private Database() throws DatabaseException
     {
+        Configuration configuration = Configuration.getInstance();
+        String url = configuration.getString(URL_PROPERTY, DB_CONNECTION) + DB_CLOSE_ON_EXIT_OPTION;
+        String options = configuration.getString(OPTIONS_PROPERTY, null);
+        if (options != null)
+        {
+            url += options.startsWith(OPTIONS_SEPARATOR) ? options : OPTIONS_SEPARATOR + options;
+        }
+        // only the write-behind writer keeps one connection for its whole life, the event loops and the jobs check one out per command,
+        // so twice the processors leaves a connection for every event loop while the blocking handlers still have spare ones
+        int maxConnections = configuration.getInt(POOL_SIZE_PROPERTY,
+                                                  Math.max(MIN_POOL_SIZE, 2 * Runtime.getRuntime().availableProcessors()));
+        LOGGER.log(Level.INFO, String.format(POOL_MSG, url, maxConnections));
+        connectionPool = new ConnectionPool(url, configuration.getString(USER_PROPERTY, DB_USER),
+                                            configuration.getString(PASSWORD_PROPERTY, PASSWORD), maxConnections,
+                                            configuration.getInt(POOL_TIMEOUT_PROPERTY, DEFAULT_POOL_TIMEOUT_SECONDS));
+        webPort = configuration.getString(WEB_PORT_PROPERTY, DB_PORT);
+        compactOnShutdown = configuration.getBoolean(COMPACT_ON_SHUTDOWN_PROPERTY, false);
         startDB();
         setUpSchema();
     }
@@ -63,7 +105,32 @@ public final class Database
 
 
     /**
-     * Creates database schema "chronology".
+     * Closes the Database if it has been started. The Database is not closed automatically on exit, so that pending writes can still be
+     * saved by the shutdown hooks of the application before this method is called.
+     */
+    public static synchronized void shutdown()
+    {
+        if (database == null)
+        {
+            return;
+        }
+        String shutdownSql = database.compactOnShutdown ? SHUTDOWN_COMPACT_SQL : SHUTDOWN_SQL;
+        try (Connection connection = database.getConnection();
+                        PreparedStatement prStatement = connection.prepareStatement(shutdownSql);)
+        {
+            prStatement.execute();
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to close Database!", e);
+        }
+        database.connectionPool.dispose();
+        database = null;
+    }
+
+
+    /**
+     * Creates database schema "chronology" and upgrades it to the latest version with {@link SchemaMigrations}.
      *
      * @throws DatabaseException in case of error.
      */
@@ -75,6 +142,7 @@ public final class Database
                                                                                     + CREATE_TABLES_CHAT_SQL);)
         {
             prStatement.execute();
+            SchemaMigrations.migrate(connection);
         }
         catch (SQLException e)
         {
@@ -93,7 +161,7 @@ public final class Database
     {
         try
         {
-            Connection connection = CONNECTION_POOL.getConnection();
+            Connection connection = connectionPool.getConnection();
             connection.setAutoCommit(true);
             return connection;
         }
@@ -104,12 +172,23 @@ public final class Database
     }
 
 
+    /**
+     * Gets the pool of the connections, to observe how it is used.
+     *
+     * @return the {@link ConnectionPool}.
+     */
+    public ConnectionPool getConnectionPool()
+    {
+        return connectionPool;
+    }
+
+
     private void startDB() throws DatabaseException
     {
-        LOGGER.log(Level.INFO, START_DB_MSG + DB_PORT);
+        LOGGER.log(Level.INFO, START_DB_MSG + webPort);
         try
         {
-            Server.createWebServer("-webAllowOthers", "-webPort", DB_PORT).start();
+            Server.createWebServer("-webAllowOthers", "-webPort", webPort).start();
         }
         catch (SQLException e)
         {
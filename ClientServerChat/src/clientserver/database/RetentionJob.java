@@ -0,0 +1,462 @@
+/*
+ * RetentionJob.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.database;
+
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.config.Configuration;
+
+
+/**
+ * Background job which deletes expired messages from the Database. Policies, every one switched off with 0:
+ * "chat.db.retention.maxAgeHours" (messages older than that), "chat.db.retention.maxConversationMessages" (oldest messages of a
+ * conversation above that number, a conversation being the private messages between two users, the messages of one room or the
+ * messages to everyone) and "chat.db.retention.maxMegabytes" (oldest messages while the chat table uses more disk space than that).
+ * The job runs every "chat.db.retention.intervalMinutes" and is not started if no policy is set.
+ * <p>
+ * Messages are deleted in batches of "chat.db.retention.batchSize", every batch in its own short transaction on a connection which is
+ * returned to the pool afterwards, so saving messages is never blocked for long. After every batch the job pauses at least
+ * "chat.db.retention.pauseMillis" and nine times as long as the batch took, so it takes at most a tenth of the Database time when
+ * there is a lot to delete. A checkpoint after every run with deleted messages lets H2 rewrite the emptied parts of the file.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class RetentionJob implements Runnable
+{
+    private static final String MAX_AGE_PROPERTY = "chat.db.retention.maxAgeHours";
+    private static final String MAX_CONVERSATION_MESSAGES_PROPERTY = "chat.db.retention.maxConversationMessages";
+    private static final String MAX_MEGABYTES_PROPERTY = "chat.db.retention.maxMegabytes";
+    private static final String INTERVAL_PROPERTY = "chat.db.retention.intervalMinutes";
+    private static final String BATCH_SIZE_PROPERTY = "chat.db.retention.batchSize";
+    private static final String PAUSE_PROPERTY = "chat.db.retention.pauseMillis";
+    private static final long DEFAULT_INTERVAL_MINUTES = 60;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long DEFAULT_PAUSE_MILLIS = 20;
+    private static final int PAUSE_FACTOR = 9;
+    private static final String THREAD_NAME = "chat-retention";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM chronology.chat WHERE chat_id IN (SELECT chat_id FROM chronology.chat ORDER BY chat_id LIMIT ?) AND created_at<?";
+    private static final String SIZE_SQL = "SELECT DISK_SPACE_USED('CHRONOLOGY.CHAT'), COUNT(*) FROM chronology.chat";
+    private static final String SAMPLE_SIZE_SQL = "SELECT AVG(LENGTH(sender) + COALESCE(LENGTH(recipient), 0) + COALESCE(LENGTH(room), 0) + COALESCE(LENGTH(message), 0)) FROM (SELECT sender, recipient, room, message FROM chronology.chat ORDER BY chat_id DESC LIMIT ?)";
+    private static final int ROW_OVERHEAD_BYTES = 40;
+    private static final String DELETE_OLDEST_SQL = "DELETE FROM chronology.chat WHERE chat_id IN (SELECT chat_id FROM chronology.chat ORDER BY chat_id LIMIT ?)";
+    private static final String NEW_MESSAGES_SQL = "SELECT chat_id, room, sender, recipient FROM chronology.chat WHERE chat_id>? ORDER BY chat_id LIMIT ?";
+    private static final String PRIVATE_CONVERSATION = "room IS NULL AND (sender=? AND recipient=? OR sender=? AND recipient=?)";
+    private static final String ROOM_CONVERSATION = "room=?";
+    private static final String BROADCAST_CONVERSATION = "room IS NULL AND recipient IS NULL";
+    private static final String CONVERSATION_CUTOFF_SQL = "SELECT chat_id FROM chronology.chat WHERE %s ORDER BY chat_id DESC LIMIT 1 OFFSET ?";
+    private static final String DELETE_CONVERSATION_SQL = "DELETE FROM chronology.chat WHERE chat_id IN (SELECT chat_id FROM chronology.chat WHERE %s AND chat_id<? ORDER BY chat_id LIMIT ?)";
+    private static final String CHECKPOINT_SQL = "CHECKPOINT";
+    private static final String START_MSG = "Starting retention of messages: max age %d hours, max %d messages per conversation, max %d MB";
+    private static final String DELETED_MSG = "Retention deleted %d messages in %d ms";
+    private static final Logger LOGGER = Logger.getLogger(RetentionJob.class.getName());
+    private static RetentionJob retentionJob;
+    private final long maxAgeHours;
+    private final int maxConversationMessages;
+    private final long maxBytes;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    // Messages up to this id are checked by the conversation policy, only the job thread uses it.
+    private int checkedId;
+
+
+    private RetentionJob(long maxAgeHours, int maxConversationMessages, long maxMegabytes, int batchSize, long pauseMillis)
+    {
+        this.maxAgeHours = maxAgeHours;
+        this.maxConversationMessages = maxConversationMessages;
+        this.maxBytes = maxMegabytes * 1024 * 1024;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+
+    /**
+     * Starts the job if a retention policy is configured and the job is not running yet.
+     */
+    public static synchronized void start()
+    {
+        Configuration configuration = Configuration.getInstance();
+        long maxAgeHours = configuration.getLong(MAX_AGE_PROPERTY, 0);
+        int maxConversationMessages = configuration.getInt(MAX_CONVERSATION_MESSAGES_PROPERTY, 0);
+        long maxMegabytes = configuration.getLong(MAX_MEGABYTES_PROPERTY, 0);
+        if (retentionJob != null || maxAgeHours <= 0 && maxConversationMessages <= 0 && maxMegabytes <= 0)
+        {
+            return;
+        }
+        long interval = configuration.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_MINUTES);
+        retentionJob = new RetentionJob(maxAgeHours, maxConversationMessages, maxMegabytes,
+                                        configuration.getInt(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE),
+                                        configuration.getLong(PAUSE_PROPERTY, DEFAULT_PAUSE_MILLIS));
+        LOGGER.log(Level.INFO, String.format(START_MSG, maxAgeHours, maxConversationMessages, maxMegabytes));
+        retentionJob.executor.scheduleWithFixedDelay(retentionJob, 0, interval, TimeUnit.MINUTES);
+    }
+
+
+    /**
+     * Stops the job if it is running, a batch in progress is finished. The job thread is not interrupted, since H2 closes its file when
+     * a thread is interrupted while accessing it. Called on graceful shutdown of the server before the Database is closed.
+     */
+    public static synchronized void shutdown()
+    {
+        if (retentionJob == null)
+        {
+            return;
+        }
+        retentionJob.stopped.countDown();
+        retentionJob.executor.shutdown();
+        try
+        {
+            retentionJob.executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        retentionJob = null;
+    }
+
+
+    @Override
+    public void run()
+    {
+        long start = System.nanoTime();
+        long deleted = 0;
+        try
+        {
+            if (maxAgeHours > 0)
+            {
+                deleted += deleteExpired();
+            }
+            if (maxConversationMessages > 0)
+            {
+                deleted += deleteFromLargeConversations();
+            }
+            if (maxBytes > 0)
+            {
+                deleted += deleteOverSize();
+            }
+            if (deleted > 0)
+            {
+                checkpoint();
+                LOGGER.log(Level.INFO, String.format(DELETED_MSG, deleted, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+            }
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to delete expired messages!", e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Deletes the messages older than the maximum age. The oldest messages are checked batch by batch until a batch has no expired
+     * message, messages are created in the order of their ids.
+     */
+    private long deleteExpired() throws SQLException, InterruptedException
+    {
+        Timestamp expiry = new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(maxAgeHours));
+        long deleted = 0;
+        int batch;
+        do
+        {
+            long batchStart = System.nanoTime();
+            try (SqlContext context = SqlContext.open())
+            {
+                PreparedStatement prStatement = context.prepare(DELETE_EXPIRED_SQL);
+                prStatement.setInt(1, batchSize);
+                prStatement.setTimestamp(2, expiry);
+                batch = prStatement.executeUpdate();
+            }
+            deleted += batch;
+            pause(batchStart);
+        }
+        while (batch > 0 && !isStopped());
+        return deleted;
+    }
+
+
+    /**
+     * Deletes the oldest messages while the chat table uses more disk space than allowed. The space is freed by H2 only later, so the
+     * number of messages to delete is estimated once from the average space of a message.
+     */
+    private long deleteOverSize() throws SQLException, InterruptedException
+    {
+        long excess;
+        try (SqlContext context = SqlContext.open())
+        {
+            long used;
+            long count;
+            try (ResultSet resultSet = context.prepare(SIZE_SQL).executeQuery())
+            {
+                resultSet.next();
+                used = resultSet.getLong(1);
+                count = resultSet.getLong(2);
+            }
+            if (used == 0 && count > 0)
+            {
+                used = estimateSize(context, count);
+            }
+            excess = used > maxBytes ? (long) Math.ceil((double) (used - maxBytes) * count / used) : 0;
+        }
+        long deleted = 0;
+        while (excess > 0 && !isStopped())
+        {
+            long batchStart = System.nanoTime();
+            int batch;
+            try (SqlContext context = SqlContext.open())
+            {
+                PreparedStatement prStatement = context.prepare(DELETE_OLDEST_SQL);
+                prStatement.setInt(1, (int) Math.min(batchSize, excess));
+                batch = prStatement.executeUpdate();
+            }
+            if (batch == 0)
+            {
+                break;
+            }
+            deleted += batch;
+            excess -= batch;
+            pause(batchStart);
+        }
+        return deleted;
+    }
+
+
+    /**
+     * Estimates the disk space of the chat table from the newest messages. The MVStore of H2 1.4 reports no disk space per table.
+     */
+    private long estimateSize(SqlContext context, long count) throws SQLException
+    {
+        PreparedStatement prStatement = context.prepare(SAMPLE_SIZE_SQL);
+        prStatement.setInt(1, batchSize);
+        try (ResultSet resultSet = prStatement.executeQuery())
+        {
+            resultSet.next();
+            return (long) ((resultSet.getDouble(1) + ROW_OVERHEAD_BYTES) * count);
+        }
+    }
+
+
+    /**
+     * Trims the conversations which got new messages since the last check, only those can have grown above the limit. The new messages
+     * are read in batches in the order of their ids, after every batch its conversations are trimmed. The first run after the start of
+     * the server checks all messages.
+     */
+    private long deleteFromLargeConversations() throws SQLException, InterruptedException
+    {
+        long deleted = 0;
+        while (!isStopped())
+        {
+            long batchStart = System.nanoTime();
+            Set<Conversation> conversations = new LinkedHashSet<Conversation>();
+            int lastId = checkedId;
+            try (SqlContext context = SqlContext.open())
+            {
+                PreparedStatement prStatement = context.prepare(NEW_MESSAGES_SQL);
+                prStatement.setInt(1, checkedId);
+                prStatement.setInt(2, batchSize);
+                try (ResultSet resultSet = prStatement.executeQuery())
+                {
+                    while (resultSet.next())
+                    {
+                        lastId = resultSet.getInt(1);
+                        conversations.add(Conversation.of(resultSet.getString(2), resultSet.getString(3), resultSet.getString(4)));
+                    }
+                }
+            }
+            if (conversations.isEmpty())
+            {
+                break;
+            }
+            pause(batchStart);
+            for (Conversation conversation : conversations)
+            {
+                if (isStopped())
+                {
+                    return deleted;
+                }
+                deleted += deleteFromConversation(conversation);
+            }
+            checkedId = lastId;
+        }
+        return deleted;
+    }
+
+
+    /**
+     * Deletes the messages of the conversation which are older than its newest messages kept.
+     */
+    private long deleteFromConversation(Conversation conversation) throws SQLException, InterruptedException
+    {
+        int cutoff;
+        try (SqlContext context = SqlContext.open())
+        {
+            PreparedStatement prStatement = context.prepare(String.format(CONVERSATION_CUTOFF_SQL, conversation.condition()));
+            int index = conversation.bind(prStatement);
+            prStatement.setInt(index, maxConversationMessages - 1);
+            try (ResultSet resultSet = prStatement.executeQuery())
+            {
+                if (!resultSet.next())
+                {
+                    return 0;
+                }
+                cutoff = resultSet.getInt(1);
+            }
+        }
+        long deleted = 0;
+        int batch;
+        do
+        {
+            long batchStart = System.nanoTime();
+            try (SqlContext context = SqlContext.open())
+            {
+                PreparedStatement prStatement = context.prepare(String.format(DELETE_CONVERSATION_SQL, conversation.condition()));
+                int index = conversation.bind(prStatement);
+                prStatement.setInt(index, cutoff);
+                prStatement.setInt(index + 1, batchSize);
+                batch = prStatement.executeUpdate();
+            }
+            deleted += batch;
+            pause(batchStart);
+        }
+        while (batch > 0 && !isStopped());
+        return deleted;
+    }
+
+
+    private void checkpoint() throws SQLException
+    {
+        try (SqlContext context = SqlContext.open())
+        {
+            context.prepare(CHECKPOINT_SQL).execute();
+        }
+    }
+
+
+    /**
+     * Pauses after a batch, at least the configured time and {@link #PAUSE_FACTOR} times as long as the batch took. Returns at once when
+     * the job is stopped.
+     */
+    private void pause(long batchStart) throws InterruptedException
+    {
+        long batchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart);
+        stopped.await(Math.max(pauseMillis, PAUSE_FACTOR * batchMillis), TimeUnit.MILLISECONDS);
+    }
+
+
+    private boolean isStopped()
+    {
+        return stopped.getCount() == 0;
+    }
+
+
+    /**
+     * Messages between two users, of one room or to everyone.
+     */
+    private static final class Conversation
+    {
+        private final String room;
+        private final String low;
+        private final String high;
+
+
+        private Conversation(String room, String low, String high)
+        {
+            this.room = room;
+            this.low = low;
+            this.high = high;
+        }
+
+
+        /**
+         * Returns the conversation of a message.
+         */
+        static Conversation of(String room, String sender, String recipient)
+        {
+            if (room != null || recipient == null)
+            {
+                return new Conversation(room, null, null);
+            }
+            return sender.compareTo(recipient) <= 0 ? new Conversation(null, sender, recipient) : new Conversation(null, recipient, sender);
+        }
+
+
+        String condition()
+        {
+            if (room != null)
+            {
+                return ROOM_CONVERSATION;
+            }
+            return low == null ? BROADCAST_CONVERSATION : PRIVATE_CONVERSATION;
+        }
+
+
+        /**
+         * Sets the parameters of the condition.
+         *
+         * @return the index of the next parameter.
+         */
+        int bind(PreparedStatement prStatement) throws SQLException
+        {
+            if (room != null)
+            {
+                prStatement.setString(1, room);
+                return 2;
+            }
+            if (low == null)
+            {
+                return 1;
+            }
+            prStatement.setString(1, low);
+            prStatement.setString(2, high);
+            prStatement.setString(3, high);
+            prStatement.setString(4, low);
+            return 5;
+        }
+
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Conversation))
+            {
+                return false;
+            }
+            Conversation other = (Conversation) obj;
+            return Objects.equals(room, other.room) && Objects.equals(low, other.low) && Objects.equals(high, other.high);
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(room, low, high);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * SchemaMigrations.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.database;
+
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Versioned upgrades of the schema "chronology". The version of the schema is kept in the table "chronology.schema_version", every
+ * migration with a higher version is applied in order at startup and recorded there, so existing databases are upgraded in place. The
+ * tables created by the first releases are version 0. New migrations are only appended, applied ones must never be changed.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+final class SchemaMigrations
+{
+    private static final String CREATE_VERSION_TABLE_SQL = "CREATE TABLE IF NOT EXISTS chronology.schema_version (version INT NOT NULL, description VARCHAR(200), applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY(version))";
+    private static final String CURRENT_VERSION_SQL = "SELECT COALESCE(MAX(version), 0) FROM chronology.schema_version";
+    private static final String SAVE_VERSION_SQL = "INSERT INTO chronology.schema_version (version, description) VALUES(?,?)";
+    private static final String MIGRATION_MSG = "Migrating schema to version %d: %s";
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrations.class.getName());
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+        new Migration(1, "Primary key of chat",
+                      "ALTER TABLE chronology.chat ADD CONSTRAINT IF NOT EXISTS chat_pk PRIMARY KEY (chat_id)"),
+        new Migration(2, "Indexes for history of sender and recipient",
+                      "CREATE INDEX IF NOT EXISTS chat_recipient_idx ON chronology.chat (recipient, chat_id)",
+                      "CREATE INDEX IF NOT EXISTS chat_sender_idx ON chronology.chat (sender, chat_id)"),
+        new Migration(3, "Creation time of chat",
+                      "ALTER TABLE chronology.chat ADD COLUMN IF NOT EXISTS created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL"),
+        new Migration(4, "Chat rooms",
+                      "ALTER TABLE chronology.chat ADD COLUMN IF NOT EXISTS room VARCHAR(50)",
+                      "CREATE INDEX IF NOT EXISTS chat_room_idx ON chronology.chat (room, chat_id)",
+                      "CREATE TABLE IF NOT EXISTS chronology.room_members (room VARCHAR(50) NOT NULL, username VARCHAR(50) NOT NULL, PRIMARY KEY(room, username))"),
+        new Migration(5, "Mailboxes",
+                      "CREATE TABLE IF NOT EXISTS chronology.mailbox (username VARCHAR(50) NOT NULL, acknowledged_id INT NOT NULL, PRIMARY KEY(username))"),
+        new Migration(6, "Longer messages",
+                      "ALTER TABLE chronology.chat ALTER COLUMN message VARCHAR(300)"));
+
+
+    private SchemaMigrations()
+    {}
+
+
+    /**
+     * Applies all migrations which are newer than the current version of the schema. Every migration is committed together with its
+     * version, DDL statements which commit on their own are written so that they can be repeated after a failure.
+     *
+     * @param connection to the Database with already created baseline tables.
+     * @throws SQLException if a migration fails, the schema then stays at the last successfully applied version.
+     */
+    static void migrate(Connection connection) throws SQLException
+    {
+        try (PreparedStatement prStatement = connection.prepareStatement(CREATE_VERSION_TABLE_SQL))
+        {
+            prStatement.execute();
+        }
+        int version = currentVersion(connection);
+        for (Migration migration : MIGRATIONS)
+        {
+            if (migration.version > version)
+            {
+                apply(connection, migration);
+            }
+        }
+    }
+
+
+    private static int currentVersion(Connection connection) throws SQLException
+    {
+        try (PreparedStatement prStatement = connection.prepareStatement(CURRENT_VERSION_SQL);
+                        ResultSet resultSet = prStatement.executeQuery())
+        {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+
+    private static void apply(Connection connection, Migration migration) throws SQLException
+    {
+        LOGGER.log(Level.INFO, String.format(MIGRATION_MSG, migration.version, migration.description));
+        connection.setAutoCommit(false);
+        try
+        {
+            for (String sql : migration.statements)
+            {
+                try (PreparedStatement prStatement = connection.prepareStatement(sql))
+                {
+                    prStatement.execute();
+                }
+            }
+            try (PreparedStatement prStatement = connection.prepareStatement(SAVE_VERSION_SQL))
+            {
+                prStatement.setInt(1, migration.version);
+                prStatement.setString(2, migration.description);
+                prStatement.execute();
+            }
+            connection.commit();
+        }
+        catch (SQLException e)
+        {
+            connection.rollback();
+            throw e;
+        }
+        finally
+        {
+            connection.setAutoCommit(true);
+        }
+    }
+
+
+    /**
+     * One version of the schema with the statements which upgrade the previous version to it.
+     */
+    private static final class Migration
+    {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+
+        Migration(int version, String description, String... statements)
+        {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * SqlContext.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.database;
+
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Unit of work of one thread with the {@link Database}. The first context opened by a thread is bound to it, contexts opened later by
+ * the same thread join the bound one until it is closed, so all DAO calls inside one unit of work share one connection and reuse its
+ * prepared statements. The connection is checked out of the pool only when it is needed for the first time and is returned, together
+ * with the statements, when the outermost context is closed. The statements must not be closed by the callers, their result sets
+ * should be.
+ * <p>
+ * Time spent on checkouts and statement preparation is collected in {@link SqlMetrics}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class SqlContext implements AutoCloseable
+{
+    private static final ThreadLocal<SqlContext> CURRENT = new ThreadLocal<SqlContext>();
+    private static final Logger LOGGER = Logger.getLogger(SqlContext.class.getName());
+    private final Map<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+    private Connection connection;
+    private int depth;
+
+
+    private SqlContext()
+    {}
+
+
+    /**
+     * Opens a unit of work on the current thread, or joins the one which is already open. Every call must be paired with
+     * {@link #close()}, best with try-with-resources.
+     *
+     * @return the context bound to the current thread.
+     */
+    public static SqlContext open()
+    {
+        SqlContext context = CURRENT.get();
+        if (context == null)
+        {
+            context = new SqlContext();
+            CURRENT.set(context);
+        }
+        context.depth++;
+        return context;
+    }
+
+
+    /**
+     * Gets the connection of this unit of work, checks it out of the pool on first use or if it has been closed meanwhile.
+     *
+     * @return the pinned {@link Connection}, which must not be closed by the caller.
+     * @throws SQLException if connection can't be established.
+     */
+    public Connection getConnection() throws SQLException
+    {
+        if (connection == null || connection.isClosed())
+        {
+            release();
+            Database database = Database.getInstance();
+            long start = System.nanoTime();
+            connection = database.getConnection();
+            SqlMetrics.recordCheckout(System.nanoTime() - start);
+        }
+        return connection;
+    }
+
+
+    /**
+     * Gets a prepared statement for the given SQL, reusing the one prepared earlier in this unit of work.
+     *
+     * @param sql to prepare.
+     * @return the statement with cleared parameters, which must not be closed by the caller.
+     * @throws SQLException if the statement can't be prepared.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException
+    {
+        return prepare(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+
+    /**
+     * Gets a prepared statement for the given SQL, reusing the one prepared earlier in this unit of work. Statements are cached by their
+     * SQL only, so the same SQL must always be prepared with the same generated keys flag.
+     *
+     * @param sql to prepare.
+     * @param autoGeneratedKeys is {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}.
+     * @return the statement with cleared parameters, which must not be closed by the caller.
+     * @throws SQLException if the statement can't be prepared.
+     */
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException
+    {
+        Connection current = getConnection();
+        PreparedStatement prStatement = statements.get(sql);
+        if (prStatement != null && !prStatement.isClosed())
+        {
+            prStatement.clearParameters();
+            SqlMetrics.recordReuse();
+            return prStatement;
+        }
+        long start = System.nanoTime();
+        prStatement = current.prepareStatement(sql, autoGeneratedKeys);
+        SqlMetrics.recordPrepare(System.nanoTime() - start);
+        statements.put(sql, prStatement);
+        return prStatement;
+    }
+
+
+    /**
+     * Leaves the unit of work. The outermost call unbinds the context from the thread, closes its statements and returns its connection
+     * to the pool.
+     */
+    @Override
+    public void close()
+    {
+        if (--depth > 0)
+        {
+            return;
+        }
+        CURRENT.remove();
+        release();
+    }
+
+
+    private void release()
+    {
+        for (PreparedStatement prStatement : statements.values())
+        {
+            try
+            {
+                prStatement.close();
+            }
+            catch (SQLException e)
+            {
+                LOGGER.log(Level.INFO, "Prepared statement is not closed!", e);
+            }
+        }
+        statements.clear();
+        if (connection != null)
+        {
+            try
+            {
+                connection.close();
+            }
+            catch (SQLException e)
+            {
+                LOGGER.log(Level.INFO, "Connection is not returned to the pool!", e);
+            }
+            connection = null;
+        }
+    }
+}
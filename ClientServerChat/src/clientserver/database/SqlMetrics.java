@@ -0,0 +1,101 @@
+/*
+ * SqlMetrics.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.database;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counters of the work done by the {@link SqlContext}s of all threads: connection checkouts from the pool, prepared statements and
+ * prepared statements reused from the cache of a context, with the total time spent on checkouts and on preparation.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class SqlMetrics
+{
+    private static final String SUMMARY_FORMAT = "checkouts: %d (%.3f ms), prepared statements: %d (%.3f ms), reused statements: %d";
+    private static final LongAdder CHECKOUTS = new LongAdder();
+    private static final LongAdder CHECKOUT_NANOS = new LongAdder();
+    private static final LongAdder PREPARES = new LongAdder();
+    private static final LongAdder PREPARE_NANOS = new LongAdder();
+    private static final LongAdder REUSES = new LongAdder();
+
+
+    private SqlMetrics()
+    {}
+
+
+    static void recordCheckout(long nanos)
+    {
+        CHECKOUTS.increment();
+        CHECKOUT_NANOS.add(nanos);
+    }
+
+
+    static void recordPrepare(long nanos)
+    {
+        PREPARES.increment();
+        PREPARE_NANOS.add(nanos);
+    }
+
+
+    static void recordReuse()
+    {
+        REUSES.increment();
+    }
+
+
+    public static long getCheckoutCount()
+    {
+        return CHECKOUTS.sum();
+    }
+
+
+    public static long getCheckoutNanos()
+    {
+        return CHECKOUT_NANOS.sum();
+    }
+
+
+    public static long getPrepareCount()
+    {
+        return PREPARES.sum();
+    }
+
+
+    public static long getPrepareNanos()
+    {
+        return PREPARE_NANOS.sum();
+    }
+
+
+    public static long getReuseCount()
+    {
+        return REUSES.sum();
+    }
+
+
+    /**
+     * Formats the current values of all counters.
+     *
+     * @return one line summary.
+     */
+    public static String summary()
+    {
+        return String.format(SUMMARY_FORMAT, getCheckoutCount(), toMillis(getCheckoutNanos()), getPrepareCount(),
+                             toMillis(getPrepareNanos()), getReuseCount());
+    }
+
+
+    private static double toMillis(long nanos)
+    {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -18,6 +18,7 @@ public class ChatEntity
     private Integer id;
     private String sender;
     private String recipient;
+    private String room;
     private String message;
 
 
@@ -27,6 +28,12 @@ public class ChatEntity
     }
 
 
+    public void setId(Integer id)
+    {
+        this.id = id;
+    }
+
+
     public String getSender()
     {
         return sender;
@@ -51,6 +58,34 @@ public class ChatEntity
     }
 
 
+    /**
+     * Messages to a room have the room instead of a recipient.
+     *
+     * @return the name of the room, null if the message is not addressed to a room.
+     */
+    public String getRoom()
+    {
+        return room;
+    }
+
+
+    public void setRoom(String room)
+    {
+        this.room = room;
+    }
+
+
+    /**
+     * Messages to everyone are stored once without recipient and room.
+     *
+     * @return true if the message is addressed to all users.
+     */
+    public boolean isBroadcast()
+    {
+        return recipient == null && room == null;
+    }
+
+
     public String getMessage()
     {
         return message;
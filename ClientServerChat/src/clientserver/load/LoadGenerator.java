@@ -0,0 +1,280 @@
+/*
+ * LoadGenerator.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.load;
+
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.client.ChatClient;
+import clientserver.client.ClientException;
+import clientserver.config.Configuration;
+import clientserver.server.ChatServer;
+
+
+/**
+ * Headless load test of the {@link ChatServer}. Connects the given number of {@link SimulatedUser}s, which send messages and request
+ * updates with the protocol of the {@link ChatClient}, and reports throughput, delivery and update latencies and error rates. By default
+ * the server is started in this JVM on a free port of localhost with in-memory storage, so the results do not depend on the network.
+ * <p>
+ * Settings: "chat.load.users" (1000), "chat.load.messagesPerMinute" (per user, 12), "chat.load.privatePercent" (share of the messages
+ * sent to one random user instead of everyone, 90), "chat.load.updateIntervalSeconds" (per user, 30, 0 for no updates),
+ * "chat.load.warmupSeconds" (10), "chat.load.durationSeconds" (60), "chat.load.drainSeconds" (time to wait for messages still in
+ * flight, 5) and "chat.load.threads" (sending threads, 4). With "chat.load.embedded" switched off the test connects to the server at
+ * "chat.load.host" and "chat.server.port" instead. The settings of the embedded server and of the clients apply as well, like
+ * "chat.storage", "chat.server.mode" or "chat.client.compression".
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class LoadGenerator
+{
+    private static final String USERS_PROPERTY = "chat.load.users";
+    private static final String RATE_PROPERTY = "chat.load.messagesPerMinute";
+    private static final String PRIVATE_PERCENT_PROPERTY = "chat.load.privatePercent";
+    private static final String UPDATE_INTERVAL_PROPERTY = "chat.load.updateIntervalSeconds";
+    private static final String WARMUP_PROPERTY = "chat.load.warmupSeconds";
+    private static final String DURATION_PROPERTY = "chat.load.durationSeconds";
+    private static final String DRAIN_PROPERTY = "chat.load.drainSeconds";
+    private static final String THREADS_PROPERTY = "chat.load.threads";
+    private static final String EMBEDDED_PROPERTY = "chat.load.embedded";
+    private static final String HOST_PROPERTY = "chat.load.host";
+    private static final String PORT_PROPERTY = "chat.server.port";
+    private static final String STORAGE_PROPERTY = "chat.storage";
+    private static final String FILES_PROPERTY = "chat.files.enabled";
+    private static final String EMBEDDED_STORAGE = "MEMORY";
+    private static final String DEFAULT_HOST = "localhost";
+    private static final int DEFAULT_PORT = 7777;
+    private static final int DEFAULT_USERS = 1000;
+    private static final int DEFAULT_MESSAGES_PER_MINUTE = 12;
+    private static final int DEFAULT_PRIVATE_PERCENT = 90;
+    private static final long DEFAULT_UPDATE_INTERVAL_SECONDS = 30;
+    private static final long DEFAULT_WARMUP_SECONDS = 10;
+    private static final long DEFAULT_DURATION_SECONDS = 60;
+    private static final long DEFAULT_DRAIN_SECONDS = 5;
+    private static final int DEFAULT_THREADS = 4;
+    private static final long SERVER_START_TIMEOUT_MILLIS = 30_000;
+    private static final long SERVER_POLL_MILLIS = 100;
+    private static final String USERNAME_PREFIX = "load_";
+    private static final String SERVER_THREAD_NAME = "chat-load-server";
+    private static final String SENDER_THREAD_NAME = "chat-load-sender";
+    private static final String SETTINGS_FORMAT = "%d users, %d messages/minute each, %d%% private, update every %d s, "
+                                                  + "%d s measured after %d s warm-up%n";
+    private static final Logger LOGGER = Logger.getLogger(LoadGenerator.class.getName());
+    private final int users;
+    private final int messagesPerMinute;
+    private final int privatePercent;
+    private final long updateIntervalSeconds;
+    private final long warmupSeconds;
+    private final long durationSeconds;
+    private final long drainSeconds;
+    private final int threads;
+    private final String host;
+    private final int port;
+    private final LoadStatistics statistics = new LoadStatistics();
+
+
+    private LoadGenerator(String host, int port)
+    {
+        Configuration configuration = Configuration.getInstance();
+        users = configuration.getInt(USERS_PROPERTY, DEFAULT_USERS);
+        messagesPerMinute = configuration.getInt(RATE_PROPERTY, DEFAULT_MESSAGES_PER_MINUTE);
+        privatePercent = configuration.getInt(PRIVATE_PERCENT_PROPERTY, DEFAULT_PRIVATE_PERCENT);
+        updateIntervalSeconds = configuration.getLong(UPDATE_INTERVAL_PROPERTY, DEFAULT_UPDATE_INTERVAL_SECONDS);
+        warmupSeconds = configuration.getLong(WARMUP_PROPERTY, DEFAULT_WARMUP_SECONDS);
+        durationSeconds = configuration.getLong(DURATION_PROPERTY, DEFAULT_DURATION_SECONDS);
+        drainSeconds = configuration.getLong(DRAIN_PROPERTY, DEFAULT_DRAIN_SECONDS);
+        threads = configuration.getInt(THREADS_PROPERTY, DEFAULT_THREADS);
+        this.host = host;
+        this.port = port;
+    }
+
+
+    /**
+     * Connects the users, runs the warm-up and the measurement and disconnects the users again.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private void run() throws InterruptedException
+    {
+        List<SimulatedUser> clients = connect();
+        if (clients.size() < 2)
+        {
+            throw new ClientException("Not enough users connected to the server!");
+        }
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, SENDER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try
+        {
+            schedule(executor, clients);
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            statistics.start();
+            TimeUnit.SECONDS.sleep(durationSeconds);
+            statistics.stop();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        TimeUnit.SECONDS.sleep(drainSeconds);
+        for (SimulatedUser client : clients)
+        {
+            client.close();
+        }
+    }
+
+
+    private List<SimulatedUser> connect()
+    {
+        List<SimulatedUser> clients = new ArrayList<SimulatedUser>(users);
+        for (int i = 0; i < users; i++)
+        {
+            SimulatedUser client = new SimulatedUser(USERNAME_PREFIX + i, host, port, statistics);
+            try
+            {
+                client.connect();
+                clients.add(client);
+            }
+            catch (ClientException e)
+            {
+                LOGGER.log(Level.WARNING, "Failed to connect user " + i + "!", e);
+            }
+        }
+        LOGGER.log(Level.INFO, "Connected " + clients.size() + " users");
+        return clients;
+    }
+
+
+    /**
+     * Schedules the messages and updates of every user with a random offset, so the load is spread evenly over time.
+     */
+    private void schedule(ScheduledExecutorService executor, List<SimulatedUser> clients)
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long messagePeriodMicros = messagesPerMinute > 0 ? TimeUnit.MINUTES.toMicros(1) / messagesPerMinute : 0;
+        long updatePeriodMicros = TimeUnit.SECONDS.toMicros(updateIntervalSeconds);
+        for (int i = 0; i < clients.size(); i++)
+        {
+            SimulatedUser client = clients.get(i);
+            int index = i;
+            if (messagePeriodMicros > 0)
+            {
+                executor.scheduleAtFixedRate(() -> sendMessage(clients, index), random.nextLong(messagePeriodMicros),
+                                             messagePeriodMicros, TimeUnit.MICROSECONDS);
+            }
+            if (updatePeriodMicros > 0)
+            {
+                executor.scheduleAtFixedRate(client::requestUpdate, random.nextLong(updatePeriodMicros), updatePeriodMicros,
+                                             TimeUnit.MICROSECONDS);
+            }
+        }
+    }
+
+
+    private void sendMessage(List<SimulatedUser> clients, int sender)
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) >= privatePercent)
+        {
+            clients.get(sender).sendLoadMessage(null, clients.size() - 1);
+            return;
+        }
+        int recipient = random.nextInt(clients.size() - 1);
+        recipient = recipient >= sender ? recipient + 1 : recipient;
+        clients.get(sender).sendLoadMessage(clients.get(recipient).getUsername(), 1);
+    }
+
+
+    /**
+     * Starts the {@link ChatServer} on a daemon thread and waits until it accepts connections. Settings of the server which are not
+     * configured default to a free port, in-memory storage and no file transfers.
+     *
+     * @return the port of the server.
+     */
+    private static int startEmbeddedServer() throws IOException, InterruptedException
+    {
+        Configuration configuration = Configuration.getInstance();
+        if (configuration.getString(PORT_PROPERTY, null) == null)
+        {
+            try (ServerSocket socket = new ServerSocket(0))
+            {
+                System.setProperty(PORT_PROPERTY, String.valueOf(socket.getLocalPort()));
+            }
+        }
+        if (configuration.getString(STORAGE_PROPERTY, null) == null)
+        {
+            System.setProperty(STORAGE_PROPERTY, EMBEDDED_STORAGE);
+        }
+        if (configuration.getString(FILES_PROPERTY, null) == null)
+        {
+            System.setProperty(FILES_PROPERTY, String.valueOf(false));
+        }
+        int port = configuration.getInt(PORT_PROPERTY, DEFAULT_PORT);
+        Thread server = new Thread(() -> ChatServer.main(new String[0]), SERVER_THREAD_NAME);
+        server.setDaemon(true);
+        server.start();
+        long deadline = System.currentTimeMillis() + SERVER_START_TIMEOUT_MILLIS;
+        while (true)
+        {
+            try
+            {
+                new Socket(DEFAULT_HOST, port).close();
+                return port;
+            }
+            catch (IOException e)
+            {
+                if (!server.isAlive() || System.currentTimeMillis() > deadline)
+                {
+                    throw new IOException("Embedded server did not start!", e);
+                }
+                Thread.sleep(SERVER_POLL_MILLIS);
+            }
+        }
+    }
+
+
+    /**
+     * Entry point of the load test, configured by system properties or the configuration file.
+     *
+     * @param args are not used.
+     * @throws IOException if the embedded server can't be started.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        Configuration configuration = Configuration.getInstance();
+        String host = configuration.getString(HOST_PROPERTY, DEFAULT_HOST);
+        int port;
+        if (configuration.getBoolean(EMBEDDED_PROPERTY, true))
+        {
+            host = DEFAULT_HOST;
+            port = startEmbeddedServer();
+        }
+        else
+        {
+            port = configuration.getInt(PORT_PROPERTY, DEFAULT_PORT);
+        }
+        LoadGenerator generator = new LoadGenerator(host, port);
+        System.out.printf(SETTINGS_FORMAT, generator.users, generator.messagesPerMinute, generator.privatePercent,
+                          generator.updateIntervalSeconds, generator.durationSeconds, generator.warmupSeconds);
+        generator.run();
+        generator.statistics.report(System.out);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * LoadStatistics.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.load;
+
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import clientserver.metrics.LatencyHistogram;
+
+
+/**
+ * Results of a load test, shared by all {@link SimulatedUser}s. Only messages sent and updates requested within the measurement window
+ * are counted, so the warm-up and the messages still in flight when the window is closed do not distort the results.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+final class LoadStatistics
+{
+    private static final String THROUGHPUT_FORMAT = "%-20s %10d %12.1f/s%n";
+    private static final String LATENCY_FORMAT = "%-20s %10d   p50 %10.1f us   p99 %10.1f us   p999 %10.1f us   max %10.1f us%n";
+    private static final String ERRORS_FORMAT = "%-20s %10d %12.3f%%%n";
+    private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+    private final LatencyHistogram updateLatency = new LatencyHistogram();
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder expectedDeliveries = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder sendErrors = new LongAdder();
+    private final LongAdder errorReplies = new LongAdder();
+    private final LongAdder behind = new LongAdder();
+    private volatile long windowStart = Long.MAX_VALUE;
+    private volatile long windowEnd = Long.MAX_VALUE;
+
+
+    /**
+     * Opens the measurement window.
+     */
+    void start()
+    {
+        windowStart = System.nanoTime();
+    }
+
+
+    /**
+     * Closes the measurement window. Messages sent until now are still counted when they are delivered.
+     */
+    void stop()
+    {
+        windowEnd = System.nanoTime();
+    }
+
+
+    /**
+     * @param sentNanos is the {@link System#nanoTime()} when a message was sent or a request was made.
+     * @return true if the message or request belongs to the measurement.
+     */
+    boolean isMeasured(long sentNanos)
+    {
+        return sentNanos >= windowStart && sentNanos < windowEnd;
+    }
+
+
+    /**
+     * @param recipients is the number of users the message should be pushed to.
+     */
+    void recordSent(long sentNanos, int recipients)
+    {
+        if (isMeasured(sentNanos))
+        {
+            sentMessages.increment();
+            expectedDeliveries.add(recipients);
+        }
+    }
+
+
+    void recordDelivery(long sentNanos)
+    {
+        if (isMeasured(sentNanos))
+        {
+            deliveryLatency.record(System.nanoTime() - sentNanos);
+        }
+    }
+
+
+    void recordUpdate(long sentNanos)
+    {
+        if (isMeasured(sentNanos))
+        {
+            updates.increment();
+            updateLatency.record(System.nanoTime() - sentNanos);
+        }
+    }
+
+
+    /**
+     * Counts a message or a request which could not be sent to the server.
+     */
+    void recordSendError(long sentNanos)
+    {
+        if (isMeasured(sentNanos))
+        {
+            sendErrors.increment();
+        }
+    }
+
+
+    /**
+     * Counts a notice of the server that pushed messages have been dropped, while the measurement window is open.
+     */
+    void recordBehind()
+    {
+        if (isMeasured(System.nanoTime()))
+        {
+            behind.increment();
+        }
+    }
+
+
+    /**
+     * Counts an error message replied by the server while the measurement window is open.
+     */
+    void recordErrorReply()
+    {
+        if (isMeasured(System.nanoTime()))
+        {
+            errorReplies.increment();
+        }
+    }
+
+
+    /**
+     * Prints throughput, latencies and error rates of the measurement window.
+     *
+     * @param out to print to.
+     */
+    void report(PrintStream out)
+    {
+        double seconds = (windowEnd - windowStart) / (double) TimeUnit.SECONDS.toNanos(1);
+        long sent = sentMessages.sum();
+        long delivered = deliveryLatency.getCount();
+        long undelivered = Math.max(0, expectedDeliveries.sum() - delivered);
+        long requests = sent + updates.sum();
+        out.printf(THROUGHPUT_FORMAT, "messages sent", sent, sent / seconds);
+        out.printf(THROUGHPUT_FORMAT, "messages delivered", delivered, delivered / seconds);
+        out.printf(THROUGHPUT_FORMAT, "updates", updates.sum(), updates.sum() / seconds);
+        out.printf(LATENCY_FORMAT, "delivery latency", delivered, deliveryLatency.getP50Micros(), deliveryLatency.getP99Micros(),
+                   deliveryLatency.getP999Micros(), deliveryLatency.getMaxMicros());
+        out.printf(LATENCY_FORMAT, "update latency", updates.sum(), updateLatency.getP50Micros(), updateLatency.getP99Micros(),
+                   updateLatency.getP999Micros(), updateLatency.getMaxMicros());
+        out.printf(ERRORS_FORMAT, "undelivered", undelivered, percent(undelivered, expectedDeliveries.sum()));
+        out.printf(ERRORS_FORMAT, "fell behind", behind.sum(), percent(behind.sum(), requests));
+        out.printf(ERRORS_FORMAT, "send errors", sendErrors.sum(), percent(sendErrors.sum(), requests));
+        out.printf(ERRORS_FORMAT, "error replies", errorReplies.sum(), percent(errorReplies.sum(), requests));
+    }
+
+
+    private static double percent(long part, long total)
+    {
+        return total == 0 ? 0 : 100.0 * part / total;
+    }
+}
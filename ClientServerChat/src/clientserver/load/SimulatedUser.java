@@ -0,0 +1,172 @@
+/*
+ * SimulatedUser.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.load;
+
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.client.ChatClient;
+import clientserver.client.ClientException;
+
+
+/**
+ * {@link ChatClient} of a load test. Every message carries the time it was sent, so the recipients can measure the delivery latency,
+ * and every update request is timed until its end-of-history marker. Nothing is printed, the results go to the {@link LoadStatistics}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+class SimulatedUser extends ChatClient
+{
+    private static final String SPACE_SEPARATOR = " ";
+    private static final String PRIVATE_MSG_PREFIX = "@";
+    private static final String LOAD_MSG_PREFIX = "load ";
+    private static final String LOAD_MSG_MARKER = SPACE_SEPARATOR + LOAD_MSG_PREFIX;
+    private static final String MESSAGE_SEPARATOR = "#";
+    private static final String ID_PREFIX = "id: ";
+    private static final String HISTORY_END = "!end";
+    private static final String BEHIND_MSG = "!behind";
+    private static final String UPDATE_SINCE_CMD = "!update since ";
+    private static final Logger LOGGER = Logger.getLogger(SimulatedUser.class.getName());
+    private final String username;
+    private final LoadStatistics statistics;
+    private volatile long updateSentNanos;
+    private volatile int lastSeenId;
+
+
+    SimulatedUser(String username, String host, int port, LoadStatistics statistics)
+    {
+        super(username, host, port);
+        this.username = username;
+        this.statistics = statistics;
+    }
+
+
+    String getUsername()
+    {
+        return username;
+    }
+
+
+    /**
+     * Sends a message to one user or, if the recipient is null, to everyone.
+     *
+     * @param recipient of the message, null for a broadcast.
+     * @param recipients is the number of users the server should push the message to.
+     */
+    void sendLoadMessage(String recipient, int recipients)
+    {
+        long sentNanos = System.nanoTime();
+        String message = LOAD_MSG_PREFIX + sentNanos;
+        try
+        {
+            sendMessage(recipient == null ? message : PRIVATE_MSG_PREFIX + recipient + SPACE_SEPARATOR + message);
+            statistics.recordSent(sentNanos, recipients);
+        }
+        catch (ClientException e)
+        {
+            LOGGER.log(Level.FINE, "Failed to send message!", e);
+            statistics.recordSendError(sentNanos);
+        }
+    }
+
+
+    /**
+     * Requests the messages after the last one seen, like a client catching up. Skipped while the previous request is not answered.
+     */
+    void requestUpdate()
+    {
+        if (updateSentNanos != 0)
+        {
+            return;
+        }
+        long sentNanos = System.nanoTime();
+        updateSentNanos = sentNanos;
+        try
+        {
+            sendMessage(UPDATE_SINCE_CMD + lastSeenId);
+        }
+        catch (ClientException e)
+        {
+            LOGGER.log(Level.FINE, "Failed to request update!", e);
+            updateSentNanos = 0;
+            statistics.recordSendError(sentNanos);
+        }
+    }
+
+
+    /**
+     * Measures pushed messages, which are sent one per line, and the end of the history, pages of history end with the separator and
+     * are only used to move the cursor. Messages dropped by the server are requested from the history. Anything else is an error
+     * reply of the server.
+     */
+    @Override
+    protected void received(String line)
+    {
+        if (line.equals(BEHIND_MSG))
+        {
+            statistics.recordBehind();
+            catchUp();
+        }
+        else if (line.equals(HISTORY_END))
+        {
+            long sentNanos = updateSentNanos;
+            updateSentNanos = 0;
+            if (sentNanos != 0)
+            {
+                statistics.recordUpdate(sentNanos);
+            }
+        }
+        else if (!line.startsWith(ID_PREFIX))
+        {
+            statistics.recordErrorReply();
+        }
+        else if (line.endsWith(MESSAGE_SEPARATOR))
+        {
+            String[] entries = line.split(MESSAGE_SEPARATOR);
+            trackId(entries[entries.length - 1]);
+        }
+        else
+        {
+            trackId(line);
+            int marker = line.lastIndexOf(LOAD_MSG_MARKER);
+            if (marker >= 0)
+            {
+                statistics.recordDelivery(Long.parseLong(line.substring(marker + LOAD_MSG_MARKER.length())));
+            }
+        }
+    }
+
+
+    /**
+     * Requests the messages after the last one seen by this user, not timed.
+     */
+    @Override
+    protected void catchUp()
+    {
+        try
+        {
+            sendMessage(UPDATE_SINCE_CMD + lastSeenId);
+        }
+        catch (ClientException e)
+        {
+            LOGGER.log(Level.FINE, "Failed to request missed messages!", e);
+            statistics.recordSendError(System.nanoTime());
+        }
+    }
+
+
+    private void trackId(String entry)
+    {
+        int idEnd = entry.indexOf(SPACE_SEPARATOR, ID_PREFIX.length());
+        if (idEnd > 0)
+        {
+            lastSeenId = Math.max(lastSeenId, Integer.parseInt(entry.substring(ID_PREFIX.length(), idEnd)));
+        }
+    }
+}
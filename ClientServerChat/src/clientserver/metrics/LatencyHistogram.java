@@ -0,0 +1,173 @@
+/*
+ * LatencyHistogram.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.metrics;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Histogram of durations in nanoseconds with a fixed set of buckets: every power of two is split into eight buckets, so a reported
+ * percentile is at most 12.5% above the recorded value. Recording updates one bucket, the sum and maybe the maximum with atomic
+ * operations and does not allocate, so it can be used on every request. Percentiles are computed when they are read.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class LatencyHistogram implements LatencyHistogramMXBean
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final String SUMMARY_FORMAT = "%d calls, mean %.1f us, p50 %.1f us, p99 %.1f us, p999 %.1f us, max %.1f us";
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+
+    /**
+     * Records one duration, negative durations are recorded as 0.
+     *
+     * @param nanos is the duration in nanoseconds.
+     */
+    public void record(long nanos)
+    {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucket(value));
+        sum.addAndGet(value);
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value))
+        {
+            // retry until the maximum is at least the value
+        }
+    }
+
+
+    @Override
+    public long getCount()
+    {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+
+    @Override
+    public double getMeanMicros()
+    {
+        long count = getCount();
+        return count == 0 ? 0 : toMicros(sum.get()) / count;
+    }
+
+
+    @Override
+    public double getMaxMicros()
+    {
+        return toMicros(max.get());
+    }
+
+
+    @Override
+    public double getP50Micros()
+    {
+        return toMicros(getPercentileNanos(0.5));
+    }
+
+
+    @Override
+    public double getP99Micros()
+    {
+        return toMicros(getPercentileNanos(0.99));
+    }
+
+
+    @Override
+    public double getP999Micros()
+    {
+        return toMicros(getPercentileNanos(0.999));
+    }
+
+
+    /**
+     * Gets the duration which the given fraction of the recorded durations does not exceed, rounded up to the end of its bucket.
+     *
+     * @param fraction between 0 and 1.
+     * @return the duration in nanoseconds, 0 if nothing has been recorded.
+     */
+    public long getPercentileNanos(double fraction)
+    {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0)
+            {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return 0;
+    }
+
+
+    /**
+     * Formats the count, mean, percentiles and maximum.
+     *
+     * @return one line summary.
+     */
+    public String summary()
+    {
+        return String.format(SUMMARY_FORMAT, getCount(), getMeanMicros(), getP50Micros(), getP99Micros(), getP999Micros(),
+                             getMaxMicros());
+    }
+
+
+    /**
+     * Values below {@link #SUB_BUCKETS} have a bucket each, larger values are grouped by their highest bit and the next
+     * {@link #SUB_BUCKET_BITS} bits.
+     */
+    private static int bucket(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+
+    private static long upperBound(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+
+    private static double toMicros(long nanos)
+    {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * LatencyHistogramMXBean.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.metrics;
+
+
+/**
+ * JMX view of a {@link LatencyHistogram}, all times in microseconds.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public interface LatencyHistogramMXBean
+{
+    public long getCount();
+
+
+    public double getMeanMicros();
+
+
+    public double getMaxMicros();
+
+
+    public double getP50Micros();
+
+
+    public double getP99Micros();
+
+
+    public double getP999Micros();
+}
@@ -0,0 +1,384 @@
+/*
+ * ServerMetrics.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.metrics;
+
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import clientserver.config.Configuration;
+import clientserver.database.SqlMetrics;
+
+
+/**
+ * Counters and {@link LatencyHistogram}s of the server: open sessions, bytes read and written, delivered messages, errors, queued and
+ * dropped pushes and the latencies registered with {@link #histogram(String)}. Callers keep the histograms they record to, so
+ * recording only updates counters. Everything is published as MXBeans under the domain "clientserver" by {@link #start()}, which also
+ * samples the message rate every "chat.metrics.intervalSeconds" and, if "chat.metrics.log" is switched on, logs all values with the
+ * same interval.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public final class ServerMetrics implements ServerMetricsMXBean
+{
+    private static final String DOMAIN = "clientserver";
+    private static final String TYPE_SERVER = "Server";
+    private static final String TYPE_LATENCY = "Latency";
+    private static final String INTERVAL_PROPERTY = "chat.metrics.intervalSeconds";
+    private static final String LOG_PROPERTY = "chat.metrics.log";
+    private static final long DEFAULT_INTERVAL_SECONDS = 60;
+    private static final String THREAD_NAME = "chat-metrics";
+    private static final String SUMMARY_FORMAT = "sessions: %d, bytes in: %d, bytes out: %d, messages: %d (%.1f/s), client errors: %d, "
+                                                 + "dao errors: %d, queued pushes: %d, dropped pushes: %d, slow consumers disconnected: "
+                                                 + "%d, pull fallbacks: %d";
+    private static final Logger LOGGER = Logger.getLogger(ServerMetrics.class.getName());
+    private static ServerMetrics serverMetrics;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder daoErrors = new LongAdder();
+    private final LongAdder outboundQueued = new LongAdder();
+    private final LongAdder outboundDrops = new LongAdder();
+    private final LongAdder slowConsumerDisconnects = new LongAdder();
+    private final LongAdder pullFallbacks = new LongAdder();
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<String, LatencyHistogram>();
+    private volatile double messagesPerSecond;
+    private long sampledMessages;
+    private long sampledNanos = System.nanoTime();
+    private ScheduledExecutorService executor;
+
+
+    private ServerMetrics()
+    {}
+
+
+    public static synchronized ServerMetrics getInstance()
+    {
+        if (serverMetrics == null)
+        {
+            serverMetrics = new ServerMetrics();
+        }
+        return serverMetrics;
+    }
+
+
+    /**
+     * Publishes the metrics over JMX and starts sampling them. Does nothing if they are already started.
+     */
+    public synchronized void start()
+    {
+        if (executor != null)
+        {
+            return;
+        }
+        register(TYPE_SERVER, null, this);
+        Configuration configuration = Configuration.getInstance();
+        long interval = configuration.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS);
+        boolean log = configuration.getBoolean(LOG_PROPERTY, false);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            sample();
+            if (log)
+            {
+                LOGGER.log(Level.INFO, summary());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+
+    /**
+     * Gets the histogram with the given name, creates it and publishes it over JMX if it does not exist yet. Meant to be called once per
+     * measured operation, not for every recording.
+     *
+     * @param name of the histogram, like "command.update".
+     * @return the histogram.
+     */
+    public LatencyHistogram histogram(String name)
+    {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null)
+        {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null)
+            {
+                histogram = created;
+                register(TYPE_LATENCY, name, created);
+            }
+        }
+        return histogram;
+    }
+
+
+    /**
+     * Publishes an MXBean under the domain of the server. Failures are logged, metrics are never worth failing the server for.
+     *
+     * @param type of the bean.
+     * @param name of the bean, null if there is only one bean of the type.
+     * @param bean to publish.
+     */
+    public static void register(String type, String name, Object bean)
+    {
+        try
+        {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + (name == null ? "" : ",name=" + name));
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(objectName))
+            {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(bean, objectName);
+            }
+        }
+        catch (JMException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to publish metrics " + type + " " + name, e);
+        }
+    }
+
+
+    public void sessionOpened()
+    {
+        sessions.incrementAndGet();
+    }
+
+
+    public void sessionClosed()
+    {
+        sessions.decrementAndGet();
+    }
+
+
+    public void recordBytesIn(long bytes)
+    {
+        bytesIn.add(bytes);
+    }
+
+
+    public void recordBytesOut(long bytes)
+    {
+        bytesOut.add(bytes);
+    }
+
+
+    public void recordMessage()
+    {
+        messages.increment();
+    }
+
+
+    /**
+     * Counts invalid input and failed communication with a client.
+     */
+    public void recordClientError()
+    {
+        clientErrors.increment();
+    }
+
+
+    public void recordDaoError()
+    {
+        daoErrors.increment();
+    }
+
+
+    /**
+     * Counts a message queued for a client, see {@link clientserver.server.OutboundQueue}.
+     */
+    public void recordOutboundQueued()
+    {
+        outboundQueued.increment();
+    }
+
+
+    /**
+     * Counts messages taken from the queue of a client, written or discarded.
+     *
+     * @param count of the messages.
+     */
+    public void recordOutboundDequeued(int count)
+    {
+        outboundQueued.add(-count);
+    }
+
+
+    /**
+     * Counts a message not pushed to a slow client because its queue is full.
+     */
+    public void recordOutboundDrop()
+    {
+        outboundDrops.increment();
+    }
+
+
+    public void recordSlowConsumerDisconnect()
+    {
+        slowConsumerDisconnects.increment();
+    }
+
+
+    public void recordPullFallback()
+    {
+        pullFallbacks.increment();
+    }
+
+
+    @Override
+    public int getActiveSessions()
+    {
+        return sessions.get();
+    }
+
+
+    @Override
+    public long getBytesIn()
+    {
+        return bytesIn.sum();
+    }
+
+
+    @Override
+    public long getBytesOut()
+    {
+        return bytesOut.sum();
+    }
+
+
+    @Override
+    public long getMessageCount()
+    {
+        return messages.sum();
+    }
+
+
+    /**
+     * @return the delivered messages per second in the last sampling interval.
+     */
+    @Override
+    public double getMessagesPerSecond()
+    {
+        return messagesPerSecond;
+    }
+
+
+    @Override
+    public long getClientErrorCount()
+    {
+        return clientErrors.sum();
+    }
+
+
+    @Override
+    public long getDaoErrorCount()
+    {
+        return daoErrors.sum();
+    }
+
+
+    /**
+     * @return the messages waiting in the queues of all clients.
+     */
+    @Override
+    public long getOutboundQueueDepth()
+    {
+        return outboundQueued.sum();
+    }
+
+
+    @Override
+    public long getOutboundDropCount()
+    {
+        return outboundDrops.sum();
+    }
+
+
+    @Override
+    public long getSlowConsumerDisconnectCount()
+    {
+        return slowConsumerDisconnects.sum();
+    }
+
+
+    @Override
+    public long getPullFallbackCount()
+    {
+        return pullFallbacks.sum();
+    }
+
+
+    @Override
+    public long getSqlCheckoutCount()
+    {
+        return SqlMetrics.getCheckoutCount();
+    }
+
+
+    @Override
+    public long getSqlPrepareCount()
+    {
+        return SqlMetrics.getPrepareCount();
+    }
+
+
+    @Override
+    public long getSqlReuseCount()
+    {
+        return SqlMetrics.getReuseCount();
+    }
+
+
+    /**
+     * Formats the counters, the SQL counters and every histogram which has recorded anything, one per line.
+     *
+     * @return multi-line summary.
+     */
+    public String summary()
+    {
+        StringBuilder summary = new StringBuilder(String.format(SUMMARY_FORMAT, getActiveSessions(), getBytesIn(), getBytesOut(),
+                                                                getMessageCount(), getMessagesPerSecond(), getClientErrorCount(),
+                                                                getDaoErrorCount(), getOutboundQueueDepth(), getOutboundDropCount(),
+                                                                getSlowConsumerDisconnectCount(), getPullFallbackCount()));
+        summary.append(System.lineSeparator()).append(SqlMetrics.summary());
+        for (Map.Entry<String, LatencyHistogram> histogram : histograms.entrySet())
+        {
+            if (histogram.getValue().getCount() > 0)
+            {
+                summary.append(System.lineSeparator()).append(histogram.getKey()).append(": ").append(histogram.getValue().summary());
+            }
+        }
+        return summary.toString();
+    }
+
+
+    /**
+     * Updates the message rate, called only from the sampling thread.
+     */
+    private void sample()
+    {
+        long now = System.nanoTime();
+        long current = messages.sum();
+        messagesPerSecond = (current - sampledMessages) / ((now - sampledNanos) / (double) TimeUnit.SECONDS.toNanos(1));
+        sampledMessages = current;
+        sampledNanos = now;
+    }
+}
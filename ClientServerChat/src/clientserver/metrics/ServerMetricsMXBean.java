@@ -0,0 +1,58 @@
+/*
+ * ServerMetricsMXBean.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.metrics;
+
+
+/**
+ * JMX view of the {@link ServerMetrics}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public interface ServerMetricsMXBean
+{
+    public int getActiveSessions();
+
+
+    public long getBytesIn();
+
+
+    public long getBytesOut();
+
+
+    public long getMessageCount();
+
+
+    public double getMessagesPerSecond();
+
+
+    public long getClientErrorCount();
+
+
+    public long getDaoErrorCount();
+
+
+    public long getOutboundQueueDepth();
+
+
+    public long getOutboundDropCount();
+
+
+    public long getSlowConsumerDisconnectCount();
+
+
+    public long getPullFallbackCount();
+
+
+    public long getSqlCheckoutCount();
+
+
+    public long getSqlPrepareCount();
+
+
+    public long getSqlReuseCount();
+}
@@ -10,11 +10,46 @@ package clientserver.server;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import clientserver.client.ChatClient;
+import clientserver.config.Configuration;
+import clientserver.dao.ChatDao;
+import clientserver.dao.DaoException;
+import clientserver.dao.MailboxDao;
+import clientserver.dao.RoomDao;
+import clientserver.dao.UserDao;
+import clientserver.dao.cache.UserDaoCache;
+import clientserver.dao.db.ChatDaoDB;
+import clientserver.dao.db.MailboxDaoDB;
+import clientserver.dao.db.RoomDaoDB;
+import clientserver.dao.db.UserDaoDB;
+import clientserver.dao.log.ChatDaoLog;
+import clientserver.dao.log.LogStore;
+import clientserver.dao.log.MailboxDaoLog;
+import clientserver.dao.log.RoomDaoLog;
+import clientserver.dao.log.UserDaoLog;
+import clientserver.dao.memory.ChatDaoMemory;
+import clientserver.dao.memory.MailboxDaoMemory;
+import clientserver.dao.memory.RoomDaoMemory;
+import clientserver.dao.memory.UserDaoMemory;
+import clientserver.dao.timed.ChatDaoTimed;
+import clientserver.dao.timed.MailboxDaoTimed;
+import clientserver.dao.timed.RoomDaoTimed;
+import clientserver.dao.timed.UserDaoTimed;
+import clientserver.database.Database;
+import clientserver.database.DatabaseException;
+import clientserver.database.RetentionJob;
+import clientserver.metrics.ServerMetrics;
+import clientserver.server.nio.SelectorServer;
 
 
 /**
@@ -25,14 +60,59 @@ import clientserver.client.ChatClient;
 public class ChatServer
 {
     private static final int PORT_SERVER = 7777;
+    private static final String PORT_PROPERTY = "chat.server.port";
+    private static final String MODE_PROPERTY = "chat.server.mode";
+    private static final String EVENT_LOOPS_PROPERTY = "chat.server.eventLoops";
+    private static final String STORAGE_PROPERTY = "chat.storage";
+    private static final String VIRTUAL_THREADS_PROPERTY = "chat.server.virtualThreads";
+    private static final String WORKER_THREADS_PROPERTY = "chat.server.workerThreads";
+    private static final String WORKER_QUEUE_PROPERTY = "chat.server.workerQueue";
+    private static final String WRITE_TIMEOUT_PROPERTY = "chat.server.writeTimeoutSeconds";
+    private static final String FILES_PROPERTY = "chat.files.enabled";
+    private static final String FILES_PORT_PROPERTY = "chat.files.port";
+    private static final String VIRTUAL_THREAD_EXECUTOR_METHOD = "newVirtualThreadPerTaskExecutor";
+    private static final int DEFAULT_WORKER_THREADS = 200;
+    private static final int DEFAULT_WORKER_QUEUE = 1000;
+    private static final int DEFAULT_WRITE_TIMEOUT_SECONDS = 30;
+    private static final String HISTORY_CACHE_MBEAN_TYPE = "HistoryCache";
+    private static final String CONNECTION_POOL_MBEAN_TYPE = "ConnectionPool";
+    private static final String SHUTDOWN_THREAD_NAME = "chat-shutdown";
+    private static final String WATCHDOG_THREAD_NAME = "chat-write-watchdog";
     private static final String WAIT_CLIENT_MSG = "Waiting for client to connect...";
     private static final String START_SERVER_MSG = "Starting server at port: ";
     private static final Logger LOGGER = Logger.getLogger(ChatServer.class.getName());
     private static ChatServer server;
+    private final int port;
+    private final ServerMode mode;
+    private final StorageMode storage;
+    private final int eventLoops;
+    private final boolean virtualThreads;
+    private final int workerThreads;
+    private final int workerQueue;
+    private final int writeTimeoutSeconds;
+    private final boolean files;
+    private final int filesPort;
 
 
+    /**
+     * Reads the settings: "chat.server.port", "chat.server.mode" (one of {@link ServerMode}, NIO by default), "chat.server.eventLoops"
+     * (number of selector threads in NIO mode, the number of processors by default), "chat.storage" (one of {@link StorageMode}, DB by
+     * default) and "chat.files.port" of the {@link FileServer}, which is started unless "chat.files.enabled" is switched off.
+     */
     private ChatServer()
-    {}
+    {
+        Configuration configuration = Configuration.getInstance();
+        port = configuration.getInt(PORT_PROPERTY, PORT_SERVER);
+        mode = configuration.getEnum(MODE_PROPERTY, ServerMode.class, ServerMode.NIO);
+        storage = configuration.getEnum(STORAGE_PROPERTY, StorageMode.class, StorageMode.DB);
+        eventLoops = configuration.getInt(EVENT_LOOPS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        virtualThreads = configuration.getBoolean(VIRTUAL_THREADS_PROPERTY, true);
+        workerThreads = configuration.getInt(WORKER_THREADS_PROPERTY, DEFAULT_WORKER_THREADS);
+        workerQueue = configuration.getInt(WORKER_QUEUE_PROPERTY, DEFAULT_WORKER_QUEUE);
+        writeTimeoutSeconds = configuration.getInt(WRITE_TIMEOUT_PROPERTY, DEFAULT_WRITE_TIMEOUT_SECONDS);
+        files = configuration.getBoolean(FILES_PROPERTY, true);
+        filesPort = configuration.getInt(FILES_PORT_PROPERTY, port + 1);
+    }
 
 
     public static synchronized ChatServer getInstance()
@@ -46,30 +126,211 @@ public class ChatServer
 
 
     /**
-     * Creates {@link ServerSocket} and waits for {@link ChatClient}s to connect. {@link ChatCLient}s are represented with {@link Executors}
-     * thread pool.
-     *
-     * @throws IOException
+     * Starts serving {@link ChatClient}s in the configured {@link ServerMode}.
      */
     private void startServer()
     {
+        LOGGER.log(Level.INFO, START_SERVER_MSG + port + " in mode " + mode + " with storage " + storage);
+        CommandProcessor processor = createProcessor();
+        startMetrics(processor);
+        if (storage == StorageMode.DB)
+        {
+            RetentionJob.start();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            processor.shutdown();
+            RetentionJob.shutdown();
+            Database.shutdown();
+            LogStore.shutdown();
+        }, SHUTDOWN_THREAD_NAME));
+        try
+        {
+            if (files)
+            {
+                new FileServer(filesPort, processor).start();
+            }
+            switch (mode)
+            {
+                case NIO:
+                    startSelector(processor);
+                    break;
+                case THREADED:
+                    startThreaded(processor);
+                    break;
+                default:
+                    startSequential(processor);
+                    break;
+            }
+        }
+        catch (IOException | InterruptedException e)
+        {
+            LOGGER.log(Level.SEVERE, "Failed to start server!", e);
+            throw new RuntimeException("Failed to start server!");
+        }
+    }
+
+
+    /**
+     * Creates the {@link CommandProcessor} for the configured {@link StorageMode}. Every DAO call is timed by a decorator, see
+     * {@link ServerMetrics}.
+     */
+    private CommandProcessor createProcessor()
+    {
+        try
+        {
+            switch (storage)
+            {
+                case MEMORY:
+                    return createProcessor(UserDaoMemory.getInstance(), ChatDaoMemory.getInstance(), RoomDaoMemory.getInstance(),
+                                           MailboxDaoMemory.getInstance());
+                case LOG:
+                    return createProcessor(UserDaoLog.getInstance(), ChatDaoLog.getInstance(), RoomDaoLog.getInstance(),
+                                           MailboxDaoLog.getInstance());
+                default:
+                    return createProcessor(new UserDaoCache(UserDaoDB.getInstance()), ChatDaoDB.getInstance(), RoomDaoDB.getInstance(),
+                                           MailboxDaoDB.getInstance());
+            }
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.SEVERE, "Failed to load users!", e);
+            throw new RuntimeException("Failed to start server!");
+        }
+    }
+
+
+    private static CommandProcessor createProcessor(UserDao userDao, ChatDao chatDao, RoomDao roomDao, MailboxDao mailboxDao)
+    {
+        return new CommandProcessor(new UserDaoTimed(userDao), new ChatDaoTimed(chatDao), new RoomDaoTimed(roomDao),
+                                    new MailboxDaoTimed(mailboxDao));
+    }
+
+
+    /**
+     * Publishes the metrics of the server, of the history cache and of the Database connections over JMX.
+     */
+    private void startMetrics(CommandProcessor processor)
+    {
+        ServerMetrics.getInstance().start();
+        if (processor.getHistoryCache() != null)
+        {
+            ServerMetrics.register(HISTORY_CACHE_MBEAN_TYPE, null, processor.getHistoryCache());
+        }
+        if (storage == StorageMode.DB)
+        {
+            try
+            {
+                ServerMetrics.register(CONNECTION_POOL_MBEAN_TYPE, null, Database.getInstance().getConnectionPool());
+            }
+            catch (DatabaseException e)
+            {
+                LOGGER.log(Level.WARNING, "Failed to publish metrics of the Database!", e);
+            }
+        }
+    }
 
-        LOGGER.log(Level.INFO, START_SERVER_MSG + PORT_SERVER);
-        try (ServerSocket server = new ServerSocket(PORT_SERVER))
+
+    /**
+     * Creates {@link ServerSocket} and serves the connected {@link ChatClient}s one after another.
+     *
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void startSequential(CommandProcessor processor) throws IOException, InterruptedException
+    {
+        WriteWatchdog watchdog = new WriteWatchdog(WATCHDOG_THREAD_NAME, writeTimeoutSeconds * 1000L);
+        try (ServerSocket server = new ServerSocket(port))
         {
             LOGGER.log(Level.INFO, WAIT_CLIENT_MSG);
             while (true)
             {
-                Thread requestThread = new Thread(new ClientHandler(server));
+                Thread requestThread = new Thread(new ClientHandler(server.accept(), processor, watchdog));
                 requestThread.start();
                 requestThread.join();
             }
         }
-        catch (IOException | InterruptedException e)
+    }
+
+
+    /**
+     * Starts the {@link SelectorServer}. The commands of its clients run on an executor of the same kind as the connections in THREADED
+     * mode.
+     *
+     * @throws IOException
+     */
+    private void startSelector(CommandProcessor processor) throws IOException
+    {
+        ExecutorService worker = createExecutor("commands");
+        try
         {
-            LOGGER.log(Level.SEVERE, "Failed to start server!", e);
-            throw new RuntimeException("Failed to start server!");
+            new SelectorServer(port, eventLoops, processor, worker).start();
+        }
+        finally
+        {
+            worker.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Creates {@link ServerSocket} and hands every accepted connection to its own {@link ClientHandler}, so accepting and handling of
+     * the {@link ChatClient}s run concurrently. Connections which the executor can't take are closed. Messages pushed to the
+     * connections are written by a second executor of the same kind. A connection whose client does not take a write within
+     * "chat.server.writeTimeoutSeconds" is closed.
+     *
+     * @throws IOException
+     */
+    private void startThreaded(CommandProcessor processor) throws IOException
+    {
+        ExecutorService executor = createExecutor("connections");
+        ExecutorService pushExecutor = createExecutor("pushed messages");
+        WriteWatchdog watchdog = new WriteWatchdog(WATCHDOG_THREAD_NAME, writeTimeoutSeconds * 1000L);
+        try (ServerSocket server = new ServerSocket(port))
+        {
+            LOGGER.log(Level.INFO, WAIT_CLIENT_MSG);
+            while (true)
+            {
+                Socket clientSocket = server.accept();
+                try
+                {
+                    executor.execute(new ClientHandler(clientSocket, processor, pushExecutor, watchdog));
+                }
+                catch (RejectedExecutionException e)
+                {
+                    LOGGER.log(Level.WARNING, "Too many connections, closing " + clientSocket.getRemoteSocketAddress());
+                    clientSocket.close();
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+            pushExecutor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Creates an executor running every task on a virtual thread when the JDK has them and "chat.server.virtualThreads" is not switched
+     * off, otherwise on a pool of "chat.server.workerThreads" threads with "chat.server.workerQueue" tasks waiting for a free thread.
+     */
+    private ExecutorService createExecutor(String tasks)
+    {
+        if (virtualThreads)
+        {
+            try
+            {
+                ExecutorService executor = (ExecutorService) Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_METHOD).invoke(null);
+                LOGGER.log(Level.INFO, "Running " + tasks + " on virtual threads");
+                return executor;
+            }
+            catch (ReflectiveOperationException | UnsupportedOperationException e)
+            {
+                LOGGER.log(Level.INFO, "Virtual threads are not available, using bounded thread pool");
+            }
         }
+        LOGGER.log(Level.INFO, "Running " + tasks + " on " + workerThreads + " threads");
+        return new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(workerQueue));
     }
 
 
@@ -10,236 +10,332 @@ package clientserver.server;
 
 import java.io.BufferedReader;
 import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
-import clientserver.dao.DaoException;
-import clientserver.dao.db.ChatDaoDB;
-import clientserver.dao.db.UserDaoDB;
-import clientserver.entities.ChatEntity;
-import clientserver.entities.UserEntity;
-import clientserver.entities.UserEntity.UserStatus;
+import clientserver.metrics.ServerMetrics;
 
 
 /**
- * Handles incoming connection in separate thread from {@link ChatServer}.
+ * Handles accepted connection in separate thread from {@link ChatServer}. Responses are written by the thread of the connection,
+ * messages pushed by other connections wait in an {@link OutboundQueue} and are written by a task of the push executor, so a slow client
+ * never blocks the connection pushing to it. A write which the client does not take in time closes the connection, see
+ * {@link WriteWatchdog}.
  * <p>
  * created at Aug 16, 2017 by @author Petya Petrova p.petrova
  */
 public class ClientHandler implements Runnable
 {
-    private static final String LINE_SEPARATOR = System.lineSeparator();
-    private static final String SPACE_SEPARATOR = " ";
-    private static final String MESSAGE_SEPARATOR = "#";
-    private static final String UPDATE_CMD = "!update";
-    private static final String PRIVATE_MSG_CMD = "@";
-    private static final String CURSOR = ">";
-    private static final String SENDER = "sender: ";
-    private static final String RECIPIENT = "recipient: ";
-    private static final String CLIENT_SAYS_MSG = "client: ";
-    private static final String NO_SUCH_USER_MSG = "No such user!";
-    private static final int MAX_LENGTH_MESSAGE = 300;
     private static final Logger LOGGER = Logger.getLogger(ClientHandler.class.getName());
-    private final UserDaoDB userDao;
-    private final ChatDaoDB chatDao;
-    private final ServerSocket serverSocket;
+    private final CommandProcessor processor;
+    private final Socket clientSocket;
+    private final Executor pushExecutor;
+    private final WriteWatchdog watchdog;
+    private final ServerMetrics metrics = ServerMetrics.getInstance();
 
 
     /**
-     * Creates {@link ClientHandler} by given {@link ServerSocket} server socket. Throws {@link RuntimeException} if server socket is not
-     * properly passed.
+     * Creates {@link ClientHandler} by given accepted {@link Socket} client socket. Throws {@link RuntimeException} if client socket is
+     * not properly passed.
      *
-     * @param serverSocket
+     * @param clientSocket
+     * @param processor executes the commands received from the client.
+     * @param watchdog closes the connection if a write takes too long.
      */
-    public ClientHandler(ServerSocket serverSocket)
+    public ClientHandler(Socket clientSocket, CommandProcessor processor, WriteWatchdog watchdog)
     {
-        if (serverSocket == null)
+        this(clientSocket, processor, Runnable::run, watchdog);
+    }
+
+
+    /**
+     * Creates {@link ClientHandler} by given accepted {@link Socket} client socket. Throws {@link RuntimeException} if client socket is
+     * not properly passed.
+     *
+     * @param clientSocket
+     * @param processor executes the commands received from the client.
+     * @param pushExecutor writes the messages pushed to the client.
+     * @param watchdog closes the connection if a write takes too long.
+     */
+    public ClientHandler(Socket clientSocket, CommandProcessor processor, Executor pushExecutor, WriteWatchdog watchdog)
+    {
+        if (clientSocket == null)
         {
-            LOGGER.log(Level.SEVERE, "Server socket hasn't been initialized!");
+            LOGGER.log(Level.SEVERE, "Client socket hasn't been initialized!");
             throw new RuntimeException("Server did not respond!");
         }
-        this.serverSocket = serverSocket;
-        userDao = UserDaoDB.getInstance();
-        chatDao = ChatDaoDB.getInstance();
+        this.clientSocket = clientSocket;
+        this.processor = processor;
+        this.pushExecutor = pushExecutor;
+        this.watchdog = watchdog;
     }
 
 
     @Override
     public void run()
     {
-        try (Socket clientSocket = serverSocket.accept();
-                        DataInputStream input = new DataInputStream(clientSocket.getInputStream());
+        try (Socket socket = clientSocket;
+                        DataInputStream input = new DataInputStream(new CountingInputStream(socket.getInputStream(), metrics));
                         BufferedReader bufReader = new BufferedReader(new InputStreamReader(input));
-                        PrintWriter printWriter = new PrintWriter(clientSocket.getOutputStream(), true);)
+                        OutputStream output = new CountingOutputStream(socket.getOutputStream(), metrics))
         {
-            String inputLine;
-            while ((inputLine = bufReader.readLine()) != null)
+            StreamSession session = new StreamSession(socket, output, pushExecutor, watchdog);
+            metrics.sessionOpened();
+            try
+            {
+                String inputLine;
+                while ((inputLine = bufReader.readLine()) != null)
+                {
+                    processor.process(session, inputLine);
+                }
+            }
+            finally
             {
-                validateUserInput(inputLine);
-                printWriter.println(processInput(inputLine));
+                processor.disconnect(session);
+                session.close();
+                metrics.sessionClosed();
             }
         }
         catch (RuntimeException e)
         {
             LOGGER.log(Level.SEVERE, "Invalid input from client", e);
+            metrics.recordClientError();
             throw e;
         }
         catch (IOException e)
         {
             LOGGER.log(Level.SEVERE, "Failed to read from client!", e);
+            metrics.recordClientError();
             throw new RuntimeException("Internal error!Please, try again later");
         }
     }
 
 
-    private String processInput(String input)
+    /**
+     * Session writing to the blocking output stream of the connection, through a {@link DeflaterOutputStream} once compression is
+     * negotiated. Every line is written under the monitor of the session and watched by the {@link WriteWatchdog}. At most one task
+     * drains the queue of pushed messages at a time, and it writes at most {@link #DRAIN_BATCH_LINES} lines before it hands the rest to
+     * a new task, so a busy client can't keep a thread of the push executor.
+     */
+    private static class StreamSession extends ClientSession
     {
-        String username = input.substring(0, input.indexOf(SPACE_SEPARATOR));
-        String message = input.substring(input.indexOf(SPACE_SEPARATOR), input.length());
-        message = message.trim();
+        private static final int DRAIN_BATCH_LINES = 64;
+        private final Socket socket;
+        private final OutputStream output;
+        private final Executor pushExecutor;
+        private final OutboundQueue pushQueue = new OutboundQueue();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final WriteWatchdog.Watch watch;
+        private PrintWriter printWriter;
+        private Deflater deflater;
+        private boolean closed;
 
-        System.out.println(CLIENT_SAYS_MSG + username + SPACE_SEPARATOR + CURSOR + SPACE_SEPARATOR + message);
-        saveUser(username);
 
-        if (message.equalsIgnoreCase(UPDATE_CMD))
-        {
-            return sendHistory(username);
-        }
-        else if (message.startsWith(PRIVATE_MSG_CMD))
+        StreamSession(Socket socket, OutputStream output, Executor pushExecutor, WriteWatchdog watchdog)
         {
-            sendPrivateMsg(username, message);
+            this.socket = socket;
+            this.output = output;
+            this.pushExecutor = pushExecutor;
+            printWriter = new PrintWriter(output, true);
+            watch = watchdog.register(socket, socket.getRemoteSocketAddress());
         }
-        else
+
+
+        /**
+         * Queues the message and starts draining the queue unless a drain task is running. Closes the socket if the client is
+         * disconnected for being too slow, which ends the thread of the connection.
+         */
+        @Override
+        public void push(String line)
         {
-            saveChat(username, message);
+            if (!pushQueue.offer(line))
+            {
+                LOGGER.log(Level.WARNING, "Disconnecting slow client " + getUsername());
+                closeSocket();
+                return;
+            }
+            scheduleDrain();
         }
-        return "";
-    }
 
 
-    private void saveUser(String username)
-    {
-        if (username == null || username.isEmpty())
+        private void scheduleDrain()
         {
-            throw new IllegalArgumentException("Username is mandatory! Please, provide valid one!");
+            if (draining.compareAndSet(false, true))
+            {
+                try
+                {
+                    pushExecutor.execute(this::drain);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // the queued messages are written with the next push
+                    draining.set(false);
+                    LOGGER.log(Level.WARNING, "Failed to schedule pushed messages for " + getUsername(), e);
+                }
+            }
         }
-        UserEntity user = new UserEntity();
-        user.setUsername(username);
-        user.setStatus(UserStatus.ONLINE);
-        try
+
+
+        private void drain()
         {
-            userDao.userExists(username);
+            String line;
+            for (int i = 0; i < DRAIN_BATCH_LINES && (line = pushQueue.poll()) != null; i++)
+            {
+                send(line);
+            }
+            draining.set(false);
+            if (!pushQueue.isEmpty())
+            {
+                scheduleDrain();
+            }
         }
-        catch (DaoException e)
+
+
+        private void closeSocket()
         {
-            LOGGER.log(Level.WARNING, "User does not exist!", e.getMessage());
             try
             {
-                userDao.saveUser(user);
+                socket.close();
             }
-            catch (DaoException e1)
+            catch (IOException e)
             {
-                LOGGER.log(Level.WARNING, "Failed to save user!", e.getMessage());
+                LOGGER.log(Level.INFO, "Client connection is not closed!", e);
             }
         }
-    }
 
 
-    private void saveChat(String sender, String message)
-    {
-        try
+        @Override
+        public synchronized void send(String line)
         {
-            List<String> usernames = userDao.getAllUsers();
-            for (String username : usernames)
+            if (!closed)
             {
-                if (!username.equalsIgnoreCase(sender))
-                {
-                    saveChat(sender, username, message);
-                }
+                println(line);
             }
         }
-        catch (DaoException e)
+
+
+        @Override
+        protected synchronized boolean compress(String reply, int level)
         {
-            LOGGER.log(Level.WARNING, "Failed to send messages!", e);
+            if (closed || deflater != null)
+            {
+                return false;
+            }
+            println(reply);
+            deflater = new Deflater(level);
+            printWriter = new PrintWriter(new DeflaterOutputStream(output, deflater, true), true);
+            return true;
         }
-    }
 
 
-    private void saveChat(String sender, String recipient, String message)
-    {
-        ChatEntity chatEntity = new ChatEntity();
-        chatEntity.setMessage(message);
-        chatEntity.setSender(sender);
-        chatEntity.setRecipient(recipient);
-        try
+        private void println(String line)
         {
-            chatDao.saveMsg(chatEntity);
+            watch.start();
+            try
+            {
+                printWriter.println(line);
+            }
+            finally
+            {
+                watch.done();
+            }
         }
-        catch (DaoException e)
+
+
+        synchronized void close()
         {
-            LOGGER.log(Level.WARNING, "Failed to save chat!", e);
+            closed = true;
+            watch.cancel();
+            pushQueue.close();
+            if (deflater != null)
+            {
+                deflater.end();
+            }
         }
     }
 
 
-    private String sendHistory(String username)
+    /**
+     * Counts the bytes read from the connection in the {@link ServerMetrics}.
+     */
+    private static class CountingInputStream extends FilterInputStream
     {
-        StringBuilder history = new StringBuilder();
-        List<ChatEntity> chats = null;
-        try
+        private final ServerMetrics metrics;
+
+
+        CountingInputStream(InputStream input, ServerMetrics metrics)
+        {
+            super(input);
+            this.metrics = metrics;
+        }
+
+
+        @Override
+        public int read() throws IOException
         {
-            chats = userDao.getHistory(username);
-            for (ChatEntity chat : chats)
+            int value = super.read();
+            if (value >= 0)
             {
-                history.append(SENDER + chat.getSender() + SPACE_SEPARATOR + RECIPIENT + chat.getRecipient() + SPACE_SEPARATOR + chat
-                                                                                                                                     .getMessage()
-                               + MESSAGE_SEPARATOR);
+                metrics.recordBytesIn(1);
             }
-            history.append(LINE_SEPARATOR);
+            return value;
         }
-        catch (DaoException e)
+
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException
         {
-            LOGGER.log(Level.WARNING, "Failed to send history to the user!", e);
+            int read = super.read(bytes, offset, length);
+            if (read > 0)
+            {
+                metrics.recordBytesIn(read);
+            }
+            return read;
         }
-        return history.toString();
     }
 
 
-    private void sendPrivateMsg(String sender, String message)
+    /**
+     * Counts the bytes written to the connection in the {@link ServerMetrics}.
+     */
+    private static class CountingOutputStream extends FilterOutputStream
     {
-        String recipient = message.substring(1, message.indexOf(SPACE_SEPARATOR));
-        String privateMsg = message.substring(message.indexOf(SPACE_SEPARATOR), message.length());
-        privateMsg = privateMsg.trim();
-        try
-        {
-            userDao.userExists(recipient);
-            saveChat(sender, recipient, privateMsg);
-        }
-        catch (DaoException e)
+        private final ServerMetrics metrics;
+
+
+        CountingOutputStream(OutputStream output, ServerMetrics metrics)
         {
-            LOGGER.log(Level.WARNING, "User does not exist!", e.getMessage());
-            saveChat(sender, recipient, NO_SUCH_USER_MSG);
+            super(output);
+            this.metrics = metrics;
         }
 
-    }
-
 
-    private void validateUserInput(String message)
-    {
-        if (message == null || message.length() >= MAX_LENGTH_MESSAGE)
+        @Override
+        public void write(int value) throws IOException
         {
-            throw new RuntimeException("Invalid input from client: " + message);
+            out.write(value);
+            metrics.recordBytesOut(1);
         }
 
-        if (!message.contains(SPACE_SEPARATOR))
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException
         {
-            throw new RuntimeException("Invalid input from client. All messages must start with username and space!" + message);
+            out.write(bytes, offset, length);
+            metrics.recordBytesOut(length);
         }
     }
 }
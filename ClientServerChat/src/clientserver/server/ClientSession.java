@@ -0,0 +1,114 @@
+/*
+ * ClientSession.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.util.Iterator;
+import java.util.zip.Deflater;
+
+/**
+ * State which the server keeps for one client connection across the lines it sends. The connection is bound to the user of its first
+ * line, so the user is looked up and registered only once per connection, and it is reachable for messages pushed by the server.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public abstract class ClientSession
+{
+    private volatile String username;
+    private volatile String uploadToken;
+
+
+    public String getUsername()
+    {
+        return username;
+    }
+
+
+    String getUploadToken()
+    {
+        return uploadToken;
+    }
+
+
+    void setUploadToken(String uploadToken)
+    {
+        this.uploadToken = uploadToken;
+    }
+
+
+    /**
+     * Sends a line to the client. May be called from any thread.
+     *
+     * @param line to send, without line separator.
+     */
+    public abstract void send(String line);
+
+
+    /**
+     * Sends a message pushed by the server, which the client has not requested. Sessions which queue their output apply the
+     * {@link OverflowPolicy} of their {@link OutboundQueue} when the client does not keep up, so the message may be dropped. May be
+     * called from any thread.
+     *
+     * @param line to send, without line separator.
+     */
+    public void push(String line)
+    {
+        send(line);
+    }
+
+
+    /**
+     * Sends the lines produced by the iterator. The iterator is advanced only as fast as the client reads, no other response is sent to
+     * this client before the last line.
+     *
+     * @param lines to send, produced lazily.
+     */
+    public void send(Iterator<String> lines)
+    {
+        while (lines.hasNext())
+        {
+            send(lines.next());
+        }
+    }
+
+
+    /**
+     * Sends the reply and deflates every line sent after it with one {@link Deflater} kept for the rest of the connection, so text
+     * repeated across lines is compressed too. Every line is flushed with {@link Deflater#SYNC_FLUSH}, so the client can inflate it as
+     * soon as it arrives. Connections which don't support compression return false without sending anything.
+     *
+     * @param reply to send before the compressed lines, without line separator.
+     * @param level of the {@link Deflater}.
+     * @return true if the reply is sent and the following lines are compressed.
+     */
+    protected boolean compress(String reply, int level)
+    {
+        return false;
+    }
+
+
+    /**
+     * Binds the connection to the given user. Throws {@link RuntimeException} if the connection is already bound to another user.
+     *
+     * @param username sent at the beginning of the line.
+     * @return true if the connection has just been bound, false if it was already bound to this user.
+     */
+    boolean bind(String username)
+    {
+        if (this.username == null)
+        {
+            this.username = username;
+            return true;
+        }
+        if (!this.username.equals(username))
+        {
+            throw new RuntimeException("Connection is already used by " + this.username + ", can not send as " + username);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,745 @@
+/*
+ * CommandProcessor.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+
+import clientserver.config.Configuration;
+import clientserver.dao.ChatDao;
+import clientserver.dao.DaoException;
+import clientserver.dao.MailboxDao;
+import clientserver.dao.RoomDao;
+import clientserver.dao.UserDao;
+import clientserver.dao.cache.UserDaoCache;
+import clientserver.dao.db.ChatDaoDB;
+import clientserver.dao.db.MailboxDaoDB;
+import clientserver.dao.db.RoomDaoDB;
+import clientserver.dao.db.UserDaoDB;
+import clientserver.database.SqlContext;
+import clientserver.entities.ChatEntity;
+import clientserver.entities.UserEntity;
+import clientserver.entities.UserEntity.UserStatus;
+import clientserver.metrics.LatencyHistogram;
+import clientserver.metrics.ServerMetrics;
+
+
+/**
+ * Executes the commands sent by the clients and sends the responses to their sessions. It is shared by all connections regardless of
+ * the server mode, the state of every connection is kept in its {@link ClientSession}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class CommandProcessor
+{
+    private static final String SPACE_SEPARATOR = " ";
+    private static final String ROOM_NAME = "([A-Za-z0-9._-]{1,50})";
+    private static final Pattern UPDATE_CMD = Pattern.compile("^!update(?:\\s+room\\s+" + ROOM_NAME
+                                                              + ")?(?:\\s+since\\s+(\\d{1,9}))?(?:\\s+limit\\s+(\\d{1,9}))?$",
+                                                              Pattern.CASE_INSENSITIVE);
+    private static final Pattern JOIN_CMD = Pattern.compile("^!join\\s+" + ROOM_NAME + "$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LEAVE_CMD = Pattern.compile("^!leave\\s+" + ROOM_NAME + "$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ACK_CMD = Pattern.compile("^!ack\\s+(\\d{1,9})$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MAILBOX_CMD = Pattern.compile("^!mailbox(?:\\s+limit\\s+(\\d{1,9}))?$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMPRESS_CMD = Pattern.compile("^!compress\\s+(\\w+)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern UPLOAD_CMD = Pattern.compile("^!upload$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ROOM_MSG_CMD = Pattern.compile("^#" + ROOM_NAME + "\\s+(.+)$");
+    private static final String PAGE_SIZE_PROPERTY = "chat.history.pageSize";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String WRITE_BEHIND_PROPERTY = "chat.writeBehind.enabled";
+    private static final String WRITE_BEHIND_CAPACITY_PROPERTY = "chat.writeBehind.capacity";
+    private static final String WRITE_BEHIND_MAX_BATCH_PROPERTY = "chat.writeBehind.maxBatch";
+    private static final String WRITE_BEHIND_LINGER_PROPERTY = "chat.writeBehind.lingerMillis";
+    private static final String WRITE_BEHIND_OFFER_TIMEOUT_PROPERTY = "chat.writeBehind.offerTimeoutMillis";
+    private static final int DEFAULT_WRITE_BEHIND_CAPACITY = 10_000;
+    private static final int DEFAULT_WRITE_BEHIND_MAX_BATCH = 500;
+    private static final long DEFAULT_WRITE_BEHIND_LINGER_MILLIS = 5;
+    private static final long DEFAULT_WRITE_BEHIND_OFFER_TIMEOUT_MILLIS = 1000;
+    private static final String HISTORY_CACHE_PROPERTY = "chat.history.cache.enabled";
+    private static final String HISTORY_CACHE_USER_MESSAGES_PROPERTY = "chat.history.cache.userMessages";
+    private static final String HISTORY_CACHE_USERS_PROPERTY = "chat.history.cache.users";
+    private static final String HISTORY_CACHE_BROADCASTS_PROPERTY = "chat.history.cache.broadcasts";
+    private static final int DEFAULT_HISTORY_CACHE_USER_MESSAGES = 64;
+    private static final int DEFAULT_HISTORY_CACHE_USERS = 10_000;
+    private static final int DEFAULT_HISTORY_CACHE_BROADCASTS = 1024;
+    private static final String HISTORY_CACHE_ROOM_MESSAGES_PROPERTY = "chat.history.cache.roomMessages";
+    private static final String HISTORY_CACHE_ROOMS_PROPERTY = "chat.history.cache.rooms";
+    private static final int DEFAULT_HISTORY_CACHE_ROOM_MESSAGES = 256;
+    private static final int DEFAULT_HISTORY_CACHE_ROOMS = 1000;
+    private static final String COMPRESSION_PROPERTY = "chat.server.compression.enabled";
+    private static final String COMPRESSION_LEVEL_PROPERTY = "chat.server.compression.level";
+    private static final String DEFLATE = "deflate";
+    private static final String COMPRESS_DEFLATE_MSG = "!compress deflate";
+    private static final String COMPRESS_NONE_MSG = "!compress none";
+    private static final String UPLOAD_MSG = "!upload ";
+    private static final String ID = "id: ";
+    private static final String PRIVATE_MSG_CMD = "@";
+    private static final String ROOM_MSG_PREFIX = "#";
+    private static final String COMMAND_LATENCY_PREFIX = "command.";
+    private static final String CURSOR = ">";
+    private static final String SENDER = "sender: ";
+    private static final String RECIPIENT = "recipient: ";
+    private static final String ROOM = "room: ";
+    private static final String BROADCAST_RECIPIENT = "everyone";
+    private static final String CLIENT_SAYS_MSG = "client: ";
+    private static final String NO_SUCH_USER_MSG = "No such user!";
+    private static final String NOT_A_MEMBER_MSG = "Not a member of the room!";
+    private static final String MAILBOX_FAILED_MSG = "Failed to load mailbox!";
+    private static final String TOO_LONG_MSG = "Invalid input: the line is too long!";
+    private static final String NO_USERNAME_MSG = "Invalid input: all messages must start with username and space!";
+    private static final String OTHER_USER_MSG = "Invalid input: the connection is used by another user!";
+    private static final String NO_PRIVATE_TEXT_MSG = "Invalid input: private messages must be @username and text!";
+    private static final int MAX_LENGTH_MESSAGE = 300;
+    private static final Logger LOGGER = Logger.getLogger(CommandProcessor.class.getName());
+    private final UserDao userDao;
+    private final ChatDao chatDao;
+    private final RoomDao roomDao;
+    private final MailboxDao mailboxDao;
+    private final SessionRegistry sessionRegistry = new SessionRegistry();
+    private final RoomRegistry roomRegistry;
+    private final int pageSize;
+    private final WriteBehindQueue writeBehindQueue;
+    private final HistoryCache historyCache;
+    private final boolean compression;
+    private final int compressionLevel;
+    private final ServerMetrics metrics = ServerMetrics.getInstance();
+    private final Map<Command, LatencyHistogram> commandLatencies = new EnumMap<Command, LatencyHistogram>(Command.class);
+    private final Map<String, ClientSession> uploadTokens = new ConcurrentHashMap<String, ClientSession>();
+
+
+    /**
+     * Creates {@link CommandProcessor} working with the Database DAOs. Users are served from an in-memory directory loaded at creation.
+     *
+     * @throws DaoException if the users can't be loaded.
+     */
+    public CommandProcessor() throws DaoException
+    {
+        this(new UserDaoCache(UserDaoDB.getInstance()), ChatDaoDB.getInstance(), RoomDaoDB.getInstance(), MailboxDaoDB.getInstance());
+    }
+
+
+    public CommandProcessor(UserDao userDao, ChatDao chatDao, RoomDao roomDao, MailboxDao mailboxDao)
+    {
+        this.userDao = userDao;
+        this.chatDao = chatDao;
+        this.roomDao = roomDao;
+        this.mailboxDao = mailboxDao;
+        this.roomRegistry = new RoomRegistry(roomDao, sessionRegistry);
+        for (Command command : Command.values())
+        {
+            commandLatencies.put(command, metrics.histogram(COMMAND_LATENCY_PREFIX + command.name().toLowerCase()));
+        }
+        Configuration configuration = Configuration.getInstance();
+        pageSize = configuration.getInt(PAGE_SIZE_PROPERTY, DEFAULT_PAGE_SIZE);
+        compression = configuration.getBoolean(COMPRESSION_PROPERTY, true);
+        compressionLevel = configuration.getInt(COMPRESSION_LEVEL_PROPERTY, Deflater.DEFAULT_COMPRESSION);
+        if (configuration.getBoolean(HISTORY_CACHE_PROPERTY, true))
+        {
+            historyCache = new HistoryCache(configuration.getInt(HISTORY_CACHE_USER_MESSAGES_PROPERTY, DEFAULT_HISTORY_CACHE_USER_MESSAGES),
+                                            configuration.getInt(HISTORY_CACHE_USERS_PROPERTY, DEFAULT_HISTORY_CACHE_USERS),
+                                            configuration.getInt(HISTORY_CACHE_BROADCASTS_PROPERTY, DEFAULT_HISTORY_CACHE_BROADCASTS),
+                                            configuration.getInt(HISTORY_CACHE_ROOM_MESSAGES_PROPERTY, DEFAULT_HISTORY_CACHE_ROOM_MESSAGES),
+                                            configuration.getInt(HISTORY_CACHE_ROOMS_PROPERTY, DEFAULT_HISTORY_CACHE_ROOMS));
+        }
+        else
+        {
+            historyCache = null;
+        }
+        if (configuration.getBoolean(WRITE_BEHIND_PROPERTY, false))
+        {
+            writeBehindQueue = new WriteBehindQueue(chatDao,
+                                                    configuration.getInt(WRITE_BEHIND_CAPACITY_PROPERTY, DEFAULT_WRITE_BEHIND_CAPACITY),
+                                                    configuration.getInt(WRITE_BEHIND_MAX_BATCH_PROPERTY, DEFAULT_WRITE_BEHIND_MAX_BATCH),
+                                                    configuration.getLong(WRITE_BEHIND_LINGER_PROPERTY, DEFAULT_WRITE_BEHIND_LINGER_MILLIS),
+                                                    configuration.getLong(WRITE_BEHIND_OFFER_TIMEOUT_PROPERTY,
+                                                                          DEFAULT_WRITE_BEHIND_OFFER_TIMEOUT_MILLIS),
+                                                    this::deliver);
+        }
+        else
+        {
+            writeBehindQueue = null;
+        }
+    }
+
+
+    /**
+     * Validates and executes one line received from a client and sends the response to its session. A line which is not valid is
+     * answered with an error message, the session stays open.
+     *
+     * @param session of the connection which received the line.
+     * @param inputLine in format "username message".
+     */
+    public void process(ClientSession session, String inputLine)
+    {
+        try
+        {
+            validateUserInput(session, inputLine);
+        }
+        catch (InvalidInputException e)
+        {
+            reject(session, e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        Command command = processInput(session, inputLine);
+        commandLatencies.get(command).record(System.nanoTime() - start);
+    }
+
+
+    /**
+     * Answers a line which is too long to be read with an error message. The session skips the rest of the line.
+     *
+     * @param session of the connection which received the line.
+     */
+    public void rejectTooLong(ClientSession session)
+    {
+        reject(session, TOO_LONG_MSG);
+    }
+
+
+    private void reject(ClientSession session, String reason)
+    {
+        LOGGER.log(Level.INFO, "Rejected input from client: " + reason);
+        metrics.recordClientError();
+        session.send(reason);
+    }
+
+
+    /**
+     * Saves the messages still waiting in the write-behind queue. Called on graceful shutdown of the server.
+     */
+    public void shutdown()
+    {
+        if (writeBehindQueue != null)
+        {
+            writeBehindQueue.close();
+        }
+    }
+
+
+    /**
+     * @return the cache of recent messages, null if it is disabled.
+     */
+    public HistoryCache getHistoryCache()
+    {
+        return historyCache;
+    }
+
+
+    /**
+     * Forgets the closed session, so no more messages are pushed to it.
+     *
+     * @param session of the closed connection.
+     */
+    public void disconnect(ClientSession session)
+    {
+        sessionRegistry.unregister(session);
+        if (session.getUploadToken() != null)
+        {
+            uploadTokens.remove(session.getUploadToken());
+        }
+    }
+
+
+    private Command processInput(ClientSession session, String input)
+    {
+        String username = input.substring(0, input.indexOf(SPACE_SEPARATOR));
+        String message = input.substring(input.indexOf(SPACE_SEPARATOR), input.length());
+        message = message.trim();
+
+        if (LOGGER.isLoggable(Level.FINE))
+        {
+            LOGGER.log(Level.FINE, CLIENT_SAYS_MSG + username + SPACE_SEPARATOR + CURSOR + SPACE_SEPARATOR + message);
+        }
+        Matcher update = UPDATE_CMD.matcher(message);
+        Matcher join = JOIN_CMD.matcher(message);
+        Matcher leave = LEAVE_CMD.matcher(message);
+        Matcher ack = ACK_CMD.matcher(message);
+        Matcher mailbox = MAILBOX_CMD.matcher(message);
+        Matcher compress = COMPRESS_CMD.matcher(message);
+        Matcher upload = UPLOAD_CMD.matcher(message);
+        HistoryPages history = null;
+        String reply = "";
+        boolean bound;
+        Command command;
+        SqlContext context = SqlContext.open();
+        try
+        {
+            bound = session.bind(username);
+            if (bound)
+            {
+                saveUser(username);
+            }
+            // a session negotiating compression is registered only after the reply, so no pushed message gets ahead of it
+            if (bound && !compress.matches())
+            {
+                sessionRegistry.register(session);
+            }
+            if (compress.matches())
+            {
+                command = Command.COMPRESS;
+            }
+            else if (update.matches())
+            {
+                command = Command.UPDATE;
+                history = history(username, update);
+                reply = history == null ? NOT_A_MEMBER_MSG : reply;
+            }
+            else if (mailbox.matches())
+            {
+                command = Command.MAILBOX;
+                history = mailbox(username, mailbox);
+                reply = history == null ? MAILBOX_FAILED_MSG : reply;
+            }
+            else if (ack.matches())
+            {
+                command = Command.ACK;
+                acknowledge(username, Integer.parseInt(ack.group(1)));
+            }
+            else if (join.matches())
+            {
+                command = Command.JOIN;
+                joinRoom(username, join.group(1));
+            }
+            else if (leave.matches())
+            {
+                command = Command.LEAVE;
+                leaveRoom(username, leave.group(1));
+            }
+            else if (upload.matches())
+            {
+                command = Command.UPLOAD;
+                reply = UPLOAD_MSG + uploadToken(session);
+            }
+            else
+            {
+                command = messageCommand(message);
+                reply = saveMessage(username, message) ? reply : NOT_A_MEMBER_MSG;
+            }
+        }
+        finally
+        {
+            context.close();
+        }
+
+        if (command == Command.COMPRESS)
+        {
+            negotiateCompression(session, bound && DEFLATE.equalsIgnoreCase(compress.group(1)));
+            if (bound)
+            {
+                sessionRegistry.register(session);
+            }
+            return command;
+        }
+        // the history is streamed outside of the unit of work, so a slow reader does not keep the connection
+        if (history != null)
+        {
+            session.send(history);
+            return command;
+        }
+        session.send(reply);
+        return command;
+    }
+
+
+    /**
+     * Saves a message of the user to everyone, to a user ("@user message") or to a room ("#room message"), like a message received on a
+     * chat connection. The sender must be a user known from its chat connection, see {@link #uploader(String)}.
+     *
+     * @param sender of the message.
+     * @param message to save.
+     * @return false if the message is for a room the sender is not a member of.
+     */
+    public boolean send(String sender, String message)
+    {
+        return saveMessage(sender, message);
+    }
+
+
+    /**
+     * Checks that "@user" messages to the user are delivered, before a file for the user is received.
+     *
+     * @param username of the recipient.
+     * @return false if the user is unknown, or can't be found because the storage failed.
+     */
+    public boolean userExists(String username)
+    {
+        try
+        {
+            return userDao.userExists(username);
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to find user!", e);
+            return false;
+        }
+    }
+
+
+    /**
+     * Finds the user who received the upload token on a chat connection which is still open.
+     *
+     * @param token sent to the client as the reply to "!upload".
+     * @return the name of the user, null if the token is unknown or its connection is closed.
+     */
+    public String uploader(String token)
+    {
+        ClientSession session = uploadTokens.get(token);
+        return session == null ? null : session.getUsername();
+    }
+
+
+    /**
+     * Answers "!upload" with a token which lets a file transfer connection send files as the user of this chat connection, see
+     * {@link FileServer}. The token is the same for the whole connection and is forgotten when the connection is closed.
+     */
+    private String uploadToken(ClientSession session)
+    {
+        if (session.getUploadToken() == null)
+        {
+            String token = UUID.randomUUID().toString().replace("-", "");
+            session.setUploadToken(token);
+            uploadTokens.put(token, session);
+        }
+        return session.getUploadToken();
+    }
+
+
+    private static Command messageCommand(String message)
+    {
+        if (message.startsWith(ROOM_MSG_PREFIX))
+        {
+            return Command.ROOM_MESSAGE;
+        }
+        return message.startsWith(PRIVATE_MSG_CMD) ? Command.PRIVATE_MESSAGE : Command.MESSAGE;
+    }
+
+
+    private boolean saveMessage(String sender, String message)
+    {
+        Matcher roomMsg = ROOM_MSG_CMD.matcher(message);
+        if (roomMsg.matches())
+        {
+            return sendRoomMsg(sender, roomMsg.group(1), roomMsg.group(2));
+        }
+        if (message.startsWith(PRIVATE_MSG_CMD))
+        {
+            sendPrivateMsg(sender, message);
+        }
+        else
+        {
+            saveChat(sender, message);
+        }
+        return true;
+    }
+
+
+    /**
+     * Answers "!compress deflate" sent as the first line of a connection. Everything the server sends after the reply is deflated with
+     * "chat.server.compression.level" if "chat.server.compression.enabled" is not switched off and the connection supports it,
+     * otherwise the connection stays uncompressed.
+     */
+    private void negotiateCompression(ClientSession session, boolean requested)
+    {
+        if (!requested || !compression || !session.compress(COMPRESS_DEFLATE_MSG, compressionLevel))
+        {
+            session.send(COMPRESS_NONE_MSG);
+        }
+    }
+
+
+    /**
+     * Answers "!update [room name] [since id] [limit n]" with the messages of the user, or of the room, after the given one, at most n
+     * of them. Every message is rendered with its id, which the clients use as cursor. The history is sent in pages of
+     * "chat.history.pageSize" messages followed by an end marker line. Clients need it only to catch up after they connect, or after
+     * "!behind" when they have missed pushed messages, see {@link OutboundQueue}.
+     *
+     * @return the pages, null if the user is not a member of the requested room.
+     */
+    private HistoryPages history(String username, Matcher update)
+    {
+        String room = update.group(1);
+        int lastId = update.group(2) == null ? 0 : Integer.parseInt(update.group(2));
+        int limit = update.group(3) == null ? Integer.MAX_VALUE : Integer.parseInt(update.group(3));
+        if (room == null)
+        {
+            return new HistoryPages(userDao, historyCache, username, lastId, limit, pageSize);
+        }
+        return isMember(room, username) ? HistoryPages.ofRoom(roomDao, historyCache, room, lastId, limit, pageSize) : null;
+    }
+
+
+    /**
+     * Answers "!mailbox [limit n]" with the messages of the user after the last one they have acknowledged, sent like the history, so a
+     * client which was offline receives only its backlog.
+     *
+     * @return the pages, null if the mailbox can't be loaded.
+     */
+    private HistoryPages mailbox(String username, Matcher mailbox)
+    {
+        int limit = mailbox.group(1) == null ? Integer.MAX_VALUE : Integer.parseInt(mailbox.group(1));
+        try
+        {
+            return new HistoryPages(userDao, historyCache, username, mailboxDao.getAcknowledged(username), limit, pageSize);
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to load mailbox!", e);
+            return null;
+        }
+    }
+
+
+    /**
+     * Executes "!ack id", which acknowledges all messages of the user up to the given one.
+     */
+    private void acknowledge(String username, int chatId)
+    {
+        try
+        {
+            mailboxDao.acknowledge(username, chatId);
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to acknowledge messages!", e);
+        }
+    }
+
+
+    /**
+     * Executes "!join room". Only the members of a room can send "#room message" and read its history, "!leave room" ends the
+     * membership.
+     */
+    private void joinRoom(String username, String room)
+    {
+        try
+        {
+            roomRegistry.join(room, username);
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to join room!", e);
+        }
+    }
+
+
+    private void leaveRoom(String username, String room)
+    {
+        try
+        {
+            roomRegistry.leave(room, username);
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to leave room!", e);
+        }
+    }
+
+
+    private boolean isMember(String room, String username)
+    {
+        try
+        {
+            return roomRegistry.isMember(room, username);
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to load members of room!", e);
+            return false;
+        }
+    }
+
+
+    /**
+     * Saves a message to the room if the sender is a member of it.
+     *
+     * @return true if the message is saved.
+     */
+    private boolean sendRoomMsg(String sender, String room, String message)
+    {
+        if (!isMember(room, sender))
+        {
+            return false;
+        }
+        ChatEntity chatEntity = new ChatEntity();
+        chatEntity.setMessage(message);
+        chatEntity.setSender(sender);
+        chatEntity.setRoom(room);
+        saveChat(chatEntity);
+        return true;
+    }
+
+
+    private void saveUser(String username)
+    {
+        if (username == null || username.isEmpty())
+        {
+            throw new IllegalArgumentException("Username is mandatory! Please, provide valid one!");
+        }
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setStatus(UserStatus.ONLINE);
+        try
+        {
+            if (!userDao.userExists(username))
+            {
+                userDao.saveUser(user);
+            }
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to save user!", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Saves a message to everyone. It is stored once, the recipients are resolved when the history is read.
+     */
+    private void saveChat(String sender, String message)
+    {
+        saveChat(sender, null, message);
+    }
+
+
+    private void saveChat(String sender, String recipient, String message)
+    {
+        ChatEntity chatEntity = new ChatEntity();
+        chatEntity.setMessage(message);
+        chatEntity.setSender(sender);
+        chatEntity.setRecipient(recipient);
+        saveChat(chatEntity);
+    }
+
+
+    /**
+     * Saves the message and delivers it. With "chat.writeBehind.enabled" it is saved in a group by the {@link WriteBehindQueue}
+     * ("chat.writeBehind.capacity", "chat.writeBehind.maxBatch", "chat.writeBehind.lingerMillis", "chat.writeBehind.offerTimeoutMillis")
+     * and delivered once committed.
+     */
+    private void saveChat(ChatEntity chatEntity)
+    {
+        try
+        {
+            if (writeBehindQueue != null)
+            {
+                writeBehindQueue.submit(chatEntity);
+            }
+            else
+            {
+                chatDao.saveMsg(chatEntity);
+                deliver(chatEntity);
+            }
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to save chat!", e);
+        }
+    }
+
+
+    /**
+     * Pushes a saved message straight to the open sessions of its recipients.
+     */
+    private void deliver(ChatEntity chat)
+    {
+        metrics.recordMessage();
+        if (historyCache != null)
+        {
+            historyCache.add(chat);
+        }
+        if (chat.getRoom() != null)
+        {
+            roomRegistry.push(chat.getRoom(), chat.getSender(), render(chat));
+        }
+        else if (chat.isBroadcast())
+        {
+            sessionRegistry.pushToAll(chat.getSender(), render(chat));
+        }
+        else
+        {
+            sessionRegistry.push(chat.getRecipient(), render(chat));
+        }
+    }
+
+
+    static String render(ChatEntity chat)
+    {
+        String recipient = chat.getRoom() != null ? ROOM + chat.getRoom()
+                                                  : RECIPIENT + (chat.isBroadcast() ? BROADCAST_RECIPIENT : chat.getRecipient());
+        return ID + chat.getId() + SPACE_SEPARATOR + SENDER + chat.getSender() + SPACE_SEPARATOR + recipient + SPACE_SEPARATOR
+               + chat.getMessage();
+    }
+
+
+    private void sendPrivateMsg(String sender, String message)
+    {
+        String recipient = message.substring(1, message.indexOf(SPACE_SEPARATOR));
+        String privateMsg = message.substring(message.indexOf(SPACE_SEPARATOR), message.length());
+        privateMsg = privateMsg.trim();
+        try
+        {
+            if (userDao.userExists(recipient))
+            {
+                saveChat(sender, recipient, privateMsg);
+                return;
+            }
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to find user!", e.getMessage());
+        }
+        LOGGER.log(Level.INFO, "User does not exist: " + recipient);
+        saveChat(sender, recipient, NO_SUCH_USER_MSG);
+    }
+
+
+    /**
+     * Checks the line before it is executed, so an invalid line is answered with the reason and the session stays open.
+     */
+    private void validateUserInput(ClientSession session, String message) throws InvalidInputException
+    {
+        if (message == null || message.length() >= MAX_LENGTH_MESSAGE)
+        {
+            throw new InvalidInputException(TOO_LONG_MSG);
+        }
+
+        int separator = message.indexOf(SPACE_SEPARATOR);
+        if (separator <= 0)
+        {
+            throw new InvalidInputException(NO_USERNAME_MSG);
+        }
+        String username = message.substring(0, separator);
+        if (session.getUsername() != null && !session.getUsername().equals(username))
+        {
+            throw new InvalidInputException(OTHER_USER_MSG);
+        }
+        String text = message.substring(separator).trim();
+        if (text.startsWith(PRIVATE_MSG_CMD) && !text.contains(SPACE_SEPARATOR))
+        {
+            throw new InvalidInputException(NO_PRIVATE_TEXT_MSG);
+        }
+    }
+
+
+    /**
+     * Kinds of the lines received from the clients, every one with its own latency histogram.
+     */
+    private enum Command
+    {
+        MESSAGE, PRIVATE_MESSAGE, ROOM_MESSAGE, UPDATE, MAILBOX, ACK, JOIN, LEAVE, COMPRESS, UPLOAD
+    }
+}
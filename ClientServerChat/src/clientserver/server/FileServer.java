@@ -0,0 +1,521 @@
+/*
+ * FileServer.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import clientserver.config.Configuration;
+
+
+/**
+ * Transfers files between the clients on its own port next to the chat port, so the line based chat connections never carry file bytes.
+ * <p>
+ * Upload: the client sends the line "PUT token target name size", where target is "*" for everyone, "@user" or "#room", followed by
+ * the content in frames of a 4 bytes length and that many bytes, closed by a frame of length 0. The content is spooled once into
+ * "chat.files.dir" and announced to the target as one chat message "file id name size bytes", every recipient downloads the same file.
+ * The spooled files take at most "chat.files.maxSpoolMegabytes", the oldest files are deleted to make room for a new one.
+ * Download: the client sends the line "GET id". Every request is answered by the line "OK id" after an upload, "OK size" followed by the
+ * content for a download, or "ERROR reason".
+ * <p>
+ * An upload is trusted as far as the chat connection of its sender: the token is the reply of the chat connection to "!upload" and is
+ * valid only while that connection is open, so files are sent only by connected users and in their own name. Downloads are not
+ * checked, anyone who knows the random id of a file can fetch it.
+ * <p>
+ * The content is moved between the socket and the file with {@link FileChannel#transferFrom} and {@link FileChannel#transferTo}, so a
+ * download does not pass through the heap. Settings: "chat.files.port" (the chat port + 1 by default), "chat.files.threads" (connections served
+ * at the same time), "chat.files.queue" (connections waiting for a thread, more are closed), "chat.files.timeoutSeconds" (longest
+ * wait for the client to send or receive data), "chat.files.maxMegabytes" (largest accepted file) and "chat.files.maxFrameKilobytes"
+ * (largest accepted frame).
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class FileServer
+{
+    private static final String DIR_PROPERTY = "chat.files.dir";
+    private static final String THREADS_PROPERTY = "chat.files.threads";
+    private static final String QUEUE_PROPERTY = "chat.files.queue";
+    private static final String TIMEOUT_SECONDS_PROPERTY = "chat.files.timeoutSeconds";
+    private static final String MAX_MEGABYTES_PROPERTY = "chat.files.maxMegabytes";
+    private static final String MAX_FRAME_KILOBYTES_PROPERTY = "chat.files.maxFrameKilobytes";
+    private static final String MAX_SPOOL_MEGABYTES_PROPERTY = "chat.files.maxSpoolMegabytes";
+    private static final String DEFAULT_DIR = "chatfiles";
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_QUEUE = 64;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    private static final int DEFAULT_MAX_MEGABYTES = 10;
+    private static final int DEFAULT_MAX_FRAME_KILOBYTES = 1024;
+    private static final int DEFAULT_MAX_SPOOL_MEGABYTES = 1024;
+    private static final Pattern PUT_CMD = Pattern.compile("^PUT ([0-9a-f]{32}) (\\*|@\\S{1,50}|#[A-Za-z0-9._-]{1,50}) ([A-Za-z0-9._-]{1,100})"
+                                                           + " (\\d{1,18})$");
+    private static final Pattern GET_CMD = Pattern.compile("^GET ([0-9a-f]{32})$");
+    private static final String BROADCAST_TARGET = "*";
+    private static final String USER_TARGET = "@";
+    private static final String PART_SUFFIX = ".part";
+    private static final String OK = "OK ";
+    private static final String ERROR = "ERROR ";
+    private static final String INVALID_REQUEST_MSG = "Invalid request!";
+    private static final String TOO_LARGE_MSG = "File is too large!";
+    private static final String SPOOL_FULL_MSG = "Too many uploads in progress, try again later!";
+    private static final String NO_SUCH_FILE_MSG = "No such file!";
+    private static final String UNKNOWN_TOKEN_MSG = "Unknown upload token, send !upload on the chat connection!";
+    private static final String NOT_A_MEMBER_MSG = "Not a member of the room!";
+    private static final String NO_SUCH_USER_MSG = "No such user!";
+    private static final int MAX_LINE_LENGTH = 512;
+    private static final int ACCEPT_BACKLOG = 128;
+    private static final long DOWNLOAD_CHUNK_BYTES = 64 * 1024;
+    private static final String ACCEPTOR_THREAD_NAME = "chat-files-acceptor";
+    private static final String WORKER_THREAD_NAME = "chat-files-";
+    private static final String WATCHDOG_THREAD_NAME = "chat-files-watchdog";
+    private static final Logger LOGGER = Logger.getLogger(FileServer.class.getName());
+    private final int port;
+    private final Path dir;
+    private final long maxBytes;
+    private final int maxFrameBytes;
+    private final long maxSpoolBytes;
+    private final int timeoutMillis;
+    private final CommandProcessor processor;
+    private final ExecutorService executor;
+    private final WriteWatchdog watchdog;
+    // sizes of the spooled files, the oldest first, guards spoolBytes
+    private final Map<Path, Long> spooled = new LinkedHashMap<Path, Long>();
+    private long spoolBytes;
+
+
+    /**
+     * Creates {@link FileServer} listening on the given port.
+     *
+     * @param port to listen on.
+     * @param processor announces the uploaded files.
+     */
+    public FileServer(int port, CommandProcessor processor)
+    {
+        Configuration configuration = Configuration.getInstance();
+        this.port = port;
+        this.processor = processor;
+        dir = Paths.get(configuration.getString(DIR_PROPERTY, Paths.get(System.getProperty("user.home"), DEFAULT_DIR).toString()));
+        maxBytes = configuration.getLong(MAX_MEGABYTES_PROPERTY, DEFAULT_MAX_MEGABYTES) * 1024 * 1024;
+        maxFrameBytes = configuration.getInt(MAX_FRAME_KILOBYTES_PROPERTY, DEFAULT_MAX_FRAME_KILOBYTES) * 1024;
+        maxSpoolBytes = configuration.getLong(MAX_SPOOL_MEGABYTES_PROPERTY, DEFAULT_MAX_SPOOL_MEGABYTES) * 1024 * 1024;
+        timeoutMillis = configuration.getInt(TIMEOUT_SECONDS_PROPERTY, DEFAULT_TIMEOUT_SECONDS) * 1000;
+        int threads = configuration.getInt(THREADS_PROPERTY, DEFAULT_THREADS);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<Runnable>(configuration.getInt(QUEUE_PROPERTY, DEFAULT_QUEUE)), task -> {
+                                              Thread thread = new Thread(task, WORKER_THREAD_NAME + threadNumber.incrementAndGet());
+                                              thread.setDaemon(true);
+                                              return thread;
+                                          });
+        watchdog = new WriteWatchdog(WATCHDOG_THREAD_NAME, timeoutMillis);
+    }
+
+
+    /**
+     * Creates the spool directory, deletes the parts of interrupted uploads and starts accepting connections on a background thread.
+     *
+     * @throws IOException if the directory can't be read or the port can't be bound.
+     */
+    public void start() throws IOException
+    {
+        Files.createDirectories(dir);
+        loadSpool();
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try
+        {
+            serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        }
+        catch (IOException e)
+        {
+            serverChannel.close();
+            throw e;
+        }
+        Thread acceptor = new Thread(() -> accept(serverChannel), ACCEPTOR_THREAD_NAME);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.log(Level.INFO, "Accepting file transfers at port: " + port + " into " + dir);
+    }
+
+
+    private void accept(ServerSocketChannel serverChannel)
+    {
+        try (ServerSocketChannel channel = serverChannel)
+        {
+            while (!Thread.currentThread().isInterrupted())
+            {
+                SocketChannel client = channel.accept();
+                try
+                {
+                    executor.execute(() -> serve(client));
+                }
+                catch (RejectedExecutionException e)
+                {
+                    LOGGER.log(Level.WARNING, "File transfer rejected!", e);
+                    client.close();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.SEVERE, "Failed to accept file transfers!", e);
+        }
+    }
+
+
+    /**
+     * Serves one request. The client is read through the stream of the socket, as only the stream honours the read timeout.
+     */
+    private void serve(SocketChannel channel)
+    {
+        try (SocketChannel client = channel)
+        {
+            client.socket().setSoTimeout(timeoutMillis);
+            ReadableByteChannel input = Channels.newChannel(client.socket().getInputStream());
+            String request = readLine(input);
+            Matcher put = PUT_CMD.matcher(request);
+            Matcher get = GET_CMD.matcher(request);
+            if (put.matches())
+            {
+                upload(client, input, put.group(1), put.group(2), put.group(3), Long.parseLong(put.group(4)));
+            }
+            else if (get.matches())
+            {
+                download(client, get.group(1));
+            }
+            else
+            {
+                writeLine(client, ERROR + INVALID_REQUEST_MSG);
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.WARNING, "File transfer failed!", e);
+        }
+    }
+
+
+    /**
+     * Spools the frames into a part file, which is renamed to the id of the file only when all of the announced bytes have arrived, and
+     * announces the file to the target.
+     */
+    private void upload(SocketChannel client, ReadableByteChannel input, String token, String target, String name, long size)
+        throws IOException
+    {
+        String username = processor.uploader(token);
+        if (username == null)
+        {
+            writeLine(client, ERROR + UNKNOWN_TOKEN_MSG);
+            return;
+        }
+        // an unknown recipient is not worth receiving the file for, chat messages to it are answered by "No such user!"
+        if (target.startsWith(USER_TARGET) && !processor.userExists(target.substring(USER_TARGET.length())))
+        {
+            writeLine(client, ERROR + NO_SUCH_USER_MSG);
+            return;
+        }
+        if (size > maxBytes || size > maxSpoolBytes)
+        {
+            writeLine(client, ERROR + TOO_LARGE_MSG);
+            return;
+        }
+        if (!reserve(size))
+        {
+            writeLine(client, ERROR + SPOOL_FULL_MSG);
+            return;
+        }
+        String id = UUID.randomUUID().toString().replace("-", "");
+        Path file = dir.resolve(id);
+        boolean announced = false;
+        try
+        {
+            announced = receiveAndAnnounce(client, input, file, username, target, name, size);
+        }
+        finally
+        {
+            settle(file, size, announced);
+        }
+        if (announced)
+        {
+            writeLine(client, OK + file.getFileName());
+        }
+    }
+
+
+    /**
+     * @return false if the upload is rejected, the reason is already sent to the client.
+     */
+    private boolean receiveAndAnnounce(SocketChannel client, ReadableByteChannel input, Path file, String username, String target,
+                                       String name, long size)
+        throws IOException
+    {
+        Path part = dir.resolve(file.getFileName() + PART_SUFFIX);
+        try
+        {
+            if (!receive(input, part, size))
+            {
+                writeLine(client, ERROR + INVALID_REQUEST_MSG);
+                return false;
+            }
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(part);
+        }
+        String announcement = "file " + file.getFileName() + " " + name + " " + size + " bytes";
+        String message = target.equals(BROADCAST_TARGET) ? announcement : target + " " + announcement;
+        if (!processor.send(username, message))
+        {
+            Files.delete(file);
+            writeLine(client, ERROR + NOT_A_MEMBER_MSG);
+            return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Deletes the oldest spooled files until the new file fits in the spool and reserves its size.
+     *
+     * @return false if the spool is taken by uploads still in progress.
+     */
+    private boolean reserve(long size) throws IOException
+    {
+        synchronized (spooled)
+        {
+            Iterator<Map.Entry<Path, Long>> oldest = spooled.entrySet().iterator();
+            while (spoolBytes + size > maxSpoolBytes && oldest.hasNext())
+            {
+                Map.Entry<Path, Long> entry = oldest.next();
+                oldest.remove();
+                spoolBytes -= entry.getValue();
+                Files.deleteIfExists(entry.getKey());
+            }
+            if (spoolBytes + size > maxSpoolBytes)
+            {
+                return false;
+            }
+            spoolBytes += size;
+            return true;
+        }
+    }
+
+
+    /**
+     * Keeps the announced file in the spool, or gives its reserved size back.
+     */
+    private void settle(Path file, long size, boolean announced)
+    {
+        synchronized (spooled)
+        {
+            if (announced)
+            {
+                spooled.put(file, size);
+            }
+            else
+            {
+                spoolBytes -= size;
+            }
+        }
+    }
+
+
+    private void loadSpool() throws IOException
+    {
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir))
+        {
+            for (Path entry : entries)
+            {
+                if (entry.getFileName().toString().endsWith(PART_SUFFIX))
+                {
+                    Files.delete(entry);
+                }
+                else if (Files.isRegularFile(entry))
+                {
+                    files.add(entry);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(FileServer::lastModified));
+        synchronized (spooled)
+        {
+            for (Path file : files)
+            {
+                long size = Files.size(file);
+                spooled.put(file, size);
+                spoolBytes += size;
+            }
+        }
+    }
+
+
+    private static FileTime lastModified(Path file)
+    {
+        try
+        {
+            return Files.getLastModifiedTime(file);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * @return false if the frames don't add up to the announced size.
+     */
+    private boolean receive(ReadableByteChannel input, Path part, long size) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        try (FileChannel file = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            long position = 0;
+            while (true)
+            {
+                header.clear();
+                readFully(input, header);
+                int length = header.getInt(0);
+                if (length == 0)
+                {
+                    return position == size;
+                }
+                if (length < 0 || length > maxFrameBytes || position + length > size)
+                {
+                    return false;
+                }
+                long end = position + length;
+                while (position < end)
+                {
+                    long transferred = file.transferFrom(input, position, end - position);
+                    if (transferred == 0)
+                    {
+                        throw new EOFException("Connection closed during upload!");
+                    }
+                    position += transferred;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Sends the file in chunks, every chunk has to be written within the timeout.
+     */
+    private void download(SocketChannel client, String id) throws IOException
+    {
+        Path path = dir.resolve(id);
+        if (!Files.isRegularFile(path))
+        {
+            writeLine(client, ERROR + NO_SUCH_FILE_MSG);
+            return;
+        }
+        WriteWatchdog.Watch watch = watchdog.register(client, client.socket().getRemoteSocketAddress());
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = file.size();
+            writeLine(client, OK + size);
+            long position = 0;
+            while (position < size)
+            {
+                watch.start();
+                try
+                {
+                    position += file.transferTo(position, Math.min(size - position, DOWNLOAD_CHUNK_BYTES), client);
+                }
+                finally
+                {
+                    watch.done();
+                }
+            }
+        }
+        finally
+        {
+            watch.cancel();
+        }
+    }
+
+
+    private static void readFully(ReadableByteChannel input, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (input.read(buffer) < 0)
+            {
+                throw new EOFException("Connection closed by the client!");
+            }
+        }
+    }
+
+
+    /**
+     * Reads the request line byte by byte, so none of the following content is consumed with it.
+     */
+    private static String readLine(ReadableByteChannel input) throws IOException
+    {
+        ByteBuffer line = ByteBuffer.allocate(MAX_LINE_LENGTH);
+        ByteBuffer next = ByteBuffer.allocate(1);
+        while (line.hasRemaining())
+        {
+            next.clear();
+            readFully(input, next);
+            byte value = next.get(0);
+            if (value == '\n')
+            {
+                line.flip();
+                return StandardCharsets.UTF_8.decode(line).toString().trim();
+            }
+            line.put(value);
+        }
+        throw new IOException("Request line is too long!");
+    }
+
+
+    private static void writeLine(SocketChannel client, String line) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+        {
+            client.write(buffer);
+        }
+    }
+}
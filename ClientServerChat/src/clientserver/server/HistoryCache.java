@@ -0,0 +1,351 @@
+/*
+ * HistoryCache.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import clientserver.dao.RoomDao;
+import clientserver.dao.UserDao;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * The most recent messages, kept to answer history requests for new messages without the {@link UserDao} or {@link RoomDao}. Every
+ * user has a ring of their last private messages, every room a ring of its last messages, messages to everyone share one ring. It is
+ * filled with every saved message and knows from which id on every ring is complete, a history request is answered only if the rings
+ * of the user, or of the room, are complete after the requested id. Otherwise it is a miss and the history is loaded from the DAO.
+ * <p>
+ * Memory is bounded by the size of the rings and the number of users and rooms with a ring. The rings are kept in concurrent maps, and
+ * when a map is full the ring of a user or room which has not been used recently is dropped, chosen like the CLOCK algorithm of page
+ * replacement. Messages deleted directly in the storage stay in the cache.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class HistoryCache implements HistoryCacheMXBean
+{
+    private static final int UNKNOWN = -1;
+    private final RecentMessages broadcasts;
+    private final Rings users;
+    private final Rings rooms;
+    private final AtomicInteger lastSavedId = new AtomicInteger(UNKNOWN);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile int startId = UNKNOWN;
+
+
+    /**
+     * Creates an empty {@link HistoryCache}.
+     *
+     * @param userCapacity is the number of private messages kept for every user.
+     * @param maxUsers is the maximum number of users with kept messages.
+     * @param broadcastCapacity is the number of messages to everyone kept.
+     * @param roomCapacity is the number of messages kept for every room.
+     * @param maxRooms is the maximum number of rooms with kept messages.
+     */
+    public HistoryCache(int userCapacity, int maxUsers, int broadcastCapacity, int roomCapacity, int maxRooms)
+    {
+        if (userCapacity < 1 || maxUsers < 1 || broadcastCapacity < 1 || roomCapacity < 1 || maxRooms < 1)
+        {
+            throw new IllegalArgumentException("Sizes of history cache must be positive!");
+        }
+        this.broadcasts = new RecentMessages(broadcastCapacity, UNKNOWN);
+        this.users = new Rings(userCapacity, maxUsers);
+        this.rooms = new Rings(roomCapacity, maxRooms);
+    }
+
+
+    /**
+     * Adds a saved message to the rings of its sender and recipient, to the ring of its room, or to the ring of messages to everyone.
+     *
+     * @param chat with the id set by the storage.
+     */
+    public void add(ChatEntity chat)
+    {
+        int id = chat.getId();
+        if (startId == UNKNOWN)
+        {
+            synchronized (this)
+            {
+                if (startId == UNKNOWN)
+                {
+                    startId = id;
+                }
+            }
+        }
+        lastSavedId.accumulateAndGet(id, Math::max);
+        if (chat.getRoom() != null)
+        {
+            rooms.get(chat.getRoom()).add(chat);
+            return;
+        }
+        if (chat.isBroadcast())
+        {
+            broadcasts.add(chat);
+            return;
+        }
+        users.get(chat.getSender()).add(chat);
+        if (!chat.getRecipient().equals(chat.getSender()))
+        {
+            users.get(chat.getRecipient()).add(chat);
+        }
+    }
+
+
+    /**
+     * Gets the messages of the user and the messages to everyone after the given one, if the cache has all of them.
+     *
+     * @param username of the user.
+     * @param lastId is the id of the last message known to the client.
+     * @param limit is the maximum number of returned messages.
+     * @return the messages ordered by id, null if the cache does not have all of them.
+     */
+    public List<ChatEntity> getHistorySince(String username, int lastId, int limit)
+    {
+        RecentMessages own = users.get(username);
+        if (!own.isCompleteAfter(lastId) || !broadcasts.isCompleteAfter(lastId))
+        {
+            misses.increment();
+            return null;
+        }
+        List<ChatEntity> ownChats = own.since(lastId, limit);
+        List<ChatEntity> broadcastChats = broadcasts.since(lastId, limit);
+        List<ChatEntity> chats = new ArrayList<ChatEntity>(Math.min(limit, ownChats.size() + broadcastChats.size()));
+        int i = 0;
+        int j = 0;
+        while (chats.size() < limit && (i < ownChats.size() || j < broadcastChats.size()))
+        {
+            if (j >= broadcastChats.size() || i < ownChats.size() && ownChats.get(i).getId() < broadcastChats.get(j).getId())
+            {
+                chats.add(ownChats.get(i++));
+            }
+            else
+            {
+                chats.add(broadcastChats.get(j++));
+            }
+        }
+        hits.increment();
+        return chats;
+    }
+
+
+    /**
+     * Gets the messages to the room after the given one, if the cache has all of them.
+     *
+     * @param room is the name of the room.
+     * @param lastId is the id of the last message known to the client.
+     * @param limit is the maximum number of returned messages.
+     * @return the messages ordered by id, null if the cache does not have all of them.
+     */
+    public List<ChatEntity> getRoomHistorySince(String room, int lastId, int limit)
+    {
+        RecentMessages recent = rooms.get(room);
+        if (!recent.isCompleteAfter(lastId))
+        {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return recent.since(lastId, limit);
+    }
+
+
+    @Override
+    public long getHitCount()
+    {
+        return hits.sum();
+    }
+
+
+    @Override
+    public long getMissCount()
+    {
+        return misses.sum();
+    }
+
+
+    @Override
+    public long getEvictionCount()
+    {
+        return evictions.sum();
+    }
+
+
+    @Override
+    public int getUserCount()
+    {
+        return users.size();
+    }
+
+
+    @Override
+    public int getRoomCount()
+    {
+        return rooms.size();
+    }
+
+
+    /**
+     * The rings of the users or of the rooms. Every ring is marked as used when it is accessed, and the names are queued in the order
+     * their rings are created. When there are too many rings the queue is walked like a clock: a used ring loses its mark and goes to
+     * the end of the queue, the first ring found without a mark is dropped. Rings of different names never share a lock.
+     */
+    private final class Rings
+    {
+        private final ConcurrentMap<String, RecentMessages> rings = new ConcurrentHashMap<String, RecentMessages>();
+        private final Queue<String> clock = new ConcurrentLinkedQueue<String>();
+        private final int capacity;
+        private final int maxSize;
+
+
+        Rings(int capacity, int maxSize)
+        {
+            this.capacity = capacity;
+            this.maxSize = maxSize;
+        }
+
+
+        /**
+         * Gets the ring of the name, creates it if the name has none. A new ring is complete after the last saved message, since every
+         * message saved later is added to it.
+         */
+        RecentMessages get(String name)
+        {
+            RecentMessages ring = rings.get(name);
+            if (ring == null)
+            {
+                RecentMessages created = new RecentMessages(capacity, lastSavedId.get());
+                ring = rings.putIfAbsent(name, created);
+                if (ring == null)
+                {
+                    ring = created;
+                    clock.add(name);
+                    evict();
+                }
+            }
+            ring.used = true;
+            return ring;
+        }
+
+
+        int size()
+        {
+            return rings.size();
+        }
+
+
+        private void evict()
+        {
+            while (rings.size() > maxSize)
+            {
+                String name = clock.poll();
+                if (name == null)
+                {
+                    return;
+                }
+                RecentMessages ring = rings.get(name);
+                if (ring != null && ring.used)
+                {
+                    ring.used = false;
+                    clock.add(name);
+                }
+                else if (ring != null && rings.remove(name, ring))
+                {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Ring of the last messages of one user, of one room, or of the last messages to everyone, ordered by id.
+     */
+    private final class RecentMessages
+    {
+        private final ChatEntity[] chats;
+        private volatile boolean used = true;
+        private int head;
+        private int size;
+        private int completeAfter;
+
+
+        /**
+         * @param capacity is the maximum number of messages.
+         * @param completeAfter is the id after which all messages are added, UNKNOWN if no message has been saved yet.
+         */
+        RecentMessages(int capacity, int completeAfter)
+        {
+            this.chats = new ChatEntity[capacity];
+            this.completeAfter = completeAfter;
+        }
+
+
+        synchronized void add(ChatEntity chat)
+        {
+            if (size == chats.length)
+            {
+                completeAfter = Math.max(completeAfter, chats[head].getId());
+                chats[head] = null;
+                head = (head + 1) % chats.length;
+                size--;
+            }
+            // messages saved concurrently may come out of order, the ring stays sorted by id
+            int i = size;
+            while (i > 0 && get(i - 1).getId() > chat.getId())
+            {
+                set(i, get(i - 1));
+                i--;
+            }
+            set(i, chat);
+            size++;
+        }
+
+
+        synchronized boolean isCompleteAfter(int lastId)
+        {
+            // a ring created before the first message is complete since that message
+            int complete = completeAfter == UNKNOWN && startId != UNKNOWN ? startId - 1 : completeAfter;
+            return complete != UNKNOWN && lastId >= complete;
+        }
+
+
+        synchronized List<ChatEntity> since(int lastId, int limit)
+        {
+            List<ChatEntity> result = new ArrayList<ChatEntity>();
+            for (int i = 0; i < size && result.size() < limit; i++)
+            {
+                if (get(i).getId() > lastId)
+                {
+                    result.add(get(i));
+                }
+            }
+            return result;
+        }
+
+
+        private ChatEntity get(int i)
+        {
+            return chats[(head + i) % chats.length];
+        }
+
+
+        private void set(int i, ChatEntity chat)
+        {
+            chats[(head + i) % chats.length] = chat;
+        }
+    }
+}
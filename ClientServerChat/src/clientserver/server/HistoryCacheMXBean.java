@@ -0,0 +1,31 @@
+/*
+ * HistoryCacheMXBean.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+/**
+ * JMX view of the {@link HistoryCache}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public interface HistoryCacheMXBean
+{
+    public long getHitCount();
+
+
+    public long getMissCount();
+
+
+    public long getEvictionCount();
+
+
+    public int getUserCount();
+
+
+    public int getRoomCount();
+}
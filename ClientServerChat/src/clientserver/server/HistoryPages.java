@@ -0,0 +1,154 @@
+/*
+ * HistoryPages.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.RoomDao;
+import clientserver.dao.UserDao;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Response to a history request, produced page by page. Every page is loaded only when the previous one has been sent, so a request
+ * holds at most one page in memory whatever the size of the history. Pages of recent messages come from the {@link HistoryCache}, older
+ * ones from the {@link UserDao}, or from the {@link RoomDao} for the history of a room. The last line is the end-of-history marker.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+class HistoryPages implements Iterator<String>
+{
+    static final String HISTORY_END = "!end";
+    private static final String MESSAGE_SEPARATOR = "#";
+    private static final Logger LOGGER = Logger.getLogger(HistoryPages.class.getName());
+    private final PageLoader cache;
+    private final PageLoader storage;
+    private final int pageSize;
+    private int lastId;
+    private int remaining;
+    private boolean lastPage;
+    private boolean finished;
+
+
+    /**
+     * Creates {@link HistoryPages} of the messages of the given user after the given one.
+     *
+     * @param userDao to load the pages from.
+     * @param historyCache to take the pages of recent messages from, null if there is none.
+     * @param username of the user.
+     * @param lastId is the id of the last message known to the client.
+     * @param limit is the maximum number of messages in all pages.
+     * @param pageSize is the maximum number of messages in one page.
+     */
+    HistoryPages(UserDao userDao, HistoryCache historyCache, String username, int lastId, int limit, int pageSize)
+    {
+        this(historyCache == null ? null : (afterId, size) -> historyCache.getHistorySince(username, afterId, size),
+             (afterId, size) -> userDao.getHistorySince(username, afterId, size), lastId, limit, pageSize);
+    }
+
+
+    /**
+     * Creates {@link HistoryPages} of the messages to the given room after the given one.
+     *
+     * @param roomDao to load the pages from.
+     * @param historyCache to take the pages of recent messages from, null if there is none.
+     * @param room is the name of the room.
+     * @param lastId is the id of the last message known to the client.
+     * @param limit is the maximum number of messages in all pages.
+     * @param pageSize is the maximum number of messages in one page.
+     * @return the pages.
+     */
+    static HistoryPages ofRoom(RoomDao roomDao, HistoryCache historyCache, String room, int lastId, int limit, int pageSize)
+    {
+        return new HistoryPages(historyCache == null ? null : (afterId, size) -> historyCache.getRoomHistorySince(room, afterId, size),
+                                (afterId, size) -> roomDao.getRoomHistorySince(room, afterId, size), lastId, limit, pageSize);
+    }
+
+
+    private HistoryPages(PageLoader cache, PageLoader storage, int lastId, int limit, int pageSize)
+    {
+        this.cache = cache;
+        this.storage = storage;
+        this.lastId = lastId;
+        this.remaining = limit;
+        this.pageSize = pageSize;
+    }
+
+
+    @Override
+    public boolean hasNext()
+    {
+        return !finished;
+    }
+
+
+    @Override
+    public String next()
+    {
+        if (finished)
+        {
+            throw new NoSuchElementException();
+        }
+        List<ChatEntity> chats = lastPage || remaining <= 0 ? null : loadPage();
+        if (chats == null || chats.isEmpty())
+        {
+            finished = true;
+            return HISTORY_END;
+        }
+        StringBuilder page = new StringBuilder();
+        for (ChatEntity chat : chats)
+        {
+            page.append(CommandProcessor.render(chat)).append(MESSAGE_SEPARATOR);
+        }
+        return page.toString();
+    }
+
+
+    private List<ChatEntity> loadPage()
+    {
+        int size = Math.min(pageSize, remaining);
+        try
+        {
+            List<ChatEntity> chats = cache == null ? null : cache.load(lastId, size);
+            if (chats == null)
+            {
+                chats = storage.load(lastId, size);
+            }
+            if (!chats.isEmpty())
+            {
+                lastId = chats.get(chats.size() - 1).getId();
+            }
+            remaining -= chats.size();
+            lastPage = chats.size() < size;
+            return chats;
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to send history to the user!", e);
+            return null;
+        }
+    }
+
+
+    /**
+     * Loads one page of messages after the given one.
+     */
+    private interface PageLoader
+    {
+        /**
+         * @return the messages ordered by id, null if they are not available from this loader.
+         */
+        List<ChatEntity> load(int lastId, int limit) throws DaoException;
+    }
+}
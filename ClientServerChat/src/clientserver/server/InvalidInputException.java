@@ -0,0 +1,23 @@
+/*
+ * InvalidInputException.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+/**
+ * Represents a line received from a client which does not follow the protocol. The message is replied to the client.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+@SuppressWarnings("serial")
+class InvalidInputException extends Exception
+{
+    InvalidInputException(String message)
+    {
+        super(message);
+    }
+}
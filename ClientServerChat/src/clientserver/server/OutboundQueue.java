@@ -0,0 +1,149 @@
+/*
+ * OutboundQueue.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import clientserver.config.Configuration;
+import clientserver.metrics.ServerMetrics;
+
+
+/**
+ * Bounded queue of the messages pushed to one {@link ClientSession} until they are written to the connection, so a client which reads
+ * slowly neither blocks the thread pushing to it nor holds an unbounded number of messages. Holds at most
+ * "chat.server.outboundQueue.capacity" messages, the {@link OverflowPolicy} of "chat.server.outboundQueue.policy" decides what happens
+ * beyond that. Responses to the requests of the client are not queued here, they are paced by the client itself. Depth and drops of all
+ * queues are counted in the {@link ServerMetrics}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class OutboundQueue
+{
+    /**
+     * Line telling the client that messages have been dropped and should be requested with "!update since id".
+     */
+    public static final String BEHIND_MSG = "!behind";
+    private static final String CAPACITY_PROPERTY = "chat.server.outboundQueue.capacity";
+    private static final String POLICY_PROPERTY = "chat.server.outboundQueue.policy";
+    private static final int DEFAULT_CAPACITY = 1000;
+    private final Deque<String> lines = new ArrayDeque<String>();
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final ServerMetrics metrics = ServerMetrics.getInstance();
+    private boolean behind;
+    private boolean closed;
+
+
+    /**
+     * Creates {@link OutboundQueue} with the configured capacity and policy.
+     */
+    public OutboundQueue()
+    {
+        this(Configuration.getInstance().getInt(CAPACITY_PROPERTY, DEFAULT_CAPACITY),
+             Configuration.getInstance().getEnum(POLICY_PROPERTY, OverflowPolicy.class, OverflowPolicy.PULL));
+    }
+
+
+    /**
+     * Creates {@link OutboundQueue} with the given capacity and policy.
+     *
+     * @param capacity is the maximum number of queued messages.
+     * @param policy applied when the queue is full.
+     */
+    OutboundQueue(int capacity, OverflowPolicy policy)
+    {
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+
+    /**
+     * Queues a pushed message, or applies the {@link OverflowPolicy} if the queue is full. Messages pushed after the queue has been
+     * closed are ignored.
+     *
+     * @param line to push.
+     * @return false if the connection has to be closed, returned only once.
+     */
+    public synchronized boolean offer(String line)
+    {
+        if (closed)
+        {
+            return true;
+        }
+        if (behind)
+        {
+            metrics.recordOutboundDrop();
+            return true;
+        }
+        if (lines.size() < capacity)
+        {
+            add(line);
+            return true;
+        }
+        metrics.recordOutboundDrop();
+        switch (policy)
+        {
+            case DROP_OLDEST:
+                lines.poll();
+                lines.add(line);
+                return true;
+            case DISCONNECT:
+                metrics.recordSlowConsumerDisconnect();
+                close();
+                return false;
+            default:
+                behind = true;
+                metrics.recordPullFallback();
+                add(BEHIND_MSG);
+                return true;
+        }
+    }
+
+
+    /**
+     * Takes the next message to write.
+     *
+     * @return the message, null if the queue is empty.
+     */
+    public synchronized String poll()
+    {
+        String line = lines.poll();
+        if (line != null)
+        {
+            metrics.recordOutboundDequeued(1);
+            behind = behind && !BEHIND_MSG.equals(line);
+        }
+        return line;
+    }
+
+
+    public synchronized boolean isEmpty()
+    {
+        return lines.isEmpty();
+    }
+
+
+    /**
+     * Discards the queued messages of a closed connection and every message pushed to it later.
+     */
+    public synchronized void close()
+    {
+        closed = true;
+        metrics.recordOutboundDequeued(lines.size());
+        lines.clear();
+    }
+
+
+    private void add(String line)
+    {
+        lines.add(line);
+        metrics.recordOutboundQueued();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * OverflowPolicy.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+/**
+ * What happens to a message pushed to a client which reads slower than messages arrive, once its {@link OutboundQueue} is full.
+ * Selected with the setting "chat.server.outboundQueue.policy".
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public enum OverflowPolicy
+{
+    /**
+     * The oldest queued message is dropped to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The connection is closed, the client catches up with the history when it reconnects.
+     */
+    DISCONNECT,
+
+    /**
+     * New messages are dropped and the client is told with a marker line after the queued ones to request the missed messages with
+     * "!update since id". Messages are pushed again once the marker has been taken from the queue.
+     */
+    PULL;
+}
@@ -0,0 +1,183 @@
+/*
+ * RoomRegistry.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.RoomDao;
+
+
+/**
+ * In-memory members of the chat rooms, loaded from the {@link RoomDao} when a room is used for the first time. Every room has its own
+ * set of members, so messages to a room are pushed only to its members and rooms with unrelated traffic don't share any lock. Only rooms
+ * with members are kept, a room is dropped when its last member leaves.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class RoomRegistry
+{
+    private final ConcurrentMap<String, Set<String>> rooms = new ConcurrentHashMap<String, Set<String>>();
+    private final RoomDao roomDao;
+    private final SessionRegistry sessionRegistry;
+
+
+    /**
+     * @param roomDao to load and store the members.
+     * @param sessionRegistry to push messages to the members.
+     */
+    public RoomRegistry(RoomDao roomDao, SessionRegistry sessionRegistry)
+    {
+        this.roomDao = roomDao;
+        this.sessionRegistry = sessionRegistry;
+    }
+
+
+    /**
+     * Adds the user to the room.
+     *
+     * @param room is the name of the room.
+     * @param username of the user.
+     * @throws DaoException if the member can't be stored.
+     */
+    public void join(String room, String username) throws DaoException
+    {
+        roomDao.joinRoom(room, username);
+        try
+        {
+            rooms.compute(room, (name, members) -> {
+                Set<String> joined = members != null ? members : load(name);
+                joined.add(username);
+                return joined;
+            });
+        }
+        catch (LoadFailure e)
+        {
+            throw e.getCause();
+        }
+    }
+
+
+    /**
+     * Removes the user from the room.
+     *
+     * @param room is the name of the room.
+     * @param username of the user.
+     * @throws DaoException if the member can't be removed.
+     */
+    public void leave(String room, String username) throws DaoException
+    {
+        roomDao.leaveRoom(room, username);
+        rooms.computeIfPresent(room, (name, members) -> {
+            members.remove(username);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+
+    /**
+     * @param room is the name of the room.
+     * @param username of the user.
+     * @return true if the user is a member of the room.
+     * @throws DaoException if the members can't be loaded.
+     */
+    public boolean isMember(String room, String username) throws DaoException
+    {
+        Set<String> members = members(room);
+        return members != null && members.contains(username);
+    }
+
+
+    /**
+     * Sends the line to all open sessions of the members of the room except the sessions of the sender.
+     *
+     * @param room is the name of the room.
+     * @param sender whose sessions are skipped.
+     * @param line to send.
+     */
+    public void push(String room, String sender, String line)
+    {
+        Set<String> members = rooms.get(room);
+        if (members == null)
+        {
+            return;
+        }
+        for (String member : members)
+        {
+            if (!member.equals(sender))
+            {
+                sessionRegistry.push(member, line);
+            }
+        }
+    }
+
+
+    /**
+     * Gets the members of the room, loads them if the room is not kept yet. The members are loaded and changed only inside the atomic
+     * operations of the map, and changed in the {@link RoomDao} before that, so the kept set is never older than the stored one.
+     *
+     * @return null if the room has no members.
+     */
+    private Set<String> members(String room) throws DaoException
+    {
+        Set<String> members = rooms.get(room);
+        if (members != null)
+        {
+            return members;
+        }
+        try
+        {
+            return rooms.computeIfAbsent(room, name -> {
+                Set<String> loaded = load(name);
+                return loaded.isEmpty() ? null : loaded;
+            });
+        }
+        catch (LoadFailure e)
+        {
+            throw e.getCause();
+        }
+    }
+
+
+    private Set<String> load(String room)
+    {
+        try
+        {
+            Set<String> members = ConcurrentHashMap.newKeySet();
+            members.addAll(roomDao.getMembers(room));
+            return members;
+        }
+        catch (DaoException e)
+        {
+            throw new LoadFailure(e);
+        }
+    }
+
+
+    /**
+     * Carries the {@link DaoException} of a load out of the atomic operations of the map.
+     */
+    @SuppressWarnings("serial")
+    private static class LoadFailure extends RuntimeException
+    {
+        LoadFailure(DaoException cause)
+        {
+            super(cause);
+        }
+
+
+        @Override
+        public synchronized DaoException getCause()
+        {
+            return (DaoException) super.getCause();
+        }
+    }
+}
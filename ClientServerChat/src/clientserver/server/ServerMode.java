@@ -0,0 +1,32 @@
+/*
+ * ServerMode.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+/**
+ * Represents the way the {@link ChatServer} serves its connections. Selected at startup with the setting "chat.server.mode".
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public enum ServerMode
+{
+    /**
+     * One connection at a time, the next client waits in the accept backlog until the current one disconnects.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Blocking connections, each of them handled by its own {@link ClientHandler} on a virtual thread or on a bounded thread pool.
+     */
+    THREADED,
+
+    /**
+     * Non-blocking connections multiplexed over a small number of selector threads.
+     */
+    NIO;
+}
@@ -0,0 +1,108 @@
+/*
+ * SessionRegistry.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * In-memory registry of the open {@link ClientSession}s keyed by username. A user may be connected with more than one session.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class SessionRegistry
+{
+    private final ConcurrentMap<String, Set<ClientSession>> sessions = new ConcurrentHashMap<String, Set<ClientSession>>();
+
+
+    /**
+     * Registers the session under the user it is bound to.
+     *
+     * @param session bound {@link ClientSession}.
+     */
+    public void register(ClientSession session)
+    {
+        sessions.compute(session.getUsername(), (username, userSessions) -> {
+            Set<ClientSession> registered = userSessions == null ? ConcurrentHashMap.<ClientSession> newKeySet() : userSessions;
+            registered.add(session);
+            return registered;
+        });
+    }
+
+
+    /**
+     * Removes the session from the registry. Does nothing if the session has never been registered.
+     *
+     * @param session closed {@link ClientSession}.
+     */
+    public void unregister(ClientSession session)
+    {
+        if (session.getUsername() == null)
+        {
+            return;
+        }
+        sessions.computeIfPresent(session.getUsername(), (username, userSessions) -> {
+            userSessions.remove(session);
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+    }
+
+
+    /**
+     * Gets the open sessions of the given user.
+     *
+     * @param username of the user.
+     * @return the sessions, empty if the user is not connected.
+     */
+    public Set<ClientSession> getSessions(String username)
+    {
+        Set<ClientSession> userSessions = sessions.get(username);
+        return userSessions == null ? Collections.<ClientSession> emptySet() : userSessions;
+    }
+
+
+    /**
+     * Sends the line to all open sessions of the given user.
+     *
+     * @param username of the recipient.
+     * @param line to send.
+     */
+    public void push(String username, String line)
+    {
+        for (ClientSession session : getSessions(username))
+        {
+            session.push(line);
+        }
+    }
+
+
+    /**
+     * Sends the line to all open sessions except the sessions of the given user.
+     *
+     * @param sender whose sessions are skipped.
+     * @param line to send.
+     */
+    public void pushToAll(String sender, String line)
+    {
+        for (Map.Entry<String, Set<ClientSession>> userSessions : sessions.entrySet())
+        {
+            if (!userSessions.getKey().equalsIgnoreCase(sender))
+            {
+                for (ClientSession session : userSessions.getValue())
+                {
+                    session.push(line);
+                }
+            }
+        }
+    }
+}
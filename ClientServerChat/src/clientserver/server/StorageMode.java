@@ -0,0 +1,32 @@
+/*
+ * StorageMode.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+/**
+ * Represents where the {@link ChatServer} keeps its users and messages. Selected at startup with the setting "chat.storage".
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public enum StorageMode
+{
+    /**
+     * The H2 Database, users are additionally cached in memory.
+     */
+    DB,
+
+    /**
+     * Memory of the server only, everything is lost when it stops. For short-lived chats which need low latency but no durability.
+     */
+    MEMORY,
+
+    /**
+     * Append-only log of memory-mapped files, without an SQL engine.
+     */
+    LOG;
+}
@@ -0,0 +1,220 @@
+/*
+ * WriteBehindQueue.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.dao.ChatDao;
+import clientserver.dao.DaoException;
+import clientserver.database.SqlContext;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Write-behind stage between the connections and the {@link ChatDao}. Messages are queued in a bounded queue and saved by one writer
+ * thread in groups: the writer waits at most the linger time for more messages after the first one and commits up to the maximum batch
+ * size in one transaction. When the queue is full, producers wait for free space and fail after the offer timeout. Every message is
+ * handed to the listener only after it has been committed. The writer keeps one {@link SqlContext} open, so all groups are saved over
+ * the same connection and insert statement.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class WriteBehindQueue
+{
+    private static final String WRITER_THREAD_NAME = "chat-write-behind";
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindQueue.class.getName());
+    private final ChatDao chatDao;
+    private final BlockingQueue<ChatEntity> queue;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final long offerTimeoutMillis;
+    private final Consumer<ChatEntity> savedListener;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+
+    /**
+     * Creates {@link WriteBehindQueue} and starts its writer thread.
+     *
+     * @param chatDao to save the messages with.
+     * @param capacity is the maximum number of queued messages.
+     * @param maxBatchSize is the maximum number of messages saved in one transaction.
+     * @param lingerMillis is the maximum time to wait for more messages before saving a group.
+     * @param offerTimeoutMillis is the maximum time a producer waits for free space.
+     * @param savedListener is called with every message after it has been saved.
+     */
+    public WriteBehindQueue(ChatDao chatDao, int capacity, int maxBatchSize, long lingerMillis, long offerTimeoutMillis,
+                            Consumer<ChatEntity> savedListener)
+    {
+        if (capacity < 1 || maxBatchSize < 1)
+        {
+            throw new IllegalArgumentException("Capacity and batch size of write-behind queue must be positive!");
+        }
+        this.chatDao = chatDao;
+        this.queue = new ArrayBlockingQueue<ChatEntity>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.savedListener = savedListener;
+        writer = new Thread(this::writeLoop, WRITER_THREAD_NAME);
+        writer.start();
+    }
+
+
+    /**
+     * Queues the message for saving. Waits while the queue is full.
+     *
+     * @param chat is given {@link ChatEntity} to save.
+     * @throws DaoException if the queue is closed or stays full longer than the offer timeout.
+     */
+    public void submit(ChatEntity chat) throws DaoException
+    {
+        if (!running)
+        {
+            throw new DaoException("Write-behind queue is closed!");
+        }
+        try
+        {
+            if (!queue.offer(chat, offerTimeoutMillis, TimeUnit.MILLISECONDS))
+            {
+                LOGGER.log(Level.WARNING, "Write-behind queue is full!");
+                throw new DaoException("Server is busy, message is not saved!");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new DaoException("Interrupted while saving message!", e);
+        }
+    }
+
+
+    public int size()
+    {
+        return queue.size();
+    }
+
+
+    /**
+     * Stops accepting messages and waits until the writer has saved all queued messages.
+     */
+    public void close()
+    {
+        running = false;
+        try
+        {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty())
+        {
+            LOGGER.log(Level.SEVERE, queue.size() + " messages were not saved before shutdown!");
+        }
+    }
+
+
+    private void writeLoop()
+    {
+        List<ChatEntity> batch = new ArrayList<ChatEntity>(maxBatchSize);
+        SqlContext context = SqlContext.open();
+        try
+        {
+            while (running || !queue.isEmpty())
+            {
+                ChatEntity first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize)
+                {
+                    ChatEntity next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null)
+                    {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                save(batch);
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            LOGGER.log(Level.SEVERE, "Write-behind writer interrupted, " + queue.size() + " messages are not saved!", e);
+        }
+        finally
+        {
+            context.close();
+        }
+    }
+
+
+    private void save(List<ChatEntity> batch)
+    {
+        try
+        {
+            chatDao.saveMsgs(batch);
+        }
+        catch (DaoException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to save group of messages, saving them one by one!", e);
+            saveEach(batch);
+            return;
+        }
+        for (ChatEntity chat : batch)
+        {
+            notifySaved(chat);
+        }
+    }
+
+
+    private void saveEach(List<ChatEntity> batch)
+    {
+        for (ChatEntity chat : batch)
+        {
+            try
+            {
+                chatDao.saveMsg(chat);
+                notifySaved(chat);
+            }
+            catch (DaoException e)
+            {
+                LOGGER.log(Level.WARNING, "Failed to save chat!", e);
+            }
+        }
+    }
+
+
+    private void notifySaved(ChatEntity chat)
+    {
+        try
+        {
+            savedListener.accept(chat);
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to deliver saved message!", e);
+        }
+    }
+}
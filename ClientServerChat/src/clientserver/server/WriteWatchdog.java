@@ -0,0 +1,134 @@
+/*
+ * WriteWatchdog.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Closes connections whose blocking write does not complete in time. Writes to a blocking socket have no timeout of their own, so a
+ * client which stops reading would otherwise keep the writing thread forever. Closing the connection makes the write fail.
+ * <p>
+ * Every connection registers one {@link Watch} and marks the start and the end of its writes, which costs two volatile writes. A timer
+ * thread checks the registered connections a few times per timeout, so a write is interrupted between one and about one and a quarter
+ * timeouts after it started.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class WriteWatchdog
+{
+    private static final int CHECKS_PER_TIMEOUT = 4;
+    private static final long MIN_CHECK_MILLIS = 100L;
+    private static final long IDLE = 0L;
+    private static final Logger LOGGER = Logger.getLogger(WriteWatchdog.class.getName());
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+    private final long timeoutNanos;
+
+
+    /**
+     * Creates {@link WriteWatchdog} with its own daemon timer thread.
+     *
+     * @param threadName of the timer thread.
+     * @param timeoutMillis longest time a write may take.
+     */
+    public WriteWatchdog(String threadName, long timeoutMillis)
+    {
+        timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        ScheduledExecutorService timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(MIN_CHECK_MILLIS, timeoutMillis / CHECKS_PER_TIMEOUT);
+        timer.scheduleWithFixedDelay(this::check, period, period, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Starts watching the writes to the connection.
+     *
+     * @param connection to close if a write takes too long.
+     * @param description of the connection for the log.
+     * @return the {@link Watch} of the connection, must be cancelled when the connection is closed.
+     */
+    Watch register(Closeable connection, Object description)
+    {
+        Watch watch = new Watch(connection, description);
+        watches.add(watch);
+        return watch;
+    }
+
+
+    private void check()
+    {
+        long now = System.nanoTime();
+        for (Watch watch : watches)
+        {
+            long started = watch.started;
+            if (started != IDLE && now - started > timeoutNanos)
+            {
+                LOGGER.log(Level.WARNING, "Write to " + watch.description + " timed out, closing the connection");
+                watch.cancel();
+                try
+                {
+                    watch.connection.close();
+                }
+                catch (IOException e)
+                {
+                    LOGGER.log(Level.INFO, "Client connection is not closed!", e);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Marks the writes to one connection. A connection is written by one thread at a time.
+     */
+    final class Watch
+    {
+        private final Closeable connection;
+        private final Object description;
+        private volatile long started = IDLE;
+
+
+        private Watch(Closeable connection, Object description)
+        {
+            this.connection = connection;
+            this.description = description;
+        }
+
+
+        void start()
+        {
+            long now = System.nanoTime();
+            started = now == IDLE ? 1 : now;
+        }
+
+
+        void done()
+        {
+            started = IDLE;
+        }
+
+
+        void cancel()
+        {
+            watches.remove(this);
+        }
+    }
+}
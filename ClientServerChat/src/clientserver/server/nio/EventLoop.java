@@ -0,0 +1,194 @@
+/*
+ * EventLoop.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server.nio;
+
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.metrics.ServerMetrics;
+import clientserver.server.CommandProcessor;
+
+
+/**
+ * Serves a group of non-blocking connections from one thread. Other threads never touch the {@link Selector} directly, they hand
+ * over their work with {@link #execute(Runnable)}. The commands of the clients run on a worker {@link Executor}, so the thread never
+ * waits for the database.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+class EventLoop implements Runnable
+{
+    private static final Logger LOGGER = Logger.getLogger(EventLoop.class.getName());
+    private final Selector selector;
+    private final CommandProcessor processor;
+    private final Executor worker;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private volatile boolean running = true;
+    private volatile Thread thread;
+
+
+    EventLoop(CommandProcessor processor, Executor worker) throws IOException
+    {
+        this.processor = processor;
+        this.worker = worker;
+        selector = Selector.open();
+    }
+
+
+    /**
+     * Registers newly accepted connection in this event loop.
+     *
+     * @param channel is accepted {@link SocketChannel}.
+     */
+    void register(final SocketChannel channel)
+    {
+        execute(() -> {
+            try
+            {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new NioSession(channel, key, this, processor, worker));
+            }
+            catch (IOException e)
+            {
+                LOGGER.log(Level.WARNING, "Failed to register client connection!", e);
+                NioSession.closeQuietly(channel);
+            }
+        });
+    }
+
+
+    /**
+     * Runs the given task on the event loop thread.
+     *
+     * @param task to run.
+     */
+    void execute(Runnable task)
+    {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+
+    boolean inEventLoop()
+    {
+        return Thread.currentThread() == thread;
+    }
+
+
+    void shutdown()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+
+    @Override
+    public void run()
+    {
+        thread = Thread.currentThread();
+        try
+        {
+            while (running)
+            {
+                selector.select();
+                runTasks();
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext())
+                {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    handle(key);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.SEVERE, "Event loop failed!", e);
+        }
+        finally
+        {
+            closeAll();
+        }
+    }
+
+
+    private void handle(SelectionKey key)
+    {
+        NioSession session = (NioSession) key.attachment();
+        try
+        {
+            if (key.isValid() && key.isReadable())
+            {
+                session.read();
+            }
+            if (key.isValid() && key.isWritable())
+            {
+                session.write();
+            }
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.log(Level.SEVERE, "Failed to serve client!", e);
+            ServerMetrics.getInstance().recordClientError();
+            session.close();
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to communicate with client!", e);
+            ServerMetrics.getInstance().recordClientError();
+            session.close();
+        }
+    }
+
+
+    private void runTasks()
+    {
+        Runnable task;
+        while ((task = tasks.poll()) != null)
+        {
+            try
+            {
+                task.run();
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.log(Level.SEVERE, "Event loop task failed!", e);
+            }
+        }
+    }
+
+
+    private void closeAll()
+    {
+        for (SelectionKey key : selector.keys())
+        {
+            if (key.attachment() != null)
+            {
+                ((NioSession) key.attachment()).close();
+            }
+        }
+        try
+        {
+            selector.close();
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.INFO, "Selector is not closed!", e);
+        }
+    }
+}
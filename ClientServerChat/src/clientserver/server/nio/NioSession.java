@@ -0,0 +1,415 @@
+/*
+ * NioSession.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server.nio;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+
+import clientserver.server.ClientSession;
+import clientserver.metrics.ServerMetrics;
+import clientserver.server.CommandProcessor;
+import clientserver.server.OutboundQueue;
+
+
+/**
+ * State of one non-blocking client connection. Splits the incoming bytes into lines, passes every line to the
+ * {@link CommandProcessor} on a worker thread and queues the responses and pushed messages until the channel accepts them. The channel
+ * is used only from the thread of its {@link EventLoop}, other threads just queue their lines. The session stops reading while one of
+ * its lines is processed, so its commands run one after the other. While a streamed response is pending the session stops reading as
+ * well, and the next line of the stream is produced on a worker thread only when the previous ones have been written. The session stops reading as well
+ * while the client does not read what has been written, so the responses to its requests can't pile up. Lines are encoded, and deflated
+ * once compression is negotiated, in the order they are queued. Pushed messages wait in an {@link OutboundQueue} and are encoded only
+ * when everything before them has been written, so the queue can drop them without breaking the deflate stream.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+class NioSession extends ClientSession
+{
+    private static final int READ_BUFFER_SIZE = 1024;
+    private static final int DEFLATE_BUFFER_SIZE = 8192;
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final Logger LOGGER = Logger.getLogger(NioSession.class.getName());
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final EventLoop eventLoop;
+    private final CommandProcessor processor;
+    private final Executor worker;
+    private final ServerMetrics metrics = ServerMetrics.getInstance();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final OutboundQueue pushQueue = new OutboundQueue();
+    private Iterator<String> pendingLines;
+    private boolean busy;
+    private boolean skipping;
+    private Deflater deflater;
+    private byte[] deflateBuffer;
+    private boolean closed;
+
+
+    NioSession(SocketChannel channel, SelectionKey key, EventLoop eventLoop, CommandProcessor processor, Executor worker)
+    {
+        this.channel = channel;
+        this.key = key;
+        this.eventLoop = eventLoop;
+        this.processor = processor;
+        this.worker = worker;
+        metrics.sessionOpened();
+    }
+
+
+    @Override
+    public void send(String line)
+    {
+        enqueue(line);
+        scheduleFlush();
+    }
+
+
+    @Override
+    public void push(String line)
+    {
+        if (pushQueue.offer(line))
+        {
+            scheduleFlush();
+        }
+        else if (eventLoop.inEventLoop())
+        {
+            close();
+        }
+        else
+        {
+            eventLoop.execute(this::close);
+        }
+    }
+
+
+    @Override
+    protected boolean compress(String reply, int level)
+    {
+        synchronized (this)
+        {
+            if (deflater != null)
+            {
+                return false;
+            }
+            enqueue(reply);
+            deflater = new Deflater(level);
+            deflateBuffer = new byte[DEFLATE_BUFFER_SIZE];
+        }
+        scheduleFlush();
+        return true;
+    }
+
+
+    private void scheduleFlush()
+    {
+        if (eventLoop.inEventLoop())
+        {
+            flush();
+        }
+        else
+        {
+            eventLoop.execute(this::flush);
+        }
+    }
+
+
+    @Override
+    public void send(Iterator<String> lines)
+    {
+        if (!eventLoop.inEventLoop())
+        {
+            eventLoop.execute(() -> send(lines));
+            return;
+        }
+        pendingLines = lines;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        flush();
+    }
+
+
+    /**
+     * Reads available bytes and processes every completed line. A line which does not fit in the read buffer is answered with an error
+     * and skipped.
+     *
+     * @throws IOException if reading from the channel fails.
+     */
+    void read() throws IOException
+    {
+        int read = channel.read(readBuffer);
+        if (read < 0)
+        {
+            close();
+            return;
+        }
+        metrics.recordBytesIn(read);
+        processLines();
+        if (!readBuffer.hasRemaining() && !busy && pendingLines == null)
+        {
+            readBuffer.clear();
+            if (!skipping)
+            {
+                skipping = true;
+                processor.rejectTooLong(this);
+            }
+        }
+    }
+
+
+    /**
+     * Writes queued responses and pushed messages until everything is written or the socket buffer is full, then requests the next line
+     * of the pending stream. Stops reading while the socket buffer is full and resumes when everything is written, the pending stream is
+     * complete and no line is processed.
+     *
+     * @throws IOException if writing to the channel fails.
+     */
+    void write() throws IOException
+    {
+        ByteBuffer buffer;
+        while ((buffer = nextBuffer()) != null)
+        {
+            metrics.recordBytesOut(channel.write(buffer));
+            if (buffer.hasRemaining())
+            {
+                // the client does not read, so its requests are not read either until it catches up
+                key.interestOps((key.interestOps() | SelectionKey.OP_WRITE) & ~SelectionKey.OP_READ);
+                return;
+            }
+            writeQueue.poll();
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        if (busy)
+        {
+            return;
+        }
+        if (pendingLines != null && pendingLines.hasNext())
+        {
+            produceNextLine();
+            return;
+        }
+        pendingLines = null;
+        key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        processLines();
+    }
+
+
+    void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        metrics.sessionClosed();
+        processor.disconnect(this);
+        key.cancel();
+        writeQueue.clear();
+        pushQueue.close();
+        pendingLines = null;
+        closeQuietly(channel);
+        synchronized (this)
+        {
+            if (deflater != null)
+            {
+                deflater.end();
+                deflater = null;
+            }
+        }
+    }
+
+
+    static void closeQuietly(SocketChannel channel)
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.INFO, "Client connection is not closed!", e);
+        }
+    }
+
+
+    /**
+     * Gets the next buffer to write: queued responses first, then pushed messages.
+     */
+    private ByteBuffer nextBuffer()
+    {
+        if (writeQueue.isEmpty())
+        {
+            String pushed = pushQueue.poll();
+            if (pushed != null)
+            {
+                enqueue(pushed);
+            }
+        }
+        return writeQueue.peek();
+    }
+
+
+    /**
+     * Hands the first completed line to a worker thread. The session stops reading until the line is processed.
+     */
+    private void processLines()
+    {
+        String line;
+        if (closed || busy || pendingLines != null || (line = nextLine()) == null)
+        {
+            return;
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        runOnWorker(() -> {
+            processor.process(this, line);
+            eventLoop.execute(this::lineProcessed);
+        });
+    }
+
+
+    private void lineProcessed()
+    {
+        busy = false;
+        flush();
+    }
+
+
+    /**
+     * Produces the next line of the pending stream on a worker thread, as it may have to be loaded from the database.
+     */
+    private void produceNextLine()
+    {
+        Iterator<String> lines = pendingLines;
+        runOnWorker(() -> {
+            String line = lines.next();
+            eventLoop.execute(() -> {
+                busy = false;
+                enqueue(line);
+                flush();
+            });
+        });
+    }
+
+
+    /**
+     * Runs the task on a worker thread and marks the session busy until the task posts its result back to the event loop. The session
+     * is closed if the task fails or the workers can't take it.
+     */
+    private void runOnWorker(Runnable task)
+    {
+        busy = true;
+        try
+        {
+            worker.execute(() -> {
+                try
+                {
+                    task.run();
+                }
+                catch (RuntimeException e)
+                {
+                    LOGGER.log(Level.SEVERE, "Failed to process client request!", e);
+                    metrics.recordClientError();
+                    eventLoop.execute(this::close);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            LOGGER.log(Level.WARNING, "Too many requests, closing " + channel.socket().getRemoteSocketAddress());
+            close();
+        }
+    }
+
+
+    /**
+     * Takes the first completed line out of the read buffer. The end of a skipped line is dropped.
+     *
+     * @return the line without line separator, null if no line is completed yet.
+     */
+    private String nextLine()
+    {
+        byte[] bytes = readBuffer.array();
+        for (int i = 0; i < readBuffer.position(); i++)
+        {
+            if (bytes[i] == NEW_LINE)
+            {
+                int lineEnd = i > 0 && bytes[i - 1] == CARRIAGE_RETURN ? i - 1 : i;
+                String line = new String(bytes, 0, lineEnd, CHARSET);
+                readBuffer.flip();
+                readBuffer.position(i + 1);
+                readBuffer.compact();
+                if (skipping)
+                {
+                    skipping = false;
+                    return nextLine();
+                }
+                return line;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Encodes the line and queues it in one step, so the lines reach the deflate stream in the order they are written.
+     */
+    private synchronized void enqueue(String line)
+    {
+        byte[] bytes = (line + LINE_SEPARATOR).getBytes(CHARSET);
+        writeQueue.add(ByteBuffer.wrap(deflater == null ? bytes : deflate(bytes)));
+    }
+
+
+    private byte[] deflate(byte[] bytes)
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 2 + 16);
+        deflater.setInput(bytes);
+        int count;
+        do
+        {
+            count = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.SYNC_FLUSH);
+            output.write(deflateBuffer, 0, count);
+        }
+        while (count == deflateBuffer.length);
+        return output.toByteArray();
+    }
+
+
+    private void flush()
+    {
+        if (closed)
+        {
+            return;
+        }
+        try
+        {
+            write();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOGGER.log(Level.WARNING, "Failed to write to client!", e);
+            metrics.recordClientError();
+            close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * SelectorServer.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server.nio;
+
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import clientserver.server.CommandProcessor;
+
+
+/**
+ * Non-blocking server engine. Accepts connections on a {@link ServerSocketChannel} and spreads them round-robin over a fixed number of
+ * {@link EventLoop}s, each of them multiplexing its connections with one {@link Selector}. The commands of the clients are executed by a
+ * separate worker {@link Executor}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class SelectorServer
+{
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final String EVENT_LOOP_THREAD_NAME = "chat-event-loop-";
+    private static final long ACCEPT_RETRY_MILLIS = 100L;
+    private static final Logger LOGGER = Logger.getLogger(SelectorServer.class.getName());
+    private final int port;
+    private final EventLoop[] eventLoops;
+    private int nextEventLoop;
+
+
+    /**
+     * Creates {@link SelectorServer} listening on the given port.
+     *
+     * @param port to listen on.
+     * @param eventLoopsCount number of selector threads.
+     * @param processor executes the commands received from the clients.
+     * @param worker runs the commands, so they don't block the selector threads.
+     * @throws IOException if a {@link Selector} can't be opened.
+     */
+    public SelectorServer(int port, int eventLoopsCount, CommandProcessor processor, Executor worker) throws IOException
+    {
+        if (eventLoopsCount < 1)
+        {
+            throw new IllegalArgumentException("At least one event loop is required!");
+        }
+        this.port = port;
+        eventLoops = new EventLoop[eventLoopsCount];
+        for (int i = 0; i < eventLoopsCount; i++)
+        {
+            eventLoops[i] = new EventLoop(processor, worker);
+        }
+    }
+
+
+    /**
+     * Starts the event loops and accepts connections on the calling thread until it is interrupted. A failed accept, e.g. when the
+     * process runs out of file descriptors, is logged and retried after a short pause.
+     *
+     * @throws IOException if the server channel can't be opened.
+     */
+    public void start() throws IOException
+    {
+        for (int i = 0; i < eventLoops.length; i++)
+        {
+            Thread thread = new Thread(eventLoops[i], EVENT_LOOP_THREAD_NAME + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open())
+        {
+            serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+            LOGGER.log(Level.INFO, "Accepting connections with " + eventLoops.length + " event loops");
+            while (!Thread.currentThread().isInterrupted())
+            {
+                SocketChannel channel;
+                try
+                {
+                    channel = serverChannel.accept();
+                }
+                catch (ClosedChannelException e)
+                {
+                    throw e;
+                }
+                catch (IOException e)
+                {
+                    LOGGER.log(Level.WARNING, "Failed to accept client connection!", e);
+                    pause();
+                    continue;
+                }
+                eventLoops[nextEventLoop].register(channel);
+                nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+            }
+        }
+        finally
+        {
+            for (EventLoop eventLoop : eventLoops)
+            {
+                eventLoop.shutdown();
+            }
+        }
+    }
+
+
+    private static void pause()
+    {
+        try
+        {
+            Thread.sleep(ACCEPT_RETRY_MILLIS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * LogStoreTest.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.log;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import clientserver.dao.DaoException;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Tests that a batch of messages is saved in the {@link LogStore} completely or not at all. The store is opened once per JVM, so this is
+ * the only test using it.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class LogStoreTest
+{
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final int MESSAGE_LENGTH = 1000;
+    // type, id, three strings with their lengths and the record header
+    private static final int RECORD_SIZE = 1 + Integer.BYTES + 3 * Short.BYTES + "alice".length() + "bob".length() + MESSAGE_LENGTH
+                                           + Segment.HEADER_SIZE;
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    private static LogStore store;
+
+
+    @BeforeClass
+    public static void openStore() throws DaoException
+    {
+        System.setProperty("chat.storage.log.dir", folder.getRoot().toString());
+        System.setProperty("chat.storage.log.segmentMegabytes", "1");
+        store = LogStore.getInstance();
+    }
+
+
+    @Test
+    public void failedBatchLeavesNoMessage() throws DaoException, IOException
+    {
+        // fill the first segment until exactly one more message fits
+        int fitting = SEGMENT_SIZE / RECORD_SIZE;
+        for (int i = 1; i < fitting; i++)
+        {
+            store.saveMessages(Collections.singletonList(chat()));
+        }
+        // the next segment can't be created while a directory has its name
+        Path blocked = Files.createDirectory(folder.getRoot().toPath().resolve("chat-0000000001.log"));
+        List<ChatEntity> batch = Arrays.asList(chat(), chat(), chat());
+        try
+        {
+            store.saveMessages(batch);
+            fail("The batch needs a new segment, which can't be created");
+        }
+        catch (DaoException e)
+        {
+            // expected
+        }
+        for (ChatEntity chat : batch)
+        {
+            assertNull(chat.getId());
+        }
+        assertEquals(ids(1, fitting - 1), ids(store.getHistorySince("alice", 0, Integer.MAX_VALUE)));
+
+        Files.delete(blocked);
+        store.saveMessages(batch);
+
+        assertEquals(ids(fitting, fitting + 2), ids(batch));
+        assertEquals(ids(1, fitting + 2), ids(store.getHistorySince("alice", 0, Integer.MAX_VALUE)));
+        // the record cleared after the failure is overwritten by the first message of the repeated batch
+        Segment first = Segment.open(0, folder.getRoot().toPath().resolve("chat-0000000000.log"), SEGMENT_SIZE);
+        int records = 0;
+        int offset = 0;
+        ByteBuffer body;
+        while ((body = first.read(offset)) != null)
+        {
+            offset += Segment.HEADER_SIZE + body.remaining();
+            records++;
+        }
+        assertEquals(fitting, records);
+    }
+
+
+    private static ChatEntity chat()
+    {
+        char[] text = new char[MESSAGE_LENGTH];
+        Arrays.fill(text, 'x');
+        ChatEntity chat = new ChatEntity();
+        chat.setSender("alice");
+        chat.setRecipient("bob");
+        chat.setMessage(new String(text));
+        return chat;
+    }
+
+
+    private static List<Integer> ids(int first, int last)
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int id = first; id <= last; id++)
+        {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+
+    private static List<Integer> ids(List<ChatEntity> chats)
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (ChatEntity chat : chats)
+        {
+            ids.add(chat.getId());
+        }
+        return ids;
+    }
+}
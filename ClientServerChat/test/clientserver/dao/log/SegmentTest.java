@@ -0,0 +1,170 @@
+/*
+ * SegmentTest.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.dao.log;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Tests the recovery of a {@link Segment} of the message log when it is opened again, the way {@link LogStore} replays it: records are
+ * read until the first one which is incomplete or fails its CRC, and the rest of the segment is cleared.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class SegmentTest
+{
+    private static final int SEGMENT_SIZE = 4096;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Path file;
+
+
+    @Before
+    public void createFile() throws IOException
+    {
+        file = folder.getRoot().toPath().resolve("chat-0000000000.log");
+    }
+
+
+    @Test
+    public void completeRecordsAreReadBack() throws IOException
+    {
+        Segment segment = Segment.open(0, file, SEGMENT_SIZE);
+        appendAll(segment, "alice", "bob", "carol");
+
+        Segment reopened = Segment.open(0, file, SEGMENT_SIZE);
+        List<String> bodies = new ArrayList<String>();
+        int end = replay(reopened, bodies);
+
+        assertEquals(Arrays.asList("alice", "bob", "carol"), bodies);
+        assertEquals(segment.getPosition(), end);
+        assertTrue(reopened.isEnd(end));
+    }
+
+
+    @Test
+    public void tornTailRecordIsDiscarded() throws IOException
+    {
+        Segment segment = Segment.open(0, file, SEGMENT_SIZE);
+        appendAll(segment, "alice", "bob");
+        int tail = segment.append(body("carol"));
+        // the length and the CRC of the last record reached the disk, the end of its body did not
+        overwrite(tail + Segment.HEADER_SIZE + 2, new byte[3]);
+
+        Segment reopened = Segment.open(0, file, SEGMENT_SIZE);
+        List<String> bodies = new ArrayList<String>();
+        int end = replay(reopened, bodies);
+
+        assertEquals(Arrays.asList("alice", "bob"), bodies);
+        assertEquals(tail, end);
+        assertFalse(reopened.isEnd(end));
+
+        reopened.recover(end);
+        assertTrue(reopened.isEnd(end));
+        reopened.append(body("dave"));
+
+        bodies.clear();
+        replay(Segment.open(0, file, SEGMENT_SIZE), bodies);
+        assertEquals(Arrays.asList("alice", "bob", "dave"), bodies);
+    }
+
+
+    @Test
+    public void recordWithWrongCrcEndsTheLog() throws IOException
+    {
+        Segment segment = Segment.open(0, file, SEGMENT_SIZE);
+        segment.append(body("alice"));
+        int corrupted = segment.append(body("bob"));
+        segment.append(body("carol"));
+        overwrite(corrupted + Segment.HEADER_SIZE, "B".getBytes(StandardCharsets.UTF_8));
+
+        Segment reopened = Segment.open(0, file, SEGMENT_SIZE);
+        List<String> bodies = new ArrayList<String>();
+        int end = replay(reopened, bodies);
+        reopened.recover(end);
+
+        assertEquals(Arrays.asList("alice"), bodies);
+        assertEquals(corrupted, end);
+        assertTrue(reopened.isEnd(end));
+        bodies.clear();
+        replay(Segment.open(0, file, SEGMENT_SIZE), bodies);
+        assertEquals(Arrays.asList("alice"), bodies);
+    }
+
+
+    @Test
+    public void emptySegmentHasNoRecords() throws IOException
+    {
+        Segment segment = Segment.open(0, file, SEGMENT_SIZE);
+        List<String> bodies = new ArrayList<String>();
+
+        assertEquals(0, replay(segment, bodies));
+        assertTrue(bodies.isEmpty());
+        assertTrue(segment.isEnd(0));
+    }
+
+
+    /**
+     * Reads the records from the beginning of the segment.
+     *
+     * @return the offset after the last valid record.
+     */
+    private static int replay(Segment segment, List<String> bodies)
+    {
+        int offset = 0;
+        ByteBuffer body;
+        while ((body = segment.read(offset)) != null)
+        {
+            offset += Segment.HEADER_SIZE + body.remaining();
+            bodies.add(StandardCharsets.UTF_8.decode(body).toString());
+        }
+        return offset;
+    }
+
+
+    private static void appendAll(Segment segment, String... bodies)
+    {
+        for (String body : bodies)
+        {
+            segment.append(body(body));
+        }
+    }
+
+
+    private static ByteBuffer body(String text)
+    {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private void overwrite(int offset, byte[] bytes) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * LatencyHistogramTest.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.metrics;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the bucketing and the percentiles of the {@link LatencyHistogram}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class LatencyHistogramTest
+{
+    private static final double DELTA = 1e-9;
+
+
+    @Test
+    public void emptyHistogramReportsZero()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(0.99));
+        assertEquals(0, histogram.getMeanMicros(), DELTA);
+        assertEquals(0, histogram.getMaxMicros(), DELTA);
+    }
+
+
+    @Test
+    public void smallValuesHaveExactBuckets()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 0; nanos < 8; nanos++)
+        {
+            histogram.record(nanos);
+        }
+
+        assertEquals(8, histogram.getCount());
+        assertEquals(3, histogram.getPercentileNanos(0.5));
+        assertEquals(7, histogram.getPercentileNanos(1));
+    }
+
+
+    @Test
+    public void percentileIsAtMostAnEighthAboveTheValue()
+    {
+        for (long nanos = 8; nanos > 0 && nanos < Long.MAX_VALUE / 2; nanos = nanos * 5 / 3)
+        {
+            for (long value : new long[] {nanos - 1, nanos, nanos + 1})
+            {
+                LatencyHistogram histogram = new LatencyHistogram();
+                histogram.record(value);
+                histogram.record(Long.MAX_VALUE);
+                long percentile = histogram.getPercentileNanos(0.5);
+
+                assertTrue(value + " is reported as " + percentile, percentile >= value && percentile <= value + value / 8);
+            }
+        }
+    }
+
+
+    @Test
+    public void powersOfTwoStartTheirBuckets()
+    {
+        for (int bit = 3; bit < Long.SIZE - 1; bit++)
+        {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(1L << bit);
+            histogram.record(Long.MAX_VALUE);
+
+            assertEquals((1L << bit) + (1L << (bit - 3)) - 1, histogram.getPercentileNanos(0.5));
+        }
+    }
+
+
+    @Test
+    public void percentileDoesNotExceedTheMaximum()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+
+        assertEquals(1000, histogram.getPercentileNanos(1));
+        assertEquals(1, histogram.getMaxMicros(), DELTA);
+    }
+
+
+    @Test
+    public void largestAndNegativeValuesAreRecorded()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(0.5));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(1));
+    }
+
+
+    @Test
+    public void meanIsComputedFromTheRecordedValues()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(3000);
+
+        assertEquals(2, histogram.getMeanMicros(), DELTA);
+        assertEquals(3, histogram.getMaxMicros(), DELTA);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * CommandProcessorTest.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import clientserver.dao.memory.ChatDaoMemory;
+import clientserver.dao.memory.MailboxDaoMemory;
+import clientserver.dao.memory.RoomDaoMemory;
+import clientserver.dao.memory.UserDaoMemory;
+
+
+/**
+ * Tests that the {@link CommandProcessor} answers invalid lines with an error message and keeps serving the session.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class CommandProcessorTest
+{
+    private static CommandProcessor processor;
+    private RecordingSession session;
+
+
+    @BeforeClass
+    public static void createProcessor()
+    {
+        processor = new CommandProcessor(UserDaoMemory.getInstance(), ChatDaoMemory.getInstance(), RoomDaoMemory.getInstance(),
+                                         MailboxDaoMemory.getInstance());
+    }
+
+
+    @Before
+    public void createSession()
+    {
+        session = new RecordingSession();
+    }
+
+
+    @Test
+    public void lineWithoutSpaceIsRejected()
+    {
+        processor.process(session, "alice");
+
+        assertEquals("Invalid input: all messages must start with username and space!", session.lastLine());
+    }
+
+
+    @Test
+    public void lineWithEmptyUsernameIsRejected()
+    {
+        processor.process(session, " hello");
+
+        assertEquals("Invalid input: all messages must start with username and space!", session.lastLine());
+        assertEquals(null, session.getUsername());
+    }
+
+
+    @Test
+    public void privateMessageWithoutTextIsRejected()
+    {
+        processor.process(session, "alice @bob");
+        processor.process(session, "alice @bob   ");
+
+        assertEquals(2, session.lines.size());
+        for (String line : session.lines)
+        {
+            assertEquals("Invalid input: private messages must be @username and text!", line);
+        }
+    }
+
+
+    @Test
+    public void otherUserOnABoundConnectionIsRejected()
+    {
+        processor.process(session, "carol hello");
+        processor.process(session, "mallory hello");
+
+        assertEquals("Invalid input: the connection is used by another user!", session.lastLine());
+        assertEquals("carol", session.getUsername());
+    }
+
+
+    @Test
+    public void sessionIsServedAfterAnInvalidLine()
+    {
+        processor.process(session, "dave @erin");
+        processor.process(session, "dave !upload");
+
+        assertEquals("dave", session.getUsername());
+        assertTrue(session.lastLine(), session.lastLine().startsWith("!upload "));
+    }
+
+
+    @Test
+    public void tooLongLineIsRejected()
+    {
+        StringBuilder line = new StringBuilder("frank ");
+        while (line.length() < 300)
+        {
+            line.append('x');
+        }
+        processor.process(session, line.toString());
+
+        assertEquals("Invalid input: the line is too long!", session.lastLine());
+    }
+
+
+    /**
+     * Session which keeps the lines sent to the client.
+     */
+    private static final class RecordingSession extends ClientSession
+    {
+        private final List<String> lines = new ArrayList<String>();
+
+
+        @Override
+        public synchronized void send(String line)
+        {
+            lines.add(line);
+        }
+
+
+        synchronized String lastLine()
+        {
+            return lines.isEmpty() ? null : lines.get(lines.size() - 1);
+        }
+    }
+}
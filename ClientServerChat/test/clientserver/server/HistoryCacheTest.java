@@ -0,0 +1,219 @@
+/*
+ * HistoryCacheTest.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Tests the hits and misses of the {@link HistoryCache}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class HistoryCacheTest
+{
+    @Test
+    public void savedMessagesAreHits()
+    {
+        HistoryCache cache = new HistoryCache(10, 10, 10, 10, 10);
+        openRings(cache, "alice", "bob");
+        cache.add(privateChat(1, "alice", "bob"));
+        cache.add(privateChat(2, "bob", "alice"));
+        cache.add(privateChat(3, "bob", "carol"));
+
+        assertEquals(Arrays.asList(1, 2), ids(cache.getHistorySince("alice", 0, 10)));
+        assertEquals(Arrays.asList(2, 3), ids(cache.getHistorySince("bob", 1, 10)));
+        assertEquals(Arrays.asList(1), ids(cache.getHistorySince("bob", 0, 1)));
+        assertEquals(3, cache.getHitCount());
+    }
+
+
+    @Test
+    public void ringCreatedByAMessageIsCompleteAfterThatMessage()
+    {
+        HistoryCache cache = new HistoryCache(10, 10, 10, 10, 10);
+        cache.add(privateChat(1, "alice", "bob"));
+        cache.add(privateChat(2, "bob", "alice"));
+
+        // older messages of alice may be in the storage from before the cache was started
+        assertNull(cache.getHistorySince("alice", 0, 10));
+        assertEquals(Arrays.asList(2), ids(cache.getHistorySince("alice", 1, 10)));
+    }
+
+
+    @Test
+    public void ringCreatedBeforeTheFirstMessageIsCompleteSinceThatMessage()
+    {
+        HistoryCache cache = new HistoryCache(10, 10, 10, 10, 10);
+        assertNull(cache.getHistorySince("alice", 0, 10));
+
+        cache.add(privateChat(7, "alice", "bob"));
+        cache.add(privateChat(8, "bob", "alice"));
+
+        assertNull(cache.getHistorySince("alice", 5, 10));
+        assertEquals(Arrays.asList(7, 8), ids(cache.getHistorySince("alice", 6, 10)));
+    }
+
+
+    @Test
+    public void messagesToEveryoneAreMergedByIdAndLimited()
+    {
+        HistoryCache cache = new HistoryCache(10, 10, 10, 10, 10);
+        openRings(cache, "alice");
+        cache.add(privateChat(1, "alice", "bob"));
+        cache.add(broadcast(2, "carol"));
+        cache.add(privateChat(3, "bob", "alice"));
+        cache.add(broadcast(4, "dave"));
+
+        assertEquals(Arrays.asList(1, 2, 3, 4), ids(cache.getHistorySince("alice", 0, 10)));
+        assertEquals(Arrays.asList(2, 3), ids(cache.getHistorySince("alice", 1, 2)));
+    }
+
+
+    @Test
+    public void historyBeforeTheWrappedPartOfTheRingIsAMiss()
+    {
+        HistoryCache cache = new HistoryCache(3, 10, 10, 10, 10);
+        openRings(cache, "alice");
+        for (int id = 1; id <= 5; id++)
+        {
+            cache.add(privateChat(id, "alice", "bob"));
+        }
+        long misses = cache.getMissCount();
+
+        assertNull(cache.getHistorySince("alice", 0, 10));
+        assertNull(cache.getHistorySince("alice", 1, 10));
+        assertEquals(Arrays.asList(3, 4, 5), ids(cache.getHistorySince("alice", 2, 10)));
+        assertEquals(misses + 2, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+
+    @Test
+    public void roomRingWrapsOnItsOwn()
+    {
+        HistoryCache cache = new HistoryCache(10, 10, 10, 2, 10);
+        cache.getRoomHistorySince("lobby", 0, 10);
+        cache.getRoomHistorySince("games", 0, 10);
+        cache.add(roomChat(1, "alice", "lobby"));
+        cache.add(roomChat(2, "bob", "lobby"));
+        cache.add(roomChat(3, "alice", "lobby"));
+        cache.add(roomChat(4, "alice", "games"));
+
+        assertNull(cache.getRoomHistorySince("lobby", 0, 10));
+        assertEquals(Arrays.asList(2, 3), ids(cache.getRoomHistorySince("lobby", 1, 10)));
+        assertEquals(Arrays.asList(4), ids(cache.getRoomHistorySince("games", 0, 10)));
+    }
+
+
+    @Test
+    public void messagesSavedOutOfOrderAreSortedById()
+    {
+        HistoryCache cache = new HistoryCache(10, 10, 10, 10, 10);
+        openRings(cache, "alice");
+        cache.add(privateChat(1, "alice", "bob"));
+        cache.add(privateChat(3, "alice", "bob"));
+        cache.add(privateChat(2, "bob", "alice"));
+
+        assertEquals(Arrays.asList(1, 2, 3), ids(cache.getHistorySince("alice", 0, 10)));
+    }
+
+
+    @Test
+    public void oldestRingIsEvictedWhenAllAreUsed()
+    {
+        HistoryCache cache = new HistoryCache(10, 2, 10, 10, 10);
+        cache.add(privateChat(1, "alice", "bob"));
+        // every ring has been used, the clock clears the marks once and then drops the oldest ring
+        cache.add(privateChat(2, "carol", "carol"));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getUserCount());
+        // the new ring of alice is complete only after the last saved message
+        assertNull(cache.getHistorySince("alice", 1, 10));
+        assertEquals(new ArrayList<Integer>(), ids(cache.getHistorySince("alice", 2, 10)));
+    }
+
+
+    @Test
+    public void ringUsedSinceTheLastSweepSurvives()
+    {
+        HistoryCache cache = new HistoryCache(10, 3, 10, 10, 10);
+        cache.add(privateChat(1, "alice", "alice"));
+        cache.add(privateChat(2, "bob", "bob"));
+        cache.add(privateChat(3, "carol", "carol"));
+        // the sweep clears the marks of all rings and drops alice
+        cache.add(privateChat(4, "dave", "dave"));
+        cache.getHistorySince("bob", 2, 10);
+        // bob has been used since the sweep, carol has not
+        cache.add(privateChat(5, "eve", "eve"));
+
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(new ArrayList<Integer>(), ids(cache.getHistorySince("bob", 2, 10)));
+        assertNull(cache.getHistorySince("carol", 3, 10));
+    }
+
+
+    /**
+     * Requests the history of the users before the first message is saved, so their rings are complete since the first message.
+     */
+    private static void openRings(HistoryCache cache, String... usernames)
+    {
+        for (String username : usernames)
+        {
+            cache.getHistorySince(username, 0, 1);
+        }
+    }
+
+
+    private static List<Integer> ids(List<ChatEntity> chats)
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (ChatEntity chat : chats)
+        {
+            ids.add(chat.getId());
+        }
+        return ids;
+    }
+
+
+    private static ChatEntity privateChat(int id, String sender, String recipient)
+    {
+        ChatEntity chat = broadcast(id, sender);
+        chat.setRecipient(recipient);
+        return chat;
+    }
+
+
+    private static ChatEntity roomChat(int id, String sender, String room)
+    {
+        ChatEntity chat = broadcast(id, sender);
+        chat.setRoom(room);
+        return chat;
+    }
+
+
+    private static ChatEntity broadcast(int id, String sender)
+    {
+        ChatEntity chat = new ChatEntity();
+        chat.setId(id);
+        chat.setSender(sender);
+        chat.setMessage("message " + id);
+        return chat;
+    }
+}
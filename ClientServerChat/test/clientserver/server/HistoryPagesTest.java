@@ -0,0 +1,200 @@
+/*
+ * HistoryPagesTest.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import clientserver.dao.DaoException;
+import clientserver.dao.RoomDao;
+import clientserver.entities.ChatEntity;
+
+
+/**
+ * Tests the keyset paging of {@link HistoryPages}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class HistoryPagesTest
+{
+    private static final String ROOM = "lobby";
+
+
+    @Test
+    public void emptyHistoryIsOnlyTheEndMarker()
+    {
+        FakeRoomDao roomDao = new FakeRoomDao(0);
+        HistoryPages pages = HistoryPages.ofRoom(roomDao, null, ROOM, 0, 100, 10);
+
+        assertTrue(pages.hasNext());
+        assertEquals(HistoryPages.HISTORY_END, pages.next());
+        assertFalse(pages.hasNext());
+        assertEquals(Arrays.asList("0/10"), roomDao.loads);
+    }
+
+
+    @Test
+    public void pagesContinueAfterTheLastIdOfThePreviousPage()
+    {
+        FakeRoomDao roomDao = new FakeRoomDao(5);
+        List<String> lines = readAll(HistoryPages.ofRoom(roomDao, null, ROOM, 0, 100, 2));
+
+        assertEquals(Arrays.asList(page(1, 2), page(3, 4), page(5, 5), HistoryPages.HISTORY_END), lines);
+        assertEquals(Arrays.asList("0/2", "2/2", "4/2"), roomDao.loads);
+    }
+
+
+    @Test
+    public void fullLastPageIsFollowedByAnEmptyPage()
+    {
+        FakeRoomDao roomDao = new FakeRoomDao(4);
+        List<String> lines = readAll(HistoryPages.ofRoom(roomDao, null, ROOM, 0, 100, 2));
+
+        assertEquals(Arrays.asList(page(1, 2), page(3, 4), HistoryPages.HISTORY_END), lines);
+        assertEquals(Arrays.asList("0/2", "2/2", "4/2"), roomDao.loads);
+    }
+
+
+    @Test
+    public void historyStartsAfterTheCursorOfTheClient()
+    {
+        FakeRoomDao roomDao = new FakeRoomDao(5);
+        List<String> lines = readAll(HistoryPages.ofRoom(roomDao, null, ROOM, 3, 100, 10));
+
+        assertEquals(Arrays.asList(page(4, 5), HistoryPages.HISTORY_END), lines);
+        assertEquals(Arrays.asList("3/10"), roomDao.loads);
+    }
+
+
+    @Test
+    public void limitShrinksTheLastPage()
+    {
+        FakeRoomDao roomDao = new FakeRoomDao(10);
+        List<String> lines = readAll(HistoryPages.ofRoom(roomDao, null, ROOM, 0, 3, 2));
+
+        assertEquals(Arrays.asList(page(1, 2), page(3, 3), HistoryPages.HISTORY_END), lines);
+        assertEquals(Arrays.asList("0/2", "2/1"), roomDao.loads);
+    }
+
+
+    @Test
+    public void failedLoadEndsTheHistory()
+    {
+        FakeRoomDao roomDao = new FakeRoomDao(5);
+        roomDao.failAfter = 2;
+        List<String> lines = readAll(HistoryPages.ofRoom(roomDao, null, ROOM, 0, 100, 2));
+
+        assertEquals(Arrays.asList(page(1, 2), HistoryPages.HISTORY_END), lines);
+    }
+
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextAfterTheEndMarkerFails()
+    {
+        HistoryPages pages = HistoryPages.ofRoom(new FakeRoomDao(0), null, ROOM, 0, 100, 10);
+        pages.next();
+        pages.next();
+    }
+
+
+    private static List<String> readAll(HistoryPages pages)
+    {
+        List<String> lines = new ArrayList<String>();
+        while (pages.hasNext())
+        {
+            lines.add(pages.next());
+        }
+        return lines;
+    }
+
+
+    private static String page(int firstId, int lastId)
+    {
+        StringBuilder page = new StringBuilder();
+        for (int id = firstId; id <= lastId; id++)
+        {
+            page.append(CommandProcessor.render(chat(id))).append('#');
+        }
+        return page.toString();
+    }
+
+
+    private static ChatEntity chat(int id)
+    {
+        ChatEntity chat = new ChatEntity();
+        chat.setId(id);
+        chat.setSender("alice");
+        chat.setRoom(ROOM);
+        chat.setMessage("message " + id);
+        return chat;
+    }
+
+
+    /**
+     * Room with the messages 1 to n which records every page load as "lastId/limit".
+     */
+    private static final class FakeRoomDao implements RoomDao
+    {
+        private final int messages;
+        private final List<String> loads = new ArrayList<String>();
+        private int failAfter = Integer.MAX_VALUE;
+
+
+        FakeRoomDao(int messages)
+        {
+            this.messages = messages;
+        }
+
+
+        @Override
+        public List<ChatEntity> getRoomHistorySince(String room, int lastId, int limit) throws DaoException
+        {
+            loads.add(lastId + "/" + limit);
+            if (lastId >= failAfter)
+            {
+                throw new DaoException("Failed to load the history!");
+            }
+            List<ChatEntity> chats = new ArrayList<ChatEntity>();
+            for (int id = lastId + 1; id <= messages && chats.size() < limit; id++)
+            {
+                chats.add(chat(id));
+            }
+            return chats;
+        }
+
+
+        @Override
+        public void joinRoom(String room, String username)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public void leaveRoom(String room, String username)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public List<String> getMembers(String room)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
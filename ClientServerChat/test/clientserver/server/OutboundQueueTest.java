@@ -0,0 +1,119 @@
+/*
+ * OutboundQueueTest.java
+ *
+ * created at 2026-10-18 by Petya Petrova p.petrova <p.petrova@seeburger.com>
+ *
+ * Copyright (c) SEEBURGER AG, Germany. All Rights Reserved.
+ */
+package clientserver.server;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link OverflowPolicy}s of the {@link OutboundQueue}.
+ * <p>
+ * created at Oct 18, 2026 by @author Petya Petrova p.petrova
+ */
+public class OutboundQueueTest
+{
+    @Test
+    public void messagesBelowCapacityKeepTheirOrder()
+    {
+        OutboundQueue queue = new OutboundQueue(3, OverflowPolicy.PULL);
+        offerAll(queue, "a", "b", "c");
+
+        assertEquals(Arrays.asList("a", "b", "c"), pollAll(queue));
+        assertTrue(queue.isEmpty());
+    }
+
+
+    @Test
+    public void dropOldestKeepsTheNewestMessages()
+    {
+        OutboundQueue queue = new OutboundQueue(3, OverflowPolicy.DROP_OLDEST);
+        offerAll(queue, "a", "b", "c", "d", "e");
+
+        assertEquals(Arrays.asList("c", "d", "e"), pollAll(queue));
+    }
+
+
+    @Test
+    public void pullQueuesTheMarkerAndDropsUntilItIsTaken()
+    {
+        OutboundQueue queue = new OutboundQueue(2, OverflowPolicy.PULL);
+        offerAll(queue, "a", "b", "c");
+        assertEquals("a", queue.poll());
+        // a free place does not end the fallback, only taking the marker does
+        offerAll(queue, "d");
+
+        assertEquals(Arrays.asList("b", OutboundQueue.BEHIND_MSG), pollAll(queue));
+        offerAll(queue, "e");
+        assertEquals(Arrays.asList("e"), pollAll(queue));
+    }
+
+
+    @Test
+    public void pullQueuesOneMarkerOnly()
+    {
+        OutboundQueue queue = new OutboundQueue(1, OverflowPolicy.PULL);
+        offerAll(queue, "a", "b", "c", "d");
+
+        assertEquals(Arrays.asList("a", OutboundQueue.BEHIND_MSG), pollAll(queue));
+    }
+
+
+    @Test
+    public void disconnectClosesTheQueueOnce()
+    {
+        OutboundQueue queue = new OutboundQueue(1, OverflowPolicy.DISCONNECT);
+
+        assertTrue(queue.offer("a"));
+        assertFalse(queue.offer("b"));
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer("c"));
+        assertTrue(queue.isEmpty());
+    }
+
+
+    @Test
+    public void closedQueueIgnoresNewMessages()
+    {
+        OutboundQueue queue = new OutboundQueue(3, OverflowPolicy.PULL);
+        offerAll(queue, "a", "b");
+        queue.close();
+        offerAll(queue, "c");
+
+        assertTrue(pollAll(queue).isEmpty());
+    }
+
+
+    private static void offerAll(OutboundQueue queue, String... lines)
+    {
+        for (String line : lines)
+        {
+            assertTrue(queue.offer(line));
+        }
+    }
+
+
+    private static List<String> pollAll(OutboundQueue queue)
+    {
+        List<String> lines = new ArrayList<String>();
+        String line;
+        while ((line = queue.poll()) != null)
+        {
+            lines.add(line);
+        }
+        return lines;
+    }
+}